@@ -8,6 +8,9 @@ import com.ib.client.*;
 
 import main.java.penny.concurrent.LockManager;
 import main.java.penny.constants.MarketDataConstants;
+import main.java.penny.marketdata.MarketData;
+import main.java.penny.marketdata.MarketDataRequest;
+import main.java.penny.marketdata.StockTick;
 
 /**
  * Implementation for EWrapper Broker communication channel.  Primary interface of market data delivery from broker to
@@ -66,12 +69,17 @@ public class EWrapperImpl implements EWrapper {
      */
     @Override
     public void tickPrice(int tickId, int tickType, double price, TickAttrib attribute) {
-        if (Broker.getInstance().getMarketData().getStockTickResults().hasStockTick(tickId)) {
-            Broker.getInstance().getMarketData().getStockTickResults().addTickResult(tickId, tickType, price);
-
-            // If we've collected all the necessary tick fields from this StockTick, unlock
-            if (Broker.getInstance().getMarketData().getStockTickResults().getStockTick(tickId).isComplete()) {
-                Broker.getInstance().getMarketData().cancelMarketData(tickId);
+        // A single table load resolves the request; ignore late ticks for requests that are no longer active
+        MarketData marketData = Broker.getInstance().getMarketData();
+        MarketDataRequest request = marketData.getDispatchedRequest(tickId);
+        if (request != null && request.isActive()) {
+            StockTick tick = request.getStockTick();
+            tick.addTick(tickType, price);
+
+            // If we've collected all the tick fields the active model requires from this StockTick, cancel its
+            // market data
+            if (tick.isComplete()) {
+                marketData.cancelMarketData(request);
             }
         }
     }
@@ -85,12 +93,17 @@ public class EWrapperImpl implements EWrapper {
      */
     @Override
     public void tickSize(int tickId, int tickType, int size) {
-        if (Broker.getInstance().getMarketData().getStockTickResults().hasStockTick(tickId)) {
-            Broker.getInstance().getMarketData().getStockTickResults().addTickResult(tickId, tickType, size);
-
-            // If we've collected all the necessary tick fields from this StockTick, unlock
-            if (Broker.getInstance().getMarketData().getStockTickResults().getStockTick(tickId).isComplete()) {
-                Broker.getInstance().getMarketData().cancelMarketData(tickId);
+        // A single table load resolves the request; ignore late ticks for requests that are no longer active
+        MarketData marketData = Broker.getInstance().getMarketData();
+        MarketDataRequest request = marketData.getDispatchedRequest(tickId);
+        if (request != null && request.isActive()) {
+            StockTick tick = request.getStockTick();
+            tick.addTick(tickType, size);
+
+            // If we've collected all the tick fields the active model requires from this StockTick, cancel its
+            // market data
+            if (tick.isComplete()) {
+                marketData.cancelMarketData(request);
             }
         }
     }
@@ -106,7 +119,7 @@ public class EWrapperImpl implements EWrapper {
     @Override
     public void marketDataType(int tickId, int marketDataType) {
         // Delivers when market data is cancelled for a particular tickId
-        LockManager.getInstance().getLock(tickId).unlock();
+        Broker.getInstance().getMarketData().settleMarketData(tickId);
     }
 
     /**
@@ -146,10 +159,10 @@ public class EWrapperImpl implements EWrapper {
      */
     @Override
     public void error(int id, int errorCode, String errorMsg) {
-        // If requested market data reports an error, almost always from an OTC ticker that no longer exists; unlock id
-        // and cancel market data to clear up market data notion that current id is active
+        // If requested market data reports an error, almost always from an OTC ticker that no longer exists; cancel
+        // market data to clear up market data notion that current id is active and release its request permit
         if (MarketDataConstants.ERROR_CODE_UNLOCKS.contains(errorCode)) {
-            Broker.getInstance().getMarketData().cancelMarketData(id);
+            Broker.getInstance().getMarketData().cancelMarketData(id, errorCode, errorMsg);
         }
     }
 
@@ -293,8 +306,16 @@ public class EWrapperImpl implements EWrapper {
     public void deltaNeutralValidation(int reqId, DeltaNeutralContract underComp) {
     }
 
+    /**
+     * Signals that the snapshot market data request associated with the provided reqId has delivered all its market
+     * data.  Settles the snapshot request without cancelling market data with the broker.
+     *
+     * @param reqId Identifier associated with the StockTick of the ended snapshot
+     */
     @Override
     public void tickSnapshotEnd(int reqId) {
+        // Delivers once the broker has sent all the market data of a snapshot request
+        Broker.getInstance().getMarketData().endMarketSnapshot(reqId);
     }
 
     @Override
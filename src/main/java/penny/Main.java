@@ -1,7 +1,10 @@
 package main.java.penny;
 
 import main.java.penny.commands.Analyze;
+import main.java.penny.commands.Archive;
+import main.java.penny.commands.Export;
 import main.java.penny.commands.LiveScan;
+import main.java.penny.commands.Migrate;
 import main.java.penny.commands.Help;
 import main.java.penny.commands.Spoof;
 import main.java.penny.constants.CLIConstants;
@@ -36,6 +39,15 @@ public class Main {
                 case CLIConstants.SPOOF_COMMAND:
                     Spoof.execute(commandArgs);
                     break;
+                case CLIConstants.EXPORT_COMMAND:
+                    Export.execute(commandArgs);
+                    break;
+                case CLIConstants.ARCHIVE_COMMAND:
+                    Archive.execute(commandArgs);
+                    break;
+                case CLIConstants.MIGRATE_COMMAND:
+                    Migrate.execute(commandArgs);
+                    break;
                 default:
                     System.out.println("No command-line arguments specified.  Use \"--help\" to see program usages.");
                     Help.execute(commandArgs);
@@ -1,17 +1,18 @@
 package main.java.penny.commands;
 
 import main.java.penny.constants.CLIConstants;
+import main.java.penny.constants.ClassificationConstants;
+import main.java.penny.constants.SerializationConstants;
 import main.java.penny.marketdata.*;
+import main.java.penny.models.ModelRegistry;
 import main.java.penny.models.classification.ClassifiedStockTick;
 import main.java.penny.util.CommandUtil;
-import main.java.penny.util.StockCalendar;
 
 import java.io.File;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
 import java.util.*;
 
-import static main.java.penny.constants.SerializationConstants.*;
+import static main.java.penny.constants.SerializationConstants.LOADED_TICK_DATE_FORMAT;
 
 /**
  * Analysis execution of previously serialized stock results of Penny.
@@ -20,80 +21,171 @@ import static main.java.penny.constants.SerializationConstants.*;
  * scanned stocks and their tick information.  Allows for reclassification of historically scanned stocks
  * and possible updates to existing datasets.  This program usage supports optional arguments that include
  * appending loaded stock tick data in CSV format to an output data file.
+ *
+ * Analyze accepts either a single date or a range of dates.  Each day of a range is loaded and classified
+ * independently and concurrently on the shared classifier of the ModelRegistry, and the classifications of every
+ * day are merged into a single ranking.
  */
 public class Analyze {
 
+    /** Ranks dated classifications in descending order of classification percentage, then by date and ticker */
+    private static final Comparator<DayClassification> RANK = Comparator
+            .comparingDouble((DayClassification dated) -> -dated.classified.getClassification().getPercentage())
+            .thenComparing(dated -> dated.date)
+            .thenComparing(dated -> dated.classified.getStockTick().getTicker());
+
     /**
      * Executes this command with the provided (minor) arguments.  Throws an Exception if this command
      * fails to execute.
      */
     public static void execute(String[] args) throws Exception {
-        // Initialize tickers to analyze and other optional minor commands
+        // Initialize the dates and tickers to analyze and other optional minor commands
+        List<Date> dates = new ArrayList<Date>();
         Set<String> analyzeTickers = new HashSet<String>();
-        File csvAppendFile = init(args, analyzeTickers);
-
-        // Initialize a local market data to house all loaded stock tick information
-        MarketData marketData = new MarketData();
-
-        // Load the serialized stock tick directory from the default file paths expected
-        Date date = StockCalendar.getInstance().getTime();
-        String monthDir = MONTH_DIR_FORMAT.format(date);
-        String dayDir = DAY_DIR_FORMAT.format(date);
-
-        Path path = Paths.get(DATABASE_ROOT_DIR, DATABASE_DIR, monthDir, dayDir);
-
-        File dir = new File(path.toString());
-        File[] files = dir.listFiles();
+        File csvAppendFile = init(args, dates, analyzeTickers);
 
-        StockTickResults results = marketData.getStockTickResults();
+        // Load the classifier in the background while the stock ticks are loaded
+        ModelRegistry.getInstance().preload(ClassificationConstants.PUMP_CLASSIFIER_MODEL);
 
-        // Load all the stock tick results from the date specified into these stock tick results
-        CommandUtil.deserialize(files, results, analyzeTickers);
-
-        Collection<StockTick> ticks = results.getStockTicks();
+        if (dates.size() == 1) {
+            executeDay(dates.get(0), analyzeTickers, csvAppendFile);
+        } else {
+            executeRange(dates, analyzeTickers, csvAppendFile);
+        }
+    }
 
-        // Classify all loaded stock ticks without filter
-        List<ClassifiedStockTick> classifications = CommandUtil.classify(ticks, null /* No filter */);
+    /**
+     * Analyzes the stock ticks serialized on the single date provided.
+     */
+    private static void executeDay(Date date, Set<String> analyzeTickers, File csvAppendFile) throws Exception {
+        // Load and classify all the stock tick results from the date specified without filter
+        DayAnalysis day = analyzeDay(date, analyzeTickers, true /* Display progress */);
+        if (day == null) {
+            System.out.println("No serialized stock data found for " + format(date));
+            return;
+        }
 
         // If no explicit stock symbols were indicated in the CLI arguments, output all classifications instead
         boolean onlyPositiveResults = analyzeTickers.isEmpty();
-        CommandUtil.output(classifications, onlyPositiveResults);
+        CommandUtil.output(day.classifications, onlyPositiveResults);
 
         // Only analyze the specific tick values of tickers if they were explicitly provided
         if (!analyzeTickers.isEmpty()) {
-            CommandUtil.analyze(analyzeTickers, results);
+            CommandUtil.analyze(analyzeTickers, day.results);
         }
 
         // Append the results to the CSV file provided if specified
         if (csvAppendFile != null) {
-            CommandUtil.appendCSV(csvAppendFile, classifications, analyzeTickers);
+            CommandUtil.appendCSV(csvAppendFile, day.classifications, analyzeTickers, date);
+        }
+    }
+
+    /**
+     * Analyzes the stock ticks serialized on each of the dates provided.  Days are analyzed concurrently, at most
+     * ANALYZE_DAY_PARALLELISM at a time (see SerializationConstants), but are merged in date order so the output is
+     * the same from one execution to the next.  Only a bounded number of analyzed days are held at once.
+     */
+    private static void executeRange(List<Date> dates, Set<String> analyzeTickers, File csvAppendFile)
+            throws Exception {
+        List<String> dateTokens = new ArrayList<String>();
+        dates.forEach(date -> dateTokens.add(format(date)));
+
+        // If no explicit stock symbols were indicated in the CLI arguments, rank all positive classifications instead
+        boolean onlyPositiveResults = analyzeTickers.isEmpty();
+        List<DayClassification> ranked = new ArrayList<DayClassification>();
+        List<DayAnalysis> analyzedDays = new ArrayList<DayAnalysis>();
+
+        CommandUtil.processDays("Analyze", dates, dateTokens, SerializationConstants.ANALYZE_DAY_PARALLELISM,
+                date -> analyzeDay(date, analyzeTickers, false /* No progress */), day -> {
+            if (day == null) {
+                return;
+            }
+
+            for (ClassifiedStockTick classified : day.classifications) {
+                if (!onlyPositiveResults || classified.getClassification().isPositive()) {
+                    // Copy the stock tick so the ranking does not hold every stock tick of the day
+                    ClassifiedStockTick detached = new ClassifiedStockTick(
+                            StockTick.copyOf(classified.getStockTick()), classified.getClassification());
+                    ranked.add(new DayClassification(day.date, detached));
+                }
+            }
+
+            // Append the results to the CSV file provided if specified
+            if (csvAppendFile != null) {
+                CommandUtil.appendCSV(csvAppendFile, day.classifications, analyzeTickers, day.date);
+            }
+
+            // Only the stock ticks of explicitly provided tickers are kept to analyze their tick values
+            if (!analyzeTickers.isEmpty()) {
+                analyzedDays.add(day);
+            }
+        });
+
+        ranked.sort(RANK);
+        System.out.println("Date Pump Ticker: Classification Percentage");
+        for (DayClassification dated : ranked) {
+            System.out.println(format(dated.date) + " " + dated.classified);
+        }
+
+        for (DayAnalysis day : analyzedDays) {
+            System.out.println(format(day.date));
+            CommandUtil.analyze(analyzeTickers, day.results);
+        }
+    }
+
+    /**
+     * Loads and classifies the stock ticks specified that were serialized on the date provided.
+     *
+     * @param date The date the stock ticks were serialized on
+     * @param analyzeTickers The tickers to analyze, or empty to analyze every ticker of the date
+     * @param displayProgress True to display the progress of loading the stock ticks, and false otherwise
+     * @return The analysis of the date, or null if no stock ticks were serialized on the date
+     * @throws IOException If the stock ticks of the date cannot be read
+     */
+    private static DayAnalysis analyzeDay(Date date, Set<String> analyzeTickers, boolean displayProgress)
+            throws IOException {
+        StockTickResults results = new StockTickResults();
+        if (!CommandUtil.deserialize(date, results, analyzeTickers, displayProgress)) {
+            return null;
+        }
+
+        try {
+            // Classify all loaded stock ticks without filter
+            List<ClassifiedStockTick> classifications = CommandUtil.classify(results.getStockTicks(), null);
+            return new DayAnalysis(date, results, classifications);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Unable to classify the stock ticks of " + format(date), e);
         }
     }
 
     /**
      * Initializes this program execution extracting and configuring the arguments accordingly.  Updates the
-     * tickers to analyze accordingly with all the argument-specified stock tickers  Additionally, returns the
-     * output CSV file if specified in the provided arguments, or null if no file location is provided.
+     * dates to analyze with every date of the argument-specified date or date range, and the tickers to analyze
+     * with all the argument-specified stock tickers.  Additionally, returns the output CSV file if specified in the
+     * provided arguments, or null if no file location is provided.
      */
-    private static File init(String[] args, Set<String> analyzeTickers) {
+    private static File init(String[] args, List<Date> dates, Set<String> analyzeTickers) {
         if (args.length < 1) {
             throw new IllegalArgumentException("Expected date in format mm/dd/yyyy when analyzing.");
         }
 
-        String stringDate = args[0];
-        String[] split = stringDate.split("/");
-
-        if (split.length != 3) {
-            throw new IllegalArgumentException("Expected date in format mm/dd/yyyy when analyzing.");
+        // A range of dates is given as two dates separated by a dash, and includes both dates
+        String[] range = args[0].split("-");
+        if (range.length < 1 || range.length > 2) {
+            throw new IllegalArgumentException("Expected date range in format mm/dd/yyyy-mm/dd/yyyy when analyzing.");
         }
 
-        // Configure the 'current' date of the unified calendar based on the month, day, and year
-        int month = Integer.parseInt(split[0]);
-        int day = Integer.parseInt(split[1]);
-        int year = Integer.parseInt(split[2]);
+        Calendar start = parseDate(range[0]);
+        Calendar end = parseDate(range[range.length - 1]);
+        if (end.before(start)) {
+            throw new IllegalArgumentException("Expected the end of the date range on or after its start.");
+        }
 
-        Date date = new GregorianCalendar(year, month - 1, day).getTime();
-        StockCalendar.getInstance().setTime(date);
+        for (Calendar day = start; !day.after(end); day.add(Calendar.DAY_OF_MONTH, 1)) {
+            dates.add(day.getTime());
+        }
 
         File file = null;
         for (int i = 1; i < args.length; i++) {
@@ -116,4 +208,70 @@ public class Analyze {
 
         return file;
     }
+
+    /**
+     * Parses the date provided in the format mm/dd/yyyy.
+     *
+     * @throws IllegalArgumentException If the date is not in the format mm/dd/yyyy
+     */
+    private static Calendar parseDate(String stringDate) {
+        String[] split = stringDate.split("/");
+
+        if (split.length != 3) {
+            throw new IllegalArgumentException("Expected date in format mm/dd/yyyy when analyzing.");
+        }
+
+        int month = Integer.parseInt(split[0]);
+        int day = Integer.parseInt(split[1]);
+        int year = Integer.parseInt(split[2]);
+
+        return new GregorianCalendar(year, month - 1, day);
+    }
+
+    /**
+     * Formats the date provided for display.
+     */
+    private static String format(Date date) {
+        synchronized (LOADED_TICK_DATE_FORMAT) {
+            return LOADED_TICK_DATE_FORMAT.format(date);
+        }
+    }
+
+    /**
+     * DayAnalysis represents the stock ticks loaded from a single day and their classifications.
+     */
+    private static class DayAnalysis {
+
+        /** The date the stock ticks were serialized on */
+        private final Date date;
+
+        /** The stock ticks loaded from the day */
+        private final StockTickResults results;
+
+        /** The classification of every loaded stock tick in descending order of classification percentage */
+        private final List<ClassifiedStockTick> classifications;
+
+        DayAnalysis(Date date, StockTickResults results, List<ClassifiedStockTick> classifications) {
+            this.date = date;
+            this.results = results;
+            this.classifications = classifications;
+        }
+    }
+
+    /**
+     * DayClassification represents the classification of a stock tick loaded from a particular day.
+     */
+    private static class DayClassification {
+
+        /** The date the stock tick was serialized on */
+        private final Date date;
+
+        /** The stock tick and its classification */
+        private final ClassifiedStockTick classified;
+
+        DayClassification(Date date, ClassifiedStockTick classified) {
+            this.date = date;
+            this.classified = classified;
+        }
+    }
 }
@@ -0,0 +1,144 @@
+package main.java.penny.commands;
+
+import main.java.penny.constants.ScannerConstants;
+import main.java.penny.marketdata.StockTickResults;
+import main.java.penny.store.DayFile;
+import main.java.penny.store.MonthArchive;
+import main.java.penny.store.MonthArchiveReader;
+import main.java.penny.store.MonthArchiveWriter;
+import main.java.penny.util.CommandUtil;
+import main.java.penny.util.ProgressBar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * Month archive execution of Penny.
+ *
+ * Archive compacts every stock tick serialized in a given month (from the day files and legacy day directories of
+ * the month) into the compressed, columnar month archive of the month (see MonthArchive).  Days are loaded and
+ * archived one at a time, so only a single day is held in memory.  The archive is written beside the final archive
+ * and only replaces it once complete.  Once archived, the days of the month can still be analyzed after their day
+ * files or day directories are removed.
+ *
+ * Archiving a month that is already archived rebuilds its archive: days still serialized are archived again, and days
+ * only found in the existing archive (whose day files or day directories have since been removed) are carried over
+ * from it, so no archived day is ever lost.
+ */
+public class Archive {
+
+    /** Extension of a month archive being written */
+    private static final String PARTIAL_EXTENSION = ".partial";
+
+    /**
+     * Executes this command with the provided (minor) arguments.  Throws an Exception if this command
+     * fails to execute.
+     */
+    public static void execute(String[] args) throws Exception {
+        Calendar month = init(args);
+        int daysInMonth = month.getActualMaximum(Calendar.DAY_OF_MONTH);
+
+        File archive = MonthArchive.getMonthArchive(month.getTime());
+        File partial = new File(archive.getPath() + PARTIAL_EXTENSION);
+
+        ProgressBar progressBar = new ProgressBar.ProgressBarBuilder()
+                .withTitle("Archive")
+                .withStartSymbol("|")
+                .withProgressToken("#")
+                .withGapToken(" ")
+                .withEndSymbol("|")
+                .withNumberOfBars(Math.min(daysInMonth, ScannerConstants.PROGRESS_NUMBER_OF_BARS))
+                .withTotal(daysInMonth)
+            .build();
+
+        // Days of the existing archive no longer serialized are carried over; an unreadable archive is never replaced.
+        // The archive is read into memory since a mapped file cannot be replaced on every platform (such as Windows)
+        MonthArchiveReader existing = archive.isFile() ? MonthArchiveReader.read(archive) : null;
+
+        long serializedBytes = 0;
+        int carriedCount = 0;
+        MonthArchiveWriter writer = new MonthArchiveWriter(partial);
+        try {
+            try {
+                for (int dayOfMonth = 1; dayOfMonth <= daysInMonth; dayOfMonth++) {
+                    month.set(Calendar.DAY_OF_MONTH, dayOfMonth);
+                    File dayFile = DayFile.getDayFile(month.getTime());
+                    File dayDirectory = DayFile.getDayDirectory(month.getTime());
+
+                    if (dayFile.isFile() || dayDirectory.isDirectory()) {
+                        StockTickResults results = new StockTickResults();
+                        CommandUtil.deserialize(month.getTime(), results, null, false /* No progress */);
+                        writer.appendDay(dayOfMonth, results.getStockTicks());
+                        serializedBytes += dayFile.isFile() ? dayFile.length() : directoryLength(dayDirectory);
+                    } else if (existing != null && existing.hasDay(dayOfMonth)) {
+                        writer.appendDay(dayOfMonth, existing.readDay(dayOfMonth));
+                        carriedCount++;
+                    }
+
+                    progressBar.increment();
+                    progressBar.display();
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Never leave a partial archive behind that looks complete
+            Files.deleteIfExists(partial.toPath());
+            throw e;
+        }
+        System.out.println();
+
+        if (writer.getDayCount() == 0) {
+            partial.delete();
+            System.out.println("No serialized stock data found to archive");
+            return;
+        }
+
+        Files.move(partial.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("Archived " + writer.getRowCount() + " stock ticks of " + writer.getTickerCount()
+                + " tickers over " + writer.getDayCount() + " days to " + archive.getPath() + " ("
+                + archive.length() + " bytes, from " + serializedBytes + " bytes serialized)");
+        if (carriedCount > 0) {
+            System.out.println(carriedCount + " days no longer serialized were carried over from the previous archive");
+        }
+    }
+
+    /**
+     * Initializes this program execution extracting the month to archive from the arguments provided.
+     *
+     * @return The first day of the month to archive
+     * @throws IllegalArgumentException If the month is not in the format mm/yyyy
+     */
+    private static Calendar init(String[] args) {
+        String[] split = args.length > 0 ? args[0].split("/") : new String[0];
+        if (split.length != 2) {
+            throw new IllegalArgumentException("Expected month in format mm/yyyy when archiving.");
+        }
+
+        int month = Integer.parseInt(split[0]);
+        int year = Integer.parseInt(split[1]);
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("Expected month in format mm/yyyy when archiving.");
+        }
+
+        return new GregorianCalendar(year, month - 1, 1);
+    }
+
+    /**
+     * Returns the total number of bytes of the files of the (legacy) day directory provided.
+     */
+    private static long directoryLength(File dayDirectory) {
+        long length = 0;
+        File[] files = dayDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                length += file.length();
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,35 @@
+package main.java.penny.commands;
+
+import main.java.penny.models.CompiledPumpClassifier;
+import main.java.penny.models.ModelArtifact;
+import main.java.penny.models.PumpClassifier;
+
+import java.io.File;
+
+/**
+ * Model export execution of Penny.
+ *
+ * Export compiles the trained logistic regression model and the standardization of its training data into a compact
+ * binary model artifact (see ModelArtifact).  Once exported, live scans and spoofs load the artifact instead of the
+ * Weka model, skipping Weka entirely.  The artifact must be exported again whenever the model is retrained.
+ */
+public class Export {
+
+    /**
+     * Executes this command with the provided (minor) arguments.  Throws an Exception if this command
+     * fails to execute.
+     */
+    public static void execute(String[] args) throws Exception {
+        // Export to the default artifact location unless another file is specified
+        File artifact = new File(args.length > 0 ? args[0] : CompiledPumpClassifier.MODEL_ARTIFACT);
+
+        PumpClassifier classifier = new PumpClassifier();
+        classifier.export(artifact);
+
+        // Read the artifact back to make sure it loads without Weka
+        new CompiledPumpClassifier(ModelArtifact.map(artifact));
+
+        System.out.println("Exported model artifact (format version " + ModelArtifact.FORMAT_VERSION + ") to "
+                + artifact.getPath() + " (" + artifact.length() + " bytes)");
+    }
+}
@@ -6,25 +6,32 @@ import main.java.penny.concurrent.LockManager;
 import main.java.penny.constants.CLIConstants;
 import main.java.penny.constants.ClassificationConstants;
 import main.java.penny.marketdata.*;
+import main.java.penny.models.Classifier;
+import main.java.penny.models.ModelRegistry;
 import main.java.penny.models.classification.ClassificationFilter;
+import main.java.penny.models.classification.ClassificationStream;
 import main.java.penny.models.classification.ClassifiedStockTick;
+import main.java.penny.store.DayFileStream;
 import main.java.penny.util.CommandUtil;
 import main.java.penny.util.FileOutputEcho;
 import main.java.penny.util.OTCTickersReader;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Primary execution and program usage of Penny.
  *
  * LiveScan executes Penny with real-time market data and direct communication with the broker to receive and
  * classify OTC Market stocks as pump and dumps.  This program usage supports optional arguments that include
- * narrowing the scan to only the 50 most active stocks (based on dollar volume), outputting classifications to a
- * log, and serializing stock tick data to disk.
+ * narrowing the scan to only the 50 most active stocks (based on dollar volume), streaming classifications as
+ * market data is delivered, screening stocks with market data snapshots, outputting classifications to a log, and
+ * serializing stock tick data to disk.
  */
 public class LiveScan {
 
@@ -33,12 +40,24 @@ public class LiveScan {
      * fails to execute.
      */
     public static void execute(String[] args) throws Exception {
+        // Load the classifier in the background while the broker connects
+        ModelRegistry.getInstance().preload(ClassificationConstants.PUMP_CLASSIFIER_MODEL);
+
         // Initialize commands and extra optional minor commands
         Broker.init();
         Set<String> commands = new HashSet<String>();
         init(args, commands);
 
-        FileOutputEcho.getInstance().pauseFileOutputEcho();
+        // Complete each market data request as soon as the tick types the classifier consumes are delivered
+        Classifier classifier =
+                ModelRegistry.getInstance().getClassifier(ClassificationConstants.PUMP_CLASSIFIER_MODEL);
+        Broker.getInstance().getMarketData().setRequiredTicks(classifier.getRequiredTicks());
+
+        // When streaming, positive classifications are output as they are found so the echo is never paused
+        boolean stream = commands.contains(CLIConstants.STREAM_COMMAND);
+        if (!stream) {
+            FileOutputEcho.getInstance().pauseFileOutputEcho();
+        }
 
         // For the live scan, do not timeout market data requests because should be able to get data for all tickers
         // in a reasonable period of time
@@ -61,36 +80,97 @@ public class LiveScan {
                 .withMaximumTickerLength(4)
                 .build();
 
-        // Scan and request market data for the specified and filtered stock tickers.
-        // StockScanner.scan(tickers, filter);
-        StockScanner.scanSequential(tickers, filter);
-        Broker.getInstance().getMarketData().waitForActiveDataToDeliver();
-
         ClassificationFilter classificationFilter = new ClassificationFilter.ClassificationFilterBuilder()
                 .withMinimumPrice(ClassificationConstants.MIN_PRICE_FILTER)
                 .withMinimumVolumeUSD(ClassificationConstants.MIN_VOLUME_USD_FILTER)
             .build();
 
-        Collection<StockTick> ticks = Broker.getInstance().getMarketData().getStockTickResults().getStockTicks();
+        if (commands.contains(CLIConstants.SNAPSHOT_COMMAND)) {
+            tickers = screenSnapshots(tickers, filter, classificationFilter);
+        }
 
-        // Classify all scanned stock ticks and filter them accordingly
-        List<ClassifiedStockTick> results = CommandUtil.classify(ticks, classificationFilter);
+        // Persist each stock tick as soon as it is delivered if serializing, rather than once the scan is over
+        DayFileStream dayFileStream = null;
+        if (commands.contains(CLIConstants.SERIALIZE_COMMAND)) {
+            dayFileStream = CommandUtil.openDayFileStream();
+        }
+        Consumer<StockTick> persistence = dayFileStream == null ? null : dayFileStream::accept;
 
-        // Resume file output echo now that we have results
-        FileOutputEcho.getInstance().resumeFileOutputEcho();
-        CommandUtil.output(results, false /* Only positive results */);
+        if (stream) {
+            // Classify each stock tick as soon as it is delivered, outputting positive classifications immediately
+            System.out.println("Pump Ticker: Classification Percentage");
+            ClassificationStream classificationStream =
+                    new ClassificationStream(classifier, classificationFilter, System.out::println);
 
-        FileOutputEcho.getInstance().closeOutputFiles();
+            Consumer<StockTick> deliveredListener = classificationStream::accept;
+            if (persistence != null) {
+                deliveredListener = deliveredListener.andThen(persistence);
+            }
+            StockScanner.scanSequential(tickers, filter, deliveredListener);
+            Broker.getInstance().getMarketData().waitForActiveDataToDeliver();
+            classificationStream.close();
+            if (classificationStream.getFailure() != null) {
+                System.out.println("Unable to classify " + classificationStream.getFailureCount() + " stock ticks: "
+                        + classificationStream.getFailure().getMessage());
+            }
+        } else {
+            // Scan and request market data for the specified and filtered stock tickers.
+            // StockScanner.scan(tickers, filter);
+            StockScanner.scanSequential(tickers, filter, persistence, true /* Display progress */);
+            Broker.getInstance().getMarketData().waitForActiveDataToDeliver();
+        }
 
-        // Serialize the stock information to the default database location if specified
-        if (commands.contains(CLIConstants.SERIALIZE_COMMAND)) {
-            CommandUtil.serialize(ticks);
+        Collection<StockTick> ticks = Broker.getInstance().getMarketData().getStockTickResults().getStockTicks();
+
+        // Finish persisting the stock information to the default database location if specified
+        if (dayFileStream != null) {
+            CommandUtil.closeDayFileStream(dayFileStream, ticks);
+        }
+
+        if (!stream) {
+            // Classify all scanned stock ticks and filter them accordingly
+            List<ClassifiedStockTick> results = CommandUtil.classify(ticks, classificationFilter);
+
+            // Resume file output echo now that we have results
+            FileOutputEcho.getInstance().resumeFileOutputEcho();
+            CommandUtil.output(results, false /* Only positive results */);
         }
 
+        FileOutputEcho.getInstance().closeOutputFiles();
+
         Broker.getInstance().getMarketData().shutdownTimeoutProcess();
         Broker.getInstance().getClient().eDisconnect();
     }
 
+    /**
+     * Screens the tickers provided with a snapshot of their market data, returning only the tickers whose snapshot
+     * may satisfy the classification filter.  Snapshots cannot include the generic ticks the classifier requires,
+     * but are enough to rule out most stocks on price and dollar volume without holding a market data line until
+     * every required tick delivers.
+     *
+     * @param tickers The stock tickers to screen
+     * @param filter The scanner filter to extract a subset of provided tickers using
+     * @param classificationFilter The classification filter the snapshot of each ticker must not fail
+     * @return The tickers whose snapshot did not fail the classification filter
+     */
+    private static Collection<String> screenSnapshots(Collection<String> tickers, StockScannerFilter filter,
+                                                      ClassificationFilter classificationFilter) {
+        MarketData marketData = Broker.getInstance().getMarketData();
+
+        marketData.setSnapshotMode(true);
+        List<StockTick> snapshots = StockScanner.scanSequential(tickers, filter).join();
+        marketData.setSnapshotMode(false);
+
+        List<String> screened = new ArrayList<String>();
+        for (StockTick snapshot : snapshots) {
+            if (snapshot != null && classificationFilter.mayAccept(snapshot)) {
+                screened.add(snapshot.getTicker());
+            }
+        }
+
+        return screened;
+    }
+
     /**
      * Initializes this program execution extracting and configuring the arguments accordingly.  Updates the
      * set of commands provided to include the indicated arguments.
@@ -114,6 +194,12 @@ public class LiveScan {
                 case CLIConstants.PUMP_SCANNER_COMMAND:
                     commands.add(CLIConstants.PUMP_SCANNER_COMMAND);
                     break;
+                case CLIConstants.STREAM_COMMAND:
+                    commands.add(CLIConstants.STREAM_COMMAND);
+                    break;
+                case CLIConstants.SNAPSHOT_COMMAND:
+                    commands.add(CLIConstants.SNAPSHOT_COMMAND);
+                    break;
             }
         }
     }
@@ -0,0 +1,290 @@
+package main.java.penny.commands;
+
+import main.java.penny.constants.SerializationConstants;
+import main.java.penny.util.CommandUtil;
+import main.java.penny.util.MigrationCheckpoint;
+import main.java.penny.util.MigrationUtil;
+import main.java.penny.util.MigrationUtil.MigrationSummary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import static main.java.penny.constants.SerializationConstants.*;
+
+/**
+ * Migration execution of Penny.
+ *
+ * Migrate converts the (legacy) day directories of one serialized file per ticker in the database into day files
+ * (see DayFile), either for every month of the database or for a single month.  Day directories are migrated
+ * concurrently, at most MIGRATE_DAY_PARALLELISM at a time (see SerializationConstants), and each is streamed into its
+ * day file one serialized file at a time, so memory stays bounded however large the database is (see MigrationUtil).
+ *
+ * Every day file is verified against its day directory before it is kept, and every completed day is recorded in the
+ * migration checkpoint of the database.  An interrupted migration resumes where it left off: checkpointed days are
+ * skipped, and day files migrated but not yet checkpointed are verified rather than migrated again.  A day file that
+ * does not verify was not migrated (such as a day live scanned with -serialize), so its day is skipped and reported
+ * rather than retried.  Day directories are left in place once migrated.
+ */
+public class Migrate {
+
+    /** Orders legacy days chronologically */
+    private static final Comparator<LegacyDay> CHRONOLOGICAL = Comparator
+            .comparing((LegacyDay day) -> day.month)
+            .thenComparingInt(day -> day.dayOfMonth);
+
+    /**
+     * Executes this command with the provided (minor) arguments.  Throws an Exception if this command
+     * fails to execute.
+     */
+    public static void execute(String[] args) throws Exception {
+        String monthDirectory = init(args);
+
+        File database = Paths.get(DATABASE_ROOT_DIR, DATABASE_DIR).toFile();
+        List<LegacyDay> days = findLegacyDays(database, monthDirectory);
+        if (days.isEmpty()) {
+            System.out.println("No serialized stock data found to migrate");
+            return;
+        }
+
+        try (MigrationCheckpoint checkpoint = new MigrationCheckpoint(new File(database, MIGRATION_CHECKPOINT_FILE))) {
+            List<LegacyDay> remaining = new ArrayList<LegacyDay>();
+            for (LegacyDay day : days) {
+                if (!checkpoint.isComplete(day.name)) {
+                    remaining.add(day);
+                }
+            }
+
+            if (remaining.isEmpty()) {
+                System.out.println("Every one of the " + days.size() + " days found has already been migrated");
+                return;
+            }
+
+            migrate(remaining, checkpoint, days.size() - remaining.size());
+        }
+    }
+
+    /**
+     * Migrates (or verifies) each of the legacy days provided concurrently, recording each completed day in the
+     * checkpoint specified, and outputs a summary of the migration.
+     */
+    private static void migrate(List<LegacyDay> days, MigrationCheckpoint checkpoint, int skippedCount)
+            throws IOException {
+        List<String> dayTokens = new ArrayList<String>();
+        days.forEach(day -> dayTokens.add(day.name));
+
+        List<DayMigration> migrations = new ArrayList<DayMigration>();
+        CommandUtil.processDays("Migrate", days, dayTokens, SerializationConstants.MIGRATE_DAY_PARALLELISM,
+                day -> migrateDay(day, checkpoint), migrations::add);
+
+        int migratedCount = 0;
+        int verifiedCount = 0;
+        long recordCount = 0;
+        long unreadableCount = 0;
+        List<DayMigration> conflicts = new ArrayList<DayMigration>();
+        List<DayMigration> failures = new ArrayList<DayMigration>();
+        for (DayMigration migration : migrations) {
+            if (migration.conflict) {
+                conflicts.add(migration);
+                continue;
+            } else if (migration.failure != null) {
+                failures.add(migration);
+                continue;
+            }
+
+            if (migration.verifiedOnly) {
+                verifiedCount++;
+            } else {
+                migratedCount++;
+            }
+            recordCount += migration.summary.getRecordCount();
+            unreadableCount += migration.summary.getUnreadableCount();
+        }
+
+        System.out.println("Migrated " + migratedCount + " days and verified " + verifiedCount
+                + " previously migrated day files (" + recordCount + " stock ticks); skipped " + skippedCount
+                + " days already checkpointed");
+        if (unreadableCount > 0) {
+            System.out.println(unreadableCount + " serialized files could not be deserialized and were left out");
+        }
+        for (DayMigration conflict : conflicts) {
+            System.out.println("Skipped " + conflict.day.name + ": its day file does not match its day directory ("
+                    + conflict.failure.getMessage() + ")");
+        }
+        if (!conflicts.isEmpty()) {
+            System.out.println("Day files of skipped days were not migrated from their day directory (such as a day"
+                    + " live scanned with -serialize) and are left as they are; move such a day file aside to migrate"
+                    + " its day directory");
+        }
+        for (DayMigration failure : failures) {
+            System.out.println("Failed to migrate " + failure.day.name + ": " + failure.failure.getMessage());
+        }
+        if (!failures.isEmpty()) {
+            System.out.println("Days that failed were not checkpointed and are retried by the next migration");
+        }
+    }
+
+    /**
+     * Migrates the legacy day provided to its day file, or verifies its day file if one already exists, then records
+     * the day as completed in the checkpoint specified.  A migration never leaves a day file in place without
+     * verifying it, so an existing day file that does not verify was not migrated from the day directory (such as a
+     * day live scanned with -serialize while its day directory remained); such a day is a conflict and is neither
+     * migrated nor checkpointed.
+     *
+     * @return The migration of the day, holding its failure if the day could not be migrated or verified
+     */
+    private static DayMigration migrateDay(LegacyDay day, MigrationCheckpoint checkpoint) {
+        boolean verifiedOnly = day.dayFile.exists();
+        MigrationSummary summary;
+        try {
+            summary = verifiedOnly
+                    ? MigrationUtil.verify(day.directory, day.dayFile)
+                    : MigrationUtil.migrate(day.directory, day.dayFile);
+        } catch (IOException | RuntimeException e) {
+            return new DayMigration(day, verifiedOnly, verifiedOnly /* Conflict if the day file existed */, null, e);
+        }
+
+        try {
+            checkpoint.complete(day.name, summary.toString());
+            return new DayMigration(day, verifiedOnly, false /* No conflict */, summary, null);
+        } catch (IOException e) {
+            return new DayMigration(day, verifiedOnly, false /* No conflict */, null, e);
+        }
+    }
+
+    /**
+     * Returns every (legacy) day directory of the database directory provided in chronological order, only within
+     * the month directory specified if one is.
+     *
+     * @param database The database directory
+     * @param monthDirectory The name of the month directory to migrate, or null to migrate every month
+     */
+    private static List<LegacyDay> findLegacyDays(File database, String monthDirectory) {
+        List<LegacyDay> days = new ArrayList<LegacyDay>();
+        File[] months = database.listFiles(File::isDirectory);
+        if (months == null) {
+            return days;
+        }
+
+        for (File month : months) {
+            if (monthDirectory != null && !monthDirectory.equals(month.getName())) {
+                continue;
+            }
+
+            Date monthDate;
+            try {
+                synchronized (MONTH_DIR_FORMAT) {
+                    monthDate = MONTH_DIR_FORMAT.parse(month.getName());
+                }
+            } catch (ParseException e) {
+                // Not a month directory
+                continue;
+            }
+
+            File[] dayDirectories = month.listFiles(file -> file.isDirectory() && file.getName().matches("\\d{1,2}"));
+            if (dayDirectories == null) {
+                continue;
+            }
+            for (File directory : dayDirectories) {
+                File dayFile = new File(month, directory.getName() + DAY_FILE_EXTENSION);
+                days.add(new LegacyDay(monthDate, Integer.parseInt(directory.getName()),
+                        month.getName() + "/" + directory.getName(), directory, dayFile));
+            }
+        }
+
+        days.sort(CHRONOLOGICAL);
+        return days;
+    }
+
+    /**
+     * Initializes this program execution extracting the month to migrate from the arguments provided.
+     *
+     * @return The name of the month directory to migrate, or null to migrate every month of the database
+     * @throws IllegalArgumentException If the month is not in the format mm/yyyy
+     */
+    private static String init(String[] args) {
+        if (args.length < 1) {
+            return null;
+        }
+
+        String[] split = args[0].split("/");
+        if (split.length != 2) {
+            throw new IllegalArgumentException("Expected month in format mm/yyyy when migrating.");
+        }
+
+        int month = Integer.parseInt(split[0]);
+        int year = Integer.parseInt(split[1]);
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("Expected month in format mm/yyyy when migrating.");
+        }
+
+        synchronized (MONTH_DIR_FORMAT) {
+            return MONTH_DIR_FORMAT.format(new GregorianCalendar(year, month - 1, 1).getTime());
+        }
+    }
+
+    /**
+     * LegacyDay represents a (legacy) day directory of one serialized file per ticker and its day file.
+     */
+    private static class LegacyDay {
+
+        /** The first day of the month of the day directory */
+        private final Date month;
+
+        /** The day of the month of the day directory */
+        private final int dayOfMonth;
+
+        /** The month and day directory of the day, e.g. "Jan2019/01" */
+        private final String name;
+
+        /** The day directory */
+        private final File directory;
+
+        /** The day file of the day, beside the day directory */
+        private final File dayFile;
+
+        LegacyDay(Date month, int dayOfMonth, String name, File directory, File dayFile) {
+            this.month = month;
+            this.dayOfMonth = dayOfMonth;
+            this.name = name;
+            this.directory = directory;
+            this.dayFile = dayFile;
+        }
+    }
+
+    /**
+     * DayMigration represents the outcome of migrating a single legacy day.
+     */
+    private static class DayMigration {
+
+        /** The legacy day */
+        private final LegacyDay day;
+
+        /** True if the day file already existed and was only verified, and false if it was migrated */
+        private final boolean verifiedOnly;
+
+        /** True if the existing day file of the day does not match its day directory, and false otherwise */
+        private final boolean conflict;
+
+        /** The summary of the day, or null if the day failed */
+        private final MigrationSummary summary;
+
+        /** The failure (or conflict) of the day, or null if the day was migrated or verified */
+        private final Exception failure;
+
+        DayMigration(LegacyDay day, boolean verifiedOnly, boolean conflict, MigrationSummary summary,
+                     Exception failure) {
+            this.day = day;
+            this.verifiedOnly = verifiedOnly;
+            this.conflict = conflict;
+            this.summary = summary;
+            this.failure = failure;
+        }
+    }
+}
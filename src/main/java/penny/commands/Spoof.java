@@ -8,8 +8,11 @@ import main.java.penny.marketdata.StockScanner;
 import main.java.penny.marketdata.StockScannerFilter;
 import main.java.penny.marketdata.StockTick;
 import main.java.penny.mock.MockBroker;
+import main.java.penny.models.Classifier;
+import main.java.penny.models.ModelRegistry;
 import main.java.penny.models.classification.ClassificationFilter;
 import main.java.penny.models.classification.ClassifiedStockTick;
+import main.java.penny.store.DayFileStream;
 import main.java.penny.util.CommandUtil;
 import main.java.penny.util.FileOutputEcho;
 import main.java.penny.util.OTCTickersReader;
@@ -36,6 +39,9 @@ public class Spoof {
         Set<String> commands = new HashSet<String>();
         init(args, commands);
 
+        // Load the classifier in the background while the market data is spoofed
+        ModelRegistry.getInstance().preload(ClassificationConstants.PUMP_CLASSIFIER_MODEL);
+
         // Initialize Broker to deliver in parallel if specified, otherwise deliver sequentially
         if (commands.contains(CLIConstants.SPOOF_DELIVER_IN_PARALLEL_COMMAND)) {
             MockBroker.init(true /* Deliver in Parallel */);
@@ -43,6 +49,11 @@ public class Spoof {
             MockBroker.init();
         }
 
+        // Complete each market data request as soon as the tick types the classifier consumes are delivered
+        Classifier classifier =
+                ModelRegistry.getInstance().getClassifier(ClassificationConstants.PUMP_CLASSIFIER_MODEL);
+        Broker.getInstance().getMarketData().setRequiredTicks(classifier.getRequiredTicks());
+
         FileOutputEcho.getInstance().pauseFileOutputEcho();
 
         // Get all OTC Market tickers and filter them accordingly
@@ -50,8 +61,16 @@ public class Spoof {
         StockScannerFilter filter = new StockScannerFilter.StockScannerFilterBuilder()
                 .withMaximumTickerLength(ScannerConstants.MAX_TICKER_LENGTH_FILTER).build();
 
+        // Persist each stock tick as soon as it is delivered if serializing, rather than once the scan is over
+        DayFileStream dayFileStream = null;
+        if (commands.contains(CLIConstants.SERIALIZE_COMMAND)) {
+            dayFileStream = CommandUtil.openDayFileStream();
+        }
+
         // Scan and request market data for all stock tickers
-        StockScanner.scan(tickers, filter);
+        StockScanner.scan(tickers, filter, ScannerConstants.SCAN_PARALLELISM,
+                dayFileStream == null ? null : dayFileStream::accept);
+        Broker.getInstance().getMarketData().waitForActiveDataToDeliver();
 
         ClassificationFilter classificationFilter = new ClassificationFilter.ClassificationFilterBuilder()
                     .withMinimumPrice(ClassificationConstants.MIN_PRICE_FILTER)
@@ -60,6 +79,11 @@ public class Spoof {
 
         Collection<StockTick> ticks = Broker.getInstance().getMarketData().getStockTickResults().getStockTicks();
 
+        // Finish persisting the stock information to the default database location if specified
+        if (dayFileStream != null) {
+            CommandUtil.closeDayFileStream(dayFileStream, ticks);
+        }
+
         // Classify all scanned stock ticks and filter them accordingly
         List<ClassifiedStockTick> results = CommandUtil.classify(ticks, classificationFilter);
 
@@ -72,11 +96,6 @@ public class Spoof {
 
         FileOutputEcho.getInstance().closeOutputFiles();
 
-        // Serialize the stock information to the default database location if specified
-        if (commands.contains(CLIConstants.SERIALIZE_COMMAND)) {
-            CommandUtil.serialize(Broker.getInstance().getMarketData().getStockTickResults().getStockTicks());
-        }
-
         Broker.getInstance().getMarketData().shutdownTimeoutProcess();
     }
 
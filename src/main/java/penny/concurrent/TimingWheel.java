@@ -0,0 +1,367 @@
+package main.java.penny.concurrent;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TimingWheel represents a hashed timing wheel executing tasks once their individual deadlines expire.  The wheel is
+ * a circular array of buckets, each bucket holding the timeouts that expire on that tick of the wheel (possibly on a
+ * later rotation).  A single worker thread advances the wheel one bucket per tick and expires the timeouts due in
+ * the current bucket.
+ *
+ * Scheduling and cancelling a timeout are O(1) and never block: both are handed to the worker thread through
+ * lock-free queues.  A timeout expires within one tick of its deadline.  The worker thread parks while no timeouts
+ * are outstanding.  Expired tasks run on the worker thread and so should be short.  A task that throws does not stop
+ * the wheel; its exception is held by its timeout (see Timeout.getFailure).
+ */
+public class TimingWheel {
+
+    /** Timeout state of a timeout waiting to expire */
+    private static final int WAITING = 0;
+
+    /** Timeout state of a cancelled timeout */
+    private static final int CANCELLED = 1;
+
+    /** Timeout state of an expired timeout */
+    private static final int EXPIRED = 2;
+
+    /** Duration of a single tick of the wheel in nanoseconds */
+    private final long tickNanos;
+
+    /** Buckets of the wheel, indexed by tick modulo the number of buckets */
+    private final Bucket[] wheel;
+
+    /** Mask converting a tick into the index of its bucket */
+    private final int mask;
+
+    /** Timeouts scheduled but not yet placed into a bucket by the worker thread */
+    private final Queue<Timeout> scheduledTimeouts;
+
+    /** Timeouts cancelled but not yet removed from their bucket by the worker thread */
+    private final Queue<Timeout> cancelledTimeouts;
+
+    /** Number of timeouts that have neither expired nor been cancelled */
+    private final AtomicInteger outstandingTimeouts;
+
+    /** Time the wheel started in nanoseconds; deadlines are measured from this time */
+    private final long startNanos;
+
+    /** Thread advancing the wheel and expiring timeouts */
+    private final Thread worker;
+
+    /** Flag indicating whether this wheel is still expiring timeouts */
+    private volatile boolean isRunning;
+
+    /** The next tick of the wheel to process; only accessed by the worker thread */
+    private long tick;
+
+    /**
+     * Constructs and starts a new TimingWheel advancing every tick duration specified with the number of buckets
+     * provided.
+     *
+     * @param tickMillis The duration of a single tick of the wheel in milliseconds; the accuracy of expiry
+     * @param numberOfBuckets The number of buckets of the wheel, rounded up to a power of two
+     * @param name The name of the worker thread of the wheel
+     */
+    public TimingWheel(long tickMillis, int numberOfBuckets, String name) {
+        int size = Integer.highestOneBit(Math.max(1, numberOfBuckets - 1)) << 1;
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+
+        this.scheduledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+        this.cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+        this.outstandingTimeouts = new AtomicInteger(0);
+
+        this.startNanos = System.nanoTime();
+        this.tick = 0;
+        this.isRunning = true;
+
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedules the task provided to execute once the delay specified has elapsed, unless the returned timeout is
+     * cancelled first.  If this wheel has been stopped, the task never executes.  This method is thread-safe.
+     *
+     * @param task The task to execute on expiry; executed on the worker thread of this wheel
+     * @param delayMillis The delay in milliseconds until the task expires
+     * @return The timeout of the scheduled task, allowing the task to be cancelled
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        long deadline = System.nanoTime() - this.startNanos + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        Timeout timeout = new Timeout(this, task, deadline);
+
+        if (!this.isRunning) {
+            timeout.state.set(CANCELLED);
+            return timeout;
+        }
+
+        this.scheduledTimeouts.offer(timeout);
+        if (this.outstandingTimeouts.getAndIncrement() == 0) {
+            // The worker may be parked waiting for a timeout
+            LockSupport.unpark(this.worker);
+        }
+        return timeout;
+    }
+
+    /**
+     * Stops this wheel.  Timeouts that have not yet expired never expire.  This operation is irreversible.
+     */
+    public void stop() {
+        this.isRunning = false;
+        this.worker.interrupt();
+    }
+
+    /**
+     * Returns the number of timeouts that have neither expired nor been cancelled.
+     */
+    public int getOutstandingTimeouts() {
+        return this.outstandingTimeouts.get();
+    }
+
+    /**
+     * Advances the wheel one tick at a time until this wheel is stopped, expiring the timeouts due on each tick.
+     */
+    private void run() {
+        while (this.isRunning) {
+            long tickDeadline = this.waitForNextTick();
+            if (!this.isRunning) {
+                break;
+            }
+
+            this.removeCancelledTimeouts();
+            this.transferScheduledTimeouts();
+            this.wheel[(int) (this.tick & this.mask)].expireTimeouts(tickDeadline);
+            this.tick++;
+        }
+    }
+
+    /**
+     * Waits until the current tick has elapsed, parking indefinitely while no timeouts are outstanding.
+     *
+     * @return The deadline of the current tick relative to the start time of this wheel
+     */
+    private long waitForNextTick() {
+        while (this.isRunning) {
+            long now = System.nanoTime() - this.startNanos;
+
+            if (this.outstandingTimeouts.get() == 0 && this.scheduledTimeouts.isEmpty()
+                    && this.cancelledTimeouts.isEmpty()) {
+                // Nothing to expire, so skip the ticks that elapse while parked
+                LockSupport.park(this);
+                this.tick = Math.max(this.tick, (System.nanoTime() - this.startNanos) / this.tickNanos);
+                continue;
+            }
+
+            long tickDeadline = this.tickNanos * (this.tick + 1);
+            long sleepNanos = tickDeadline - now;
+            if (sleepNanos <= 0) {
+                return tickDeadline;
+            }
+            LockSupport.parkNanos(this, sleepNanos);
+        }
+        return -1;
+    }
+
+    /**
+     * Places every newly scheduled timeout into the bucket of the tick it expires on.
+     */
+    private void transferScheduledTimeouts() {
+        Timeout timeout;
+        while ((timeout = this.scheduledTimeouts.poll()) != null) {
+            if (timeout.state.get() != WAITING) {
+                continue;
+            }
+
+            long expiryTick = timeout.deadline / this.tickNanos;
+            timeout.remainingRounds = (expiryTick - this.tick) / this.wheel.length;
+
+            // Timeouts whose deadline has already passed expire on the current tick
+            long tick = Math.max(expiryTick, this.tick);
+            this.wheel[(int) (tick & this.mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Removes every cancelled timeout from its bucket.
+     */
+    private void removeCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = this.cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Timeout represents a task scheduled to execute on a TimingWheel once its deadline expires.
+     */
+    public static final class Timeout {
+
+        /** The wheel this timeout is scheduled on */
+        private final TimingWheel timingWheel;
+
+        /** The task to execute on expiry */
+        private final Runnable task;
+
+        /** Deadline of this timeout in nanoseconds relative to the start time of the wheel */
+        private final long deadline;
+
+        /** State of this timeout: waiting, cancelled or expired */
+        private final AtomicInteger state;
+
+        /** Exception thrown by the task on expiry, or null if the task has not thrown */
+        private volatile RuntimeException failure;
+
+        /** Number of full rotations of the wheel remaining before this timeout expires; worker thread only */
+        private long remainingRounds;
+
+        /** Bucket containing this timeout and its neighbours within the bucket; worker thread only */
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(TimingWheel timingWheel, Runnable task, long deadline) {
+            this.timingWheel = timingWheel;
+            this.task = task;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(WAITING);
+        }
+
+        /**
+         * Cancels this timeout so its task never executes.
+         *
+         * @return True if this timeout was cancelled, and false if it had already expired or been cancelled
+         */
+        public boolean cancel() {
+            if (!this.state.compareAndSet(WAITING, CANCELLED)) {
+                return false;
+            }
+
+            this.timingWheel.outstandingTimeouts.decrementAndGet();
+            this.timingWheel.cancelledTimeouts.offer(this);
+            return true;
+        }
+
+        /**
+         * Returns true if this timeout has expired and its task executed, and false otherwise.
+         */
+        public boolean isExpired() {
+            return this.state.get() == EXPIRED;
+        }
+
+        /**
+         * Returns the exception thrown by the task of this timeout on expiry, or null if the task has not executed or
+         * completed normally.
+         */
+        public RuntimeException getFailure() {
+            return this.failure;
+        }
+
+        /**
+         * Returns true if this timeout was cancelled before it expired, and false otherwise.
+         */
+        public boolean isCancelled() {
+            return this.state.get() == CANCELLED;
+        }
+
+        /**
+         * Expires this timeout executing its task, unless it has been cancelled.
+         */
+        private void expire() {
+            if (!this.state.compareAndSet(WAITING, EXPIRED)) {
+                return;
+            }
+
+            this.timingWheel.outstandingTimeouts.decrementAndGet();
+            try {
+                this.task.run();
+            } catch (RuntimeException e) {
+                // A failing task must not stop the wheel from expiring other timeouts
+                this.failure = e;
+            }
+        }
+    }
+
+    /**
+     * Bucket represents a doubly-linked list of the timeouts expiring on a particular tick of the wheel.  Only
+     * accessed by the worker thread.
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        /**
+         * Appends the timeout provided to this bucket.
+         */
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = timeout;
+                this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.previous = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        /**
+         * Expires every timeout in this bucket due on the current rotation of the wheel, and counts down the
+         * rotations of the rest.
+         *
+         * @param tickDeadline The deadline of the current tick relative to the start time of the wheel
+         */
+        void expireTimeouts(long tickDeadline) {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline) {
+                    this.remove(timeout);
+                    timeout.expire();
+                } else if (timeout.state.get() == CANCELLED) {
+                    this.remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        /**
+         * Removes the timeout provided from this bucket.
+         */
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                this.head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            } else {
+                this.tail = timeout.previous;
+            }
+
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
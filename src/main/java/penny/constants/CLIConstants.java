@@ -19,6 +19,15 @@ public class CLIConstants {
     /** Command corresponding to the contrived market data program simulation */
     public static final String SPOOF_COMMAND = "--spoof";
 
+    /** Command corresponding to exporting the trained model to a compact binary model artifact */
+    public static final String EXPORT_COMMAND = "--export";
+
+    /** Command corresponding to compacting the serialized stock ticks of a month into its month archive */
+    public static final String ARCHIVE_COMMAND = "--archive";
+
+    /** Command corresponding to migrating the legacy serialized stock ticks of the database to day files */
+    public static final String MIGRATE_COMMAND = "--migrate";
+
     // MINOR COMMANDS
     /**
      * Live command - indicates that the most active dollar volume stocks should be scanned rather
@@ -26,6 +35,18 @@ public class CLIConstants {
      */
     public static final String PUMP_SCANNER_COMMAND = "-mostactive";
 
+    /**
+     * Live command - classifies each stock as soon as its market data is delivered and outputs positive
+     * classifications immediately rather than once the entire scan has completed
+     */
+    public static final String STREAM_COMMAND = "-stream";
+
+    /**
+     * Live command - screens the scanned stocks with market data snapshots first, and only requests the complete
+     * market data of stocks whose snapshot satisfies the classification filter
+     */
+    public static final String SNAPSHOT_COMMAND = "-snapshot";
+
     /**
      * Live/Spoof command - indicates that the classification results should be output to the log specified
      * following this argument
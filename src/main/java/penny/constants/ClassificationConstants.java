@@ -15,4 +15,10 @@ public class ClassificationConstants {
 
     /** The minimum dollar volume required to be eligible to classify a particular stock tick */
     public static double MIN_VOLUME_USD_FILTER = 10000;
+
+    /** Name the pump and dump classifier is registered under in the ModelRegistry */
+    public static final String PUMP_CLASSIFIER_MODEL = "PumpClassifier";
+
+    /** Minimum interval in milliseconds between checks of whether a loaded model has changed on disk */
+    public static final long MODEL_RELOAD_CHECK_MILLIS = 5000;
 }
@@ -21,12 +21,33 @@ public class MarketDataConstants {
     /** Default market data request timeout in milliseconds */
     public static final int MARKET_DATA_TIMEOUT_MILLIS = 10000;
 
+    /**
+     * Accuracy of market data request timeouts in milliseconds (the tick duration of the timeout wheel).  One
+     * rotation of the wheel (MARKET_DATA_TIMEOUT_BUCKETS ticks) spans every market data request timeout.
+     */
+    public static final int MARKET_DATA_TIMEOUT_TICK_MILLIS = 100;
+
+    /** Number of buckets of the market data request timeout wheel */
+    public static final int MARKET_DATA_TIMEOUT_BUCKETS = 1024;
+
+    /** Minimum delay in milliseconds before the market data identifier of a settled request is reused */
+    public static final int MARKET_DATA_ID_RECYCLE_DELAY_MILLIS = 1000;
+
     /** Error codes to unlock locks associated market data requests */
     public static final Set<Integer> ERROR_CODE_UNLOCKS = initializeErrorCodeUnlocks();
 
     /** Broker API tick type String indicating which tick values to receive from market data */
     public static final String TICK_STRING = "165";
 
+    /**
+     * Broker API tick type String of snapshot market data requests.  The broker rejects snapshot requests listing
+     * generic ticks (error 321), so snapshots deliver only the standard tick types and never the generic "165" ticks
+     */
+    public static final String SNAPSHOT_TICK_STRING = "";
+
+    /** Snapshot market data request timeout in milliseconds; the broker ends a snapshot after at most 11 seconds */
+    public static final int MARKET_SNAPSHOT_TIMEOUT_MILLIS = 12000;
+
     /** Stock security type */
     public static final String SECURITY_TYPE = "STK";
 
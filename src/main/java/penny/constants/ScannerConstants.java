@@ -12,6 +12,9 @@ public class ScannerConstants {
      */
     public static final int MAX_TICKER_LENGTH_FILTER = 4;
 
+    /** Default maximum number of threads scanning and requesting market data for tickers in parallel */
+    public static final int SCAN_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
     /** Default number of progress bars to include while scanning, etc. to display progress */
     public static final int PROGRESS_NUMBER_OF_BARS = 50;
 
@@ -17,6 +17,30 @@ public class SerializationConstants {
     /** Default serialization extension expected for serialized stock tick information */
     public static String SERIALIZATION_EXTENSION = ".ser";
 
+    /** Extension of the day file housing every stock tick serialized on a given day (alongside the day directory) */
+    public static String DAY_FILE_EXTENSION = ".day";
+
+    /** Extension of the compressed, columnar archive of every stock tick serialized in a given month */
+    public static String MONTH_ARCHIVE_EXTENSION = ".archive";
+
+    /** Maximum number of threads deserializing stock ticks at once */
+    public static final int DESERIALIZE_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /** Maximum number of days of serialized stock ticks analyzed at once */
+    public static final int ANALYZE_DAY_PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /** Maximum number of (legacy) day directories migrated to day files at once */
+    public static final int MIGRATE_DAY_PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /** Name of the file in the database directory recording every day directory migrated to a day file so far */
+    public static String MIGRATION_CHECKPOINT_FILE = "migration.checkpoint";
+
+    /** Maximum number of stock ticks waiting to be persisted by a write-behind day file stream */
+    public static final int WRITE_BEHIND_QUEUE_CAPACITY = 4096;
+
+    /** Maximum number of stock ticks a write-behind day file stream appends between flushes */
+    public static final int WRITE_BEHIND_BATCH_SIZE = 256;
+
     /** Directory format structure for the month directory housing all serialization for daily results from that month */
     public static SimpleDateFormat MONTH_DIR_FORMAT = new SimpleDateFormat("MMMyyyy");
 
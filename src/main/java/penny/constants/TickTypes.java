@@ -62,10 +62,35 @@ public class TickTypes {
     /** Average volume */
     public static final int AVERAGE_VOLUME = 21;
 
+    /** Number of tick types tracked (tick types range from 0 inclusive to this value exclusive) */
+    public static final int NUM_TICK_TYPES = AVERAGE_VOLUME + 1;
+
     /** Required tick type values to have what's considered "complete" information about the stock */
     public static Integer[] requiredTicks = {VOLUME, AVERAGE_VOLUME, HIGH_13_WEEKS,
                                              LOW_13_WEEKS, OPEN, LAST, HIGH, LOW};
 
+    /**
+     * Returns true if the tick type specified is one of the tick types tracked (see NUM_TICK_TYPES),
+     * and false otherwise.
+     */
+    public static boolean isTracked(int tickType) {
+        return tickType >= 0 && tickType < NUM_TICK_TYPES;
+    }
+
+    /**
+     * Returns the bitmask of the tick types provided where the bit at position tickType is set for every tracked
+     * tick type given.  Untracked tick types are ignored.
+     */
+    public static long asMask(Integer... tickTypes) {
+        long mask = 0L;
+        for (Integer tickType : tickTypes) {
+            if (isTracked(tickType)) {
+                mask |= 1L << tickType;
+            }
+        }
+        return mask;
+    }
+
     /**
      * Returns the tick type specified as its equivalent String interpretation.
      */
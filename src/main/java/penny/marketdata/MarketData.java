@@ -2,13 +2,14 @@ package main.java.penny.marketdata;
 
 import com.ib.client.Contract;
 import main.java.penny.Broker;
-import main.java.penny.concurrent.Lock;
-import main.java.penny.concurrent.LockManager;
+import main.java.penny.concurrent.TimingWheel;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -20,40 +21,56 @@ import static main.java.penny.constants.MarketDataConstants.*;
  * information provided by the broker with each ticker.  MarketData provides a simple, unified means of requesting
  * market data given a particular stock ticker for the OTC Market and ensures consistent delivery of information
  * from the broker.
+ *
+ * Market data requests are asynchronous.  Requests are queued with a MarketDataScheduler, which keeps at most
+ * MAX_CONCURRENT_MARKET_DATA_REQUESTS requests active with the broker, and each request provides a future completing
+ * once its market data is delivered, or completing exceptionally with a MarketDataException once it times out or
+ * errors.  Futures of many requests can be combined with allSettled.
+ *
+ * Market data is requested either as streaming subscriptions (the default), which are cancelled once every required
+ * tick delivers, or as snapshots (see setSnapshotMode), which the broker ends itself.  A snapshot costs a single
+ * broker message and frees its line as soon as the snapshot ends, but cannot include the generic ticks.
+ *
+ * Dispatched requests are held in a table indexed by their market data identifier (see MarketDataRequestTable), so
+ * each broker callback resolves its request with a single array load.  Market data identifiers are recycled once
+ * their requests settle, keeping the table bounded by the number of concurrently dispatched requests.
  */
 public class MarketData {
-    /** Atomic market data identifier for unique requests to broker */
-    private AtomicInteger marketDataId;
-
     /** Set of all unique tickers scanned or requested for associated market data */
     protected Set<String> tickers;
 
-    /** Map from integer market data identifiers to request time UTC for all active market data requests to broker */
-    protected Map<Integer, Long> activeMarketData;
+    /** Table of dispatched market data requests not yet settled, indexed by market data identifier */
+    private MarketDataRequestTable dispatchedRequests;
+
+    /** Number of market data requests (queued or dispatched) that have not yet settled */
+    private AtomicInteger unsettledRequests;
+
+    /** Scheduler bounding the number of market data requests active with the broker */
+    private MarketDataScheduler scheduler;
 
     /** Compiled collection of market data information received for each particular requested stock */
     private StockTickResults stockTickResults;
 
-    /** Thread spinning indefinitely to timeout market data that failed to deliver */
-    private Thread timeoutMarketDataThread;
+    /** Timing wheel cancelling market data requests that fail to deliver before their deadline */
+    private TimingWheel marketDataTimeouts;
 
-    /** Flag indicating whether this market data is currently timing market data requests out */
-    private boolean isTimingMarketDataOut;
+    /** True if market data is requested as snapshots rather than streaming subscriptions */
+    private volatile boolean snapshotMode;
 
     /**
      * Constructs a new MarketData with no active market data requests and empty stock results.
      */
     public MarketData() {
         this.tickers = ConcurrentHashMap.newKeySet();
-        this.activeMarketData = new ConcurrentHashMap<Integer, Long>();
         this.stockTickResults = new StockTickResults();
-
-        this.marketDataId = new AtomicInteger(0);
-
-        // Create a timeout cycling thread to cancel market data that takes too long to deliver
-        this.isTimingMarketDataOut = true;
-        this.timeoutMarketDataThread = new Thread(() -> timeoutCancelMarketData(MARKET_DATA_TIMEOUT_MILLIS));
-        this.timeoutMarketDataThread.start();
+        this.dispatchedRequests = new MarketDataRequestTable(2 * MAX_CONCURRENT_MARKET_DATA_REQUESTS,
+                MARKET_DATA_ID_RECYCLE_DELAY_MILLIS);
+        this.unsettledRequests = new AtomicInteger(0);
+        this.scheduler = new MarketDataScheduler(MAX_CONCURRENT_MARKET_DATA_REQUESTS, this::dispatchMarketData);
+
+        // Create a timing wheel to cancel market data that takes too long to deliver
+        this.marketDataTimeouts = new TimingWheel(MARKET_DATA_TIMEOUT_TICK_MILLIS, MARKET_DATA_TIMEOUT_BUCKETS,
+                "MarketDataTimeouts");
     }
 
     /**
@@ -62,34 +79,29 @@ public class MarketData {
      * guaranteed to terminate with no timeout process in place.
      */
     public void shutdownTimeoutProcess() {
-        this.isTimingMarketDataOut = false;
-        this.timeoutMarketDataThread.interrupt();
+        this.marketDataTimeouts.stop();
     }
 
     /**
      * Requests market data for the specified symbol.  Specifically, requests current market data information
      * associated with the particular symbol found on the OTC Market.  Adds the ticker provided to the unified
-     * collection of scanned tickers and updates the market data of the stock to be active.  If too many market data
-     * requests are currently active (as enforced by the broker), blocks execution until a market data request
-     * can be safely made following broker limitations.
+     * collection of scanned tickers and schedules the market data request with the broker.  Never blocks; if too
+     * many market data requests are currently active (as enforced by the broker), the request is queued and
+     * dispatched as soon as an active request settles.
      *
      * @param ticker The stock ticker to request market data for in the OTC Market
+     * @return A future completing with the StockTick of the ticker once its market data has delivered; completes
+     *         exceptionally with a MarketDataTimeoutException if the request times out, or a
+     *         MarketDataErrorException if the broker reports an error for the request
      */
-    public void requestMarketData(String ticker) {
-        Contract contract = contract(ticker);
-        int tickId = this.getNextMarketDataId();
-
-        // Add this ticker to the active market data requests
+    public CompletableFuture<StockTick> requestMarketData(String ticker) {
         this.tickers.add(ticker);
-        this.activeMarketData.put(tickId, System.currentTimeMillis());
 
-        this.addStockTick(tickId, contract);
+        MarketDataRequest request = new MarketDataRequest(ticker, this.snapshotMode);
+        this.unsettledRequests.incrementAndGet();
+        this.scheduler.schedule(request);
 
-        // Wait until we can acquire a lock so as not to violate broker market data request limitations
-        Lock lock = LockManager.getInstance().getLock(tickId);
-        lock.lock();
-        Broker.getInstance().getClient().reqMktData(tickId, contract, TICK_STRING,
-                false /* Snapshot */, false /* Regulatory Snapshot */, null /* MktDataOptions */);
+        return request.getFuture();
     }
 
     /**
@@ -101,11 +113,141 @@ public class MarketData {
      * @param tickId The tick identifier associated with the stock to cancel market data
      */
     public void cancelMarketData(int tickId) {
-        this.removeActiveMarketData(tickId);
+        MarketDataRequest request = this.dispatchedRequests.get(tickId);
+        if (request != null) {
+            this.cancelMarketData(request);
+        }
+    }
+
+    /**
+     * Cancels the market data of the dispatched market data request provided and settles the request.  The
+     * cancellation is sent to the broker only once, no matter how many times the request is cancelled.
+     *
+     * @param request The dispatched market data request to cancel market data for
+     */
+    public void cancelMarketData(MarketDataRequest request) {
+        // Snapshots end on their own, so there is no subscription to cancel with the broker
+        if (request.cancel() && !request.isSnapshot()) {
+            this.sendMarketDataCancel(request.getTickId());
+        }
+        this.settleMarketData(request);
+    }
+
+    /**
+     * Cancels the market data associated with the provided tick identifier because the broker reported the error
+     * specified for it.  The future of the market data request completes exceptionally with a
+     * MarketDataErrorException unless all its market data had already delivered.
+     *
+     * @param tickId The tick identifier associated with the stock to cancel market data
+     * @param errorCode The broker error code reported for the market data request
+     * @param errorMessage The broker error message reported for the market data request
+     */
+    public void cancelMarketData(int tickId, int errorCode, String errorMessage) {
+        MarketDataRequest request = this.dispatchedRequests.get(tickId);
+        if (request != null) {
+            request.fail(new MarketDataErrorException(request.getTicker(), request.getStockTick(), errorCode,
+                    errorMessage));
+            this.cancelMarketData(request);
+        }
+    }
+
+    /**
+     * Settles the market data request associated with the provided tick identifier once the broker signals its
+     * market data is no longer delivered.  Completes the future of the request and releases its permit to the
+     * scheduler, immediately dispatching the next queued market data request.  Only a request whose market data has
+     * already been cancelled is settled: the broker also signals at the start of a subscription, so a request still
+     * receiving market data is left to end on its own (once complete, on a broker error or once timed out).  Settling
+     * a market data request more than once has no further effect.
+     *
+     * @param tickId The tick identifier associated with the market data request to settle
+     */
+    public void settleMarketData(int tickId) {
+        MarketDataRequest request = this.dispatchedRequests.get(tickId);
+        if (request != null) {
+            this.settleMarketData(request);
+        }
+    }
+
+    /**
+     * Settles the snapshot market data request associated with the provided tick identifier once the broker has
+     * ended the snapshot.  The future of the request completes with the StockTick holding whatever market data the
+     * snapshot delivered.  No cancellation is sent to the broker.
+     *
+     * @param tickId The tick identifier associated with the snapshot market data request
+     */
+    public void endMarketSnapshot(int tickId) {
+        MarketDataRequest request = this.dispatchedRequests.get(tickId);
+        if (request != null && request.isSnapshot()) {
+            request.cancel();
+            this.settleMarketData(request);
+        }
+    }
+
+    /**
+     * Configures whether market data requested from now on is requested as snapshots rather than streaming
+     * subscriptions.  Requests already made are unaffected.
+     *
+     * @param snapshotMode True to request snapshots of market data, and false to request streaming subscriptions
+     */
+    public void setSnapshotMode(boolean snapshotMode) {
+        this.snapshotMode = snapshotMode;
+    }
+
+    /**
+     * Sets the tick types the market data of each stock subsequently requested requires, such as the tick types
+     * consumed by the active classifier (see Classifier.getRequiredTicks).  Each market data request completes, and
+     * releases its line with the broker, as soon as every required tick type has been delivered.
+     *
+     * @param requiredTicks Bitmask of the required tick types (see TickTypes.asMask)
+     */
+    public void setRequiredTicks(long requiredTicks) {
+        this.stockTickResults.setRequiredTicks(requiredTicks);
+    }
+
+    /**
+     * Returns true if market data is currently requested as snapshots, and false if it is requested as streaming
+     * subscriptions.
+     */
+    public boolean isSnapshotMode() {
+        return this.snapshotMode;
+    }
+
+    /**
+     * Returns the dispatched market data request associated with the provided tick identifier, or null if no
+     * unsettled request is associated with it.  Costs a single array load; intended for broker callbacks.
+     *
+     * @param tickId The tick identifier associated with the market data request
+     */
+    public MarketDataRequest getDispatchedRequest(int tickId) {
+        return this.dispatchedRequests.get(tickId);
+    }
+
+    /**
+     * Settles the dispatched market data request provided, releasing its market data identifier to be recycled.
+     * Only a request whose market data has been cancelled (or whose snapshot has ended) is settled; settling a
+     * market data request more than once has no further effect.
+     *
+     * @param request The cancelled market data request to settle
+     */
+    private void settleMarketData(MarketDataRequest request) {
+        if (!request.settle()) {
+            return;
+        }
+
+        // A request that failed to dispatch may not have been issued an identifier or a timeout
+        TimingWheel.Timeout timeout = request.getTimeout();
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        if (this.dispatchedRequests.release(request)) {
+            this.getStockTickResults().releaseTickId(request.getTickId());
+        }
+        request.complete();
+        this.unsettledRequests.decrementAndGet();
         // Try to notify anyone waiting for all outstanding market data requests to deliver if this
         // market data request is the final request being waited on
         this.maybeNotifyAllDataDelivered();
-        Broker.getInstance().getClient().cancelMktData(tickId);
+        this.scheduler.release();
     }
 
     /**
@@ -128,13 +270,13 @@ public class MarketData {
     }
 
     /**
-     * Blocks the current execution until all active market data requests have delivered.  That is, causes the
-     * current execution to wait until all stocks with active market data have completed or timed out.  This function
-     * is thread-safe.
+     * Blocks the current execution until all requested market data has delivered.  That is, causes the
+     * current execution to wait until all stocks with queued or active market data have completed or timed out.
+     * This function is thread-safe.
      */
     public synchronized void waitForActiveDataToDeliver() {
-        // While there is any active market data requests, wait
-        while (!this.activeMarketData.isEmpty()) {
+        // While there is any queued or active market data requests, wait
+        while (!this.isAllDataDelivered()) {
             try {
                 this.wait();
             } catch (InterruptedException e) {
@@ -143,6 +285,30 @@ public class MarketData {
         }
     }
 
+    /**
+     * Combines the futures of many market data requests into a single future completing once every request has
+     * settled, whether its market data delivered, timed out or errored.  The combined future never completes
+     * exceptionally.
+     *
+     * @param requests The futures of the market data requests to combine
+     * @return A future completing with the StockTick of every request in the order provided; the StockTicks of
+     *         requests that timed out or errored contain the market data delivered before they settled
+     */
+    public static CompletableFuture<List<StockTick>> allSettled(List<CompletableFuture<StockTick>> requests) {
+        List<CompletableFuture<StockTick>> settled = new ArrayList<CompletableFuture<StockTick>>(requests.size());
+        for (CompletableFuture<StockTick> request : requests) {
+            settled.add(request.handle((tick, error) -> error == null ? tick : getFailedStockTick(error)));
+        }
+
+        return CompletableFuture.allOf(settled.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<StockTick> ticks = new ArrayList<StockTick>(settled.size());
+            for (CompletableFuture<StockTick> request : settled) {
+                ticks.add(request.join());
+            }
+            return ticks;
+        });
+    }
+
     /**
      * Provides the stock tick results containing all the stock information retrieved by this MarketData from the broker.
      *
@@ -184,21 +350,36 @@ public class MarketData {
     }
 
     /**
-     * Returns the next unique market data request identifier.  This method returns a monotonically increasing ID
-     * and only returns each unique identifier a single time per invocation, thus no two market data ids
-     * will ever be returned more than once.
+     * Sends the market data request for the contract provided to the broker under the market data identifier
+     * specified.
+     *
+     * @param tickId Integer market data identifier to associate with the market data delivered
+     * @param contract Stock contract detailing routing information of the trading market
+     */
+    protected void sendMarketDataRequest(int tickId, Contract contract) {
+        Broker.getInstance().getClient().reqMktData(tickId, contract, TICK_STRING,
+                false /* Snapshot */, false /* Regulatory Snapshot */, null /* MktDataOptions */);
+    }
+
+    /**
+     * Sends the snapshot market data request for the contract provided to the broker under the market data
+     * identifier specified.  The broker ends the snapshot with tickSnapshotEnd.
+     *
+     * @param tickId Integer market data identifier to associate with the market data delivered
+     * @param contract Stock contract detailing routing information of the trading market
      */
-    protected int getNextMarketDataId() {
-        return this.marketDataId.addAndGet(1);
+    protected void sendMarketSnapshotRequest(int tickId, Contract contract) {
+        Broker.getInstance().getClient().reqMktData(tickId, contract, SNAPSHOT_TICK_STRING,
+                true /* Snapshot */, false /* Regulatory Snapshot */, null /* MktDataOptions */);
     }
 
     /**
-     * Removes the indication that market data is still active for the tick identifier specified.
+     * Sends the cancellation of the market data associated with the market data identifier specified to the broker.
      *
-     * @param tickId Stock tick request identifier to no longer consider having active market data
+     * @param tickId Integer market data identifier of the market data to cancel
      */
-    protected void removeActiveMarketData(int tickId) {
-        this.activeMarketData.remove(tickId);
+    protected void sendMarketDataCancel(int tickId) {
+        Broker.getInstance().getClient().cancelMktData(tickId);
     }
 
     /**
@@ -207,37 +388,77 @@ public class MarketData {
      * all threads waiting for data to complete are notified and unblocked.  This method is thread-safe.
      */
     protected synchronized void maybeNotifyAllDataDelivered() {
-        if (this.activeMarketData.isEmpty()) {
+        if (this.isAllDataDelivered()) {
             this.notifyAll();
         }
     }
 
     /**
-     * Timeout market data cancellation function that cancels market data for any market data identifier that has
-     * exceeded the timeout period specified.  If market data is still active after the timeout period specified,
-     * cancels the market data request, otherwise does not influence the market data.  Spins indefinitely checking
-     * for market data requests that have stalled out.
+     * Returns true if there are no queued or active market data requests in this MarketData, and false otherwise.
+     */
+    private boolean isAllDataDelivered() {
+        return this.unsettledRequests.get() == 0;
+    }
+
+    /**
+     * Dispatches the market data request provided to the broker under a recycled or new market data identifier.
+     * Invoked by the scheduler once a permit is available for the request.  A request that fails to dispatch is
+     * settled at once, unwinding its market data identifier, its timeout and its permit, and its future completes
+     * exceptionally with a MarketDataException.
      *
-     * @param timeout The timeout period to wait prior to cancelling the market data for the identifier provided
+     * @param request The market data request to dispatch
      */
-    private void timeoutCancelMarketData(int timeout) {
-        // Spin indefinitely, cancelling active market data that has had an outstanding request for too long
-        while (this.isTimingMarketDataOut) {
-            try {
-                Thread.sleep(timeout);
-            } catch (InterruptedException e) {
-                // If interrupted, simply continue with timeout process protocol
+    private void dispatchMarketData(MarketDataRequest request) {
+        try {
+            Contract contract = contract(request.getTicker());
+            int tickId = this.dispatchedRequests.register(request);
+
+            this.addStockTick(tickId, contract);
+            request.setTimeout(this.marketDataTimeouts.schedule(() -> this.timeoutMarketData(request),
+                    request.isSnapshot() ? MARKET_SNAPSHOT_TIMEOUT_MILLIS : MARKET_DATA_TIMEOUT_MILLIS));
+            request.dispatch(this.getStockTickResults().getStockTick(tickId));
+
+            if (request.isSnapshot()) {
+                this.sendMarketSnapshotRequest(tickId, contract);
+            } else {
+                this.sendMarketDataRequest(tickId, contract);
             }
+        } catch (RuntimeException e) {
+            MarketDataException failure = new MarketDataException("Market data for " + request.getTicker()
+                    + " failed to dispatch: " + e.getMessage(), request.getTicker(), request.getStockTick());
+            failure.initCause(e);
+            request.fail(failure);
+
+            // The broker never accepted the request, so settle it without cancelling its market data
+            request.abandon();
+            this.settleMarketData(request);
+        }
+    }
+
+    /**
+     * Cancels the market data of the request provided if it is still active once its deadline has expired.
+     * Settling the timed out request immediately dispatches the next queued request.
+     *
+     * @param request The market data request that timed out
+     */
+    private void timeoutMarketData(MarketDataRequest request) {
+        if (!request.isActive()) {
+            return;
+        }
 
-                // After the timeout period, if market data is still active, cancel the market data for this identifier
-            Set<Integer> activeMarketDataSnapshot = new HashSet<Integer>(this.activeMarketData.keySet());
-            for (Integer tickId : activeMarketDataSnapshot) {
-                long requestStartTimeMillis = this.activeMarketData.getOrDefault(tickId, System.currentTimeMillis());
+        request.fail(new MarketDataTimeoutException(request.getTicker(), request.getStockTick(),
+                request.isSnapshot() ? MARKET_SNAPSHOT_TIMEOUT_MILLIS : MARKET_DATA_TIMEOUT_MILLIS));
+        this.cancelMarketData(request);
+    }
 
-                if (System.currentTimeMillis() - requestStartTimeMillis > timeout) {
-                    this.cancelMarketData(tickId);
-                }
-            }
+    /**
+     * Returns the StockTick held by the failure of a market data request, or null if the failure holds none.
+     */
+    private static StockTick getFailedStockTick(Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause instanceof MarketDataException) {
+            return ((MarketDataException) cause).getStockTick();
         }
+        return null;
     }
 }
@@ -0,0 +1,33 @@
+package main.java.penny.marketdata;
+
+/**
+ * MarketDataErrorException represents a market data request cancelled because the broker reported an error for it,
+ * almost always because the OTC ticker no longer exists or its market data is not subscribed to.
+ */
+public class MarketDataErrorException extends MarketDataException {
+
+    private static final long serialVersionUID = 6390511278453187226L;
+
+    /** The broker error code reported for the market data request */
+    private final int errorCode;
+
+    /**
+     * Constructs a new MarketDataErrorException for the market data request of the ticker provided.
+     *
+     * @param ticker The stock ticker of the errored market data request
+     * @param stockTick The stock tick data delivered before the broker reported the error
+     * @param errorCode The broker error code reported for the market data request
+     * @param errorMessage The broker error message reported for the market data request
+     */
+    public MarketDataErrorException(String ticker, StockTick stockTick, int errorCode, String errorMessage) {
+        super("Market data for " + ticker + " errored (" + errorCode + "): " + errorMessage, ticker, stockTick);
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * Returns the broker error code reported for the market data request.
+     */
+    public int getErrorCode() {
+        return this.errorCode;
+    }
+}
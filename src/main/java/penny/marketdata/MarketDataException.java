@@ -0,0 +1,43 @@
+package main.java.penny.marketdata;
+
+/**
+ * MarketDataException represents a market data request that settled without delivering all its market data.  The
+ * stock tick data delivered before the request settled remains available from the exception.
+ */
+public class MarketDataException extends Exception {
+
+    private static final long serialVersionUID = 4719832075410857324L;
+
+    /** The stock ticker of the failed market data request */
+    private final String ticker;
+
+    /** The stock tick data delivered before the market data request settled; may be incomplete */
+    private final transient StockTick stockTick;
+
+    /**
+     * Constructs a new MarketDataException for the market data request of the ticker provided.
+     *
+     * @param message Description of why the market data request failed
+     * @param ticker The stock ticker of the failed market data request
+     * @param stockTick The stock tick data delivered before the market data request settled
+     */
+    public MarketDataException(String message, String ticker, StockTick stockTick) {
+        super(message);
+        this.ticker = ticker;
+        this.stockTick = stockTick;
+    }
+
+    /**
+     * Returns the stock ticker of the failed market data request.
+     */
+    public String getTicker() {
+        return this.ticker;
+    }
+
+    /**
+     * Returns the (possibly incomplete) stock tick data delivered before the market data request settled.
+     */
+    public StockTick getStockTick() {
+        return this.stockTick;
+    }
+}
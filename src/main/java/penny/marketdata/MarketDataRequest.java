@@ -0,0 +1,232 @@
+package main.java.penny.marketdata;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import main.java.penny.concurrent.TimingWheel;
+
+/**
+ * MarketDataRequest represents a single request for the market data of a stock ticker.  A MarketDataRequest is
+ * created when market data is requested, waits to be dispatched to the broker by the MarketDataScheduler, and is
+ * settled once the market data request completes, times out or errors.  The future of a MarketDataRequest completes
+ * with the StockTick of the requested ticker once all its market data is delivered, or completes exceptionally with
+ * a MarketDataException (holding the incomplete StockTick) if the request timed out or the broker reported an error.
+ *
+ * Once dispatched, a MarketDataRequest is the single record of its market data: it owns the StockTick receiving
+ * the delivered tick data, its in-flight state and its timeout.  Broker callbacks resolve the request from its
+ * market data identifier and update it directly.
+ */
+public class MarketDataRequest {
+
+    /** Market data identifier of a request that has not been dispatched to the broker */
+    public static final int NOT_DISPATCHED = -1;
+
+    /** State of a request waiting to be dispatched to the broker */
+    private static final int QUEUED = 0;
+
+    /** State of a request dispatched to the broker and receiving market data */
+    private static final int DISPATCHED = 1;
+
+    /** State of a dispatched request whose market data is being cancelled with the broker */
+    private static final int CANCELLED = 2;
+
+    /** State of a request whose future has completed */
+    private static final int SETTLED = 3;
+
+    /** The stock ticker to request market data for */
+    private final String ticker;
+
+    /** True if this request is for a single snapshot of market data rather than a streaming subscription */
+    private final boolean snapshot;
+
+    /** Future completing with the StockTick of the ticker when this request is settled */
+    private final CompletableFuture<StockTick> future;
+
+    /** Market data identifier this request was dispatched to the broker with */
+    private volatile int tickId;
+
+    /** Timeout cancelling this request if it fails to deliver before its deadline */
+    private volatile TimingWheel.Timeout timeout;
+
+    /** Reason this request is failing to deliver all its market data, or null if it has not failed */
+    private final AtomicReference<MarketDataException> failure;
+
+    /** StockTick receiving the market data delivered for this request, or null if it has not been dispatched */
+    private volatile StockTick stockTick;
+
+    /** In-flight state of this request: queued, dispatched, cancelled or settled */
+    private final AtomicInteger state;
+
+    /**
+     * Constructs a new streaming MarketDataRequest for the stock ticker provided that has not been dispatched to
+     * the broker.
+     *
+     * @param ticker The stock ticker to request market data for
+     */
+    public MarketDataRequest(String ticker) {
+        this(ticker, false /* Streaming */);
+    }
+
+    /**
+     * Constructs a new MarketDataRequest for the stock ticker provided that has not been dispatched to the broker.
+     * A snapshot request settles once the broker ends the snapshot, whether or not all its market data delivered,
+     * and is never cancelled with the broker.
+     *
+     * @param ticker The stock ticker to request market data for
+     * @param snapshot True if the request is for a single snapshot of market data, and false if it is for a
+     *                 streaming subscription
+     */
+    public MarketDataRequest(String ticker, boolean snapshot) {
+        this.ticker = ticker;
+        this.snapshot = snapshot;
+        this.future = new CompletableFuture<StockTick>();
+        this.tickId = NOT_DISPATCHED;
+        this.failure = new AtomicReference<MarketDataException>();
+        this.state = new AtomicInteger(QUEUED);
+    }
+
+    /**
+     * Returns the stock ticker this MarketDataRequest is requesting market data for.
+     */
+    public String getTicker() {
+        return this.ticker;
+    }
+
+    /**
+     * Returns true if this request is for a single snapshot of market data, and false if it is for a streaming
+     * subscription.
+     */
+    public boolean isSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Returns the future completing with the StockTick of the requested ticker when this request is settled.
+     */
+    public CompletableFuture<StockTick> getFuture() {
+        return this.future;
+    }
+
+    /**
+     * Returns the market data identifier this request was dispatched to the broker with, or NOT_DISPATCHED if this
+     * request is still waiting to be dispatched.
+     */
+    public int getTickId() {
+        return this.tickId;
+    }
+
+    /**
+     * Records the market data identifier this request is dispatched to the broker with.
+     *
+     * @param tickId The market data identifier associated with this request
+     */
+    void setTickId(int tickId) {
+        this.tickId = tickId;
+    }
+
+    /**
+     * Returns the StockTick receiving the market data delivered for this request, or null if it has not been
+     * dispatched.
+     */
+    public StockTick getStockTick() {
+        return this.stockTick;
+    }
+
+    /**
+     * Returns true if this request has been dispatched to the broker and is still receiving market data, and false
+     * otherwise.
+     */
+    public boolean isActive() {
+        return this.state.get() == DISPATCHED;
+    }
+
+    /**
+     * Returns true if the future of this request has completed, and false otherwise.
+     */
+    public boolean isSettled() {
+        return this.state.get() == SETTLED;
+    }
+
+    /**
+     * Marks this request as dispatched, receiving its market data into the StockTick provided.
+     *
+     * @param stockTick The StockTick receiving the market data delivered for this request
+     */
+    void dispatch(StockTick stockTick) {
+        this.stockTick = stockTick;
+        this.state.set(DISPATCHED);
+    }
+
+    /**
+     * Marks this dispatched request as cancelled so that its market data is cancelled with the broker only once.
+     *
+     * @return True if this request was receiving market data and is now cancelled, and false otherwise
+     */
+    boolean cancel() {
+        return this.state.compareAndSet(DISPATCHED, CANCELLED);
+    }
+
+    /**
+     * Marks this request, which failed to dispatch, as cancelled so that it settles without its market data ever
+     * being cancelled with the broker.
+     *
+     * @return True if this request was queued or dispatched and is now cancelled, and false otherwise
+     */
+    boolean abandon() {
+        return this.state.compareAndSet(QUEUED, CANCELLED) || this.state.compareAndSet(DISPATCHED, CANCELLED);
+    }
+
+    /**
+     * Returns the timeout cancelling this request if it fails to deliver, or null if it has not been dispatched.
+     */
+    public TimingWheel.Timeout getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Records the timeout cancelling this request if it fails to deliver before its deadline.
+     *
+     * @param timeout The timeout of this request
+     */
+    void setTimeout(TimingWheel.Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Records the reason this request is failing to deliver all its market data.  Only the first reason recorded
+     * is kept.
+     *
+     * @param failure The reason this request failed
+     */
+    void fail(MarketDataException failure) {
+        this.failure.compareAndSet(null, failure);
+    }
+
+    /**
+     * Marks this cancelled request as settled.  Only a request whose market data has been cancelled (or whose
+     * snapshot has ended) settles, so its market data identifier is never recycled while the broker may still
+     * deliver market data for it.  Only the first invocation succeeds, after which the future of this request is
+     * completed with complete().
+     *
+     * @return True if this request was settled by this invocation, and false if it is still receiving market data
+     *         or had already been settled
+     */
+    boolean settle() {
+        return this.state.compareAndSet(CANCELLED, SETTLED);
+    }
+
+    /**
+     * Completes the future of this request with its StockTick.  If the StockTick is incomplete and a failure has
+     * been recorded for this request, the future instead completes exceptionally with that failure.
+     */
+    void complete() {
+        StockTick stockTick = this.stockTick;
+        MarketDataException failure = this.failure.get();
+        if (failure == null || (stockTick != null && stockTick.isComplete())) {
+            this.future.complete(stockTick);
+        } else {
+            this.future.completeExceptionally(failure);
+        }
+    }
+}
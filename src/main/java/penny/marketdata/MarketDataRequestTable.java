@@ -0,0 +1,143 @@
+package main.java.penny.marketdata;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * MarketDataRequestTable represents the table of dispatched market data requests indexed directly by their market
+ * data identifier (tickId).  Broker callbacks resolve the request of a tickId with a single array load, without
+ * hashing or locking.
+ *
+ * Market data identifiers are recycled so the table stays bounded by the number of concurrently dispatched
+ * requests rather than growing with every request made.  A released identifier is only reissued once the recycle
+ * delay has elapsed, giving the broker time to stop delivering late callbacks for the previous request.  Identifier
+ * 0 is never issued as it is reserved for the market scanner.
+ *
+ * Identifiers are issued by a single thread at a time (the dispatching thread of the MarketDataScheduler), while
+ * requests may be looked up and released from any thread.
+ */
+class MarketDataRequestTable {
+
+    /** Requests indexed by market data identifier; null where no request is dispatched */
+    private volatile AtomicReferenceArray<MarketDataRequest> requests;
+
+    /** Released market data identifiers in order of release, waiting to be reissued */
+    private final Queue<ReleasedTickId> releasedTickIds;
+
+    /** Minimum time in nanoseconds a released market data identifier waits before being reissued */
+    private final long recycleDelayNanos;
+
+    /** Next market data identifier never issued before */
+    private int nextTickId;
+
+    /**
+     * Constructs a new empty MarketDataRequestTable.
+     *
+     * @param initialCapacity The initial number of market data identifiers the table holds; grows as needed
+     * @param recycleDelayMillis The minimum time in milliseconds before a released identifier is reissued
+     */
+    MarketDataRequestTable(int initialCapacity, long recycleDelayMillis) {
+        this.requests = new AtomicReferenceArray<MarketDataRequest>(Math.max(2, initialCapacity));
+        this.releasedTickIds = new ConcurrentLinkedQueue<ReleasedTickId>();
+        this.recycleDelayNanos = TimeUnit.MILLISECONDS.toNanos(recycleDelayMillis);
+        this.nextTickId = 1;
+    }
+
+    /**
+     * Issues a market data identifier to the request provided and stores the request under it.  Reissues the
+     * oldest released identifier whose recycle delay has elapsed, or a new identifier if there is none.  Must only
+     * be invoked by one thread at a time.
+     *
+     * @param request The market data request to dispatch
+     * @return The market data identifier issued to the request
+     */
+    int register(MarketDataRequest request) {
+        int tickId;
+        ReleasedTickId released = this.releasedTickIds.peek();
+        if (released != null && System.nanoTime() - released.releaseNanos >= this.recycleDelayNanos) {
+            this.releasedTickIds.poll();
+            tickId = released.tickId;
+        } else {
+            tickId = this.nextTickId++;
+        }
+
+        request.setTickId(tickId);
+        this.store(tickId, request);
+        return tickId;
+    }
+
+    /**
+     * Returns the request dispatched under the market data identifier provided, or null if there is none.
+     *
+     * @param tickId The market data identifier of the request
+     */
+    MarketDataRequest get(int tickId) {
+        AtomicReferenceArray<MarketDataRequest> requests = this.requests;
+        if (tickId < 0 || tickId >= requests.length()) {
+            return null;
+        }
+
+        return requests.get(tickId);
+    }
+
+    /**
+     * Removes the request provided from the table and releases its market data identifier to be reissued after
+     * the recycle delay.  Has no effect if the request is no longer stored in the table.
+     *
+     * @param request The market data request that has settled
+     * @return True if the request was removed, and false if it had already been removed
+     */
+    synchronized boolean release(MarketDataRequest request) {
+        int tickId = request.getTickId();
+        if (this.get(tickId) != request) {
+            return false;
+        }
+
+        this.requests.set(tickId, null);
+        this.releasedTickIds.offer(new ReleasedTickId(tickId, System.nanoTime()));
+        return true;
+    }
+
+    /**
+     * Returns the number of market data identifiers this table currently holds.
+     */
+    int getCapacity() {
+        return this.requests.length();
+    }
+
+    /**
+     * Stores the request provided under the market data identifier specified, growing the table if necessary.
+     * Writes are serialized with releases so a request is never lost while the table grows.
+     */
+    private synchronized void store(int tickId, MarketDataRequest request) {
+        AtomicReferenceArray<MarketDataRequest> requests = this.requests;
+        if (tickId >= requests.length()) {
+            AtomicReferenceArray<MarketDataRequest> grown = new AtomicReferenceArray<MarketDataRequest>(
+                    Math.max(tickId + 1, 2 * requests.length()));
+            for (int i = 0; i < requests.length(); i++) {
+                grown.set(i, requests.get(i));
+            }
+            this.requests = grown;
+            requests = grown;
+        }
+
+        requests.set(tickId, request);
+    }
+
+    /**
+     * ReleasedTickId represents a market data identifier released at a particular time.
+     */
+    private static final class ReleasedTickId {
+
+        private final int tickId;
+
+        private final long releaseNanos;
+
+        ReleasedTickId(int tickId, long releaseNanos) {
+            this.tickId = tickId;
+            this.releaseNanos = releaseNanos;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package main.java.penny.marketdata;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * MarketDataScheduler represents a non-blocking scheduler of market data requests that keeps the number of market
+ * data requests active with the broker within a bounded window.  Scheduling a request never blocks: the request is
+ * queued and dispatched as soon as one of the permits of the window is available.  Releasing a permit (when a request
+ * completes, times out or errors) immediately dispatches the next queued request on the releasing thread.
+ *
+ * Dispatching is serialized through a work-in-progress counter rather than a lock.  Whichever thread increments the
+ * counter from zero drains the queue while permits are available; threads scheduling or releasing concurrently only
+ * record that more work is available.  A release triggered from within a dispatch therefore never recurses and no
+ * thread ever waits to dispatch.
+ */
+public class MarketDataScheduler {
+
+    /** Queue of requests waiting to be dispatched, in the order they were scheduled */
+    private final Queue<MarketDataRequest> pendingRequests;
+
+    /** Number of requests that may currently be dispatched before the window is full */
+    private final AtomicInteger permits;
+
+    /** Count of unprocessed schedule and release signals; non-zero while a thread is draining */
+    private final AtomicInteger workInProgress;
+
+    /** Dispatches a request to the broker once a permit has been acquired for it */
+    private final Consumer<MarketDataRequest> dispatcher;
+
+    /**
+     * Constructs a new MarketDataScheduler allowing at most the number of active requests specified and dispatching
+     * requests with the dispatcher provided.
+     *
+     * @param maxActiveRequests The maximum number of dispatched requests that may be active at once
+     * @param dispatcher Dispatches a request to the broker; every dispatched request must eventually be released
+     */
+    public MarketDataScheduler(int maxActiveRequests, Consumer<MarketDataRequest> dispatcher) {
+        this.pendingRequests = new ConcurrentLinkedQueue<MarketDataRequest>();
+        this.permits = new AtomicInteger(maxActiveRequests);
+        this.workInProgress = new AtomicInteger(0);
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Schedules the request provided to be dispatched once a permit is available.  Never blocks; if a permit is
+     * currently available, the request is dispatched before returning.  This method is thread-safe.
+     *
+     * @param request The market data request to schedule
+     */
+    public void schedule(MarketDataRequest request) {
+        this.pendingRequests.offer(request);
+        this.drain();
+    }
+
+    /**
+     * Releases the permit of a dispatched request and dispatches the next queued request if there is one.  Must be
+     * called exactly once for each dispatched request.  This method is thread-safe.
+     */
+    public void release() {
+        this.permits.incrementAndGet();
+        this.drain();
+    }
+
+    /**
+     * Returns the number of requests waiting for a permit to be dispatched.
+     */
+    public int getPendingRequestCount() {
+        return this.pendingRequests.size();
+    }
+
+    /**
+     * Dispatches queued requests while permits are available.  Only a single thread drains at a time; any thread
+     * signalling while another thread is draining leaves the remaining work to the draining thread.
+     */
+    private void drain() {
+        if (this.workInProgress.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            while (this.tryAcquire()) {
+                MarketDataRequest request = this.pendingRequests.poll();
+                if (request == null) {
+                    this.permits.incrementAndGet();
+                    break;
+                }
+
+                try {
+                    this.dispatcher.accept(request);
+                } catch (RuntimeException e) {
+                    // A request that failed to dispatch never becomes active, so reclaim its permit
+                    this.permits.incrementAndGet();
+                    request.getFuture().completeExceptionally(e);
+                }
+            }
+
+            missed = this.workInProgress.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Acquires a permit if one is available without blocking.
+     *
+     * @return True if a permit was acquired, and false otherwise
+     */
+    private boolean tryAcquire() {
+        int available = this.permits.get();
+        while (available > 0) {
+            if (this.permits.compareAndSet(available, available - 1)) {
+                return true;
+            }
+            available = this.permits.get();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,21 @@
+package main.java.penny.marketdata;
+
+/**
+ * MarketDataTimeoutException represents a market data request cancelled because its market data did not deliver
+ * before the market data request timeout.
+ */
+public class MarketDataTimeoutException extends MarketDataException {
+
+    private static final long serialVersionUID = -2285912644218741393L;
+
+    /**
+     * Constructs a new MarketDataTimeoutException for the market data request of the ticker provided.
+     *
+     * @param ticker The stock ticker of the timed out market data request
+     * @param stockTick The stock tick data delivered before the market data request timed out
+     * @param timeoutMillis The market data request timeout in milliseconds
+     */
+    public MarketDataTimeoutException(String ticker, StockTick stockTick, long timeoutMillis) {
+        super("Market data for " + ticker + " did not deliver within " + timeoutMillis + "ms", ticker, stockTick);
+    }
+}
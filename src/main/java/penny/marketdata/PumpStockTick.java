@@ -6,14 +6,40 @@ import main.java.penny.constants.TickTypes;
  * PumpStockTick represents a StockTick with additional convenient computation of common pump and dump
  * indicating values.  Often what characterizes a pump and dump is unusually active trading (i.e. high
  * dollar volume) when compared to its historical, average trading activity.
+ *
+ * A PumpStockTick is a view of the tick data of another StockTick rather than a copy of it.  The derived values
+ * (dollar volume, average dollar volume, percent change and day range) are computed together the first time any
+ * of them is requested and memoized, so filtering and classifying the same view computes them only once.  Views
+ * should therefore be created once the market data of the stock has been delivered.
  */
 public class PumpStockTick extends StockTick {
 
+    private static final long serialVersionUID = 1L;
+
+    /** Indices of each derived value within the memoized derived values */
+    private static final int VOLUME_USD = 0;
+    private static final int AVERAGE_VOLUME_USD = 1;
+    private static final int PERCENT_CHANGE = 2;
+    private static final int DAY_RANGE = 3;
+
+    /** The memoized derived values of this stock, or null until first requested */
+    private transient volatile double[] derivedValues;
+
     /**
-     * Constructs a new PumpStockTick identical to the StockTick provided.
+     * Constructs a new PumpStockTick viewing the tick data of the StockTick provided without copying it.  Tick data
+     * added to either StockTick is visible to both.
      */
     public PumpStockTick(StockTick tick) {
-        super(tick);
+        super(tick.getColumns(), tick.getRow());
+    }
+
+    /**
+     * Returns the StockTick provided if it is already a PumpStockTick, and a new PumpStockTick viewing it otherwise.
+     *
+     * @param tick The StockTick to view
+     */
+    public static PumpStockTick of(StockTick tick) {
+        return tick instanceof PumpStockTick ? (PumpStockTick) tick : new PumpStockTick(tick);
     }
 
     /**
@@ -24,7 +50,7 @@ public class PumpStockTick extends StockTick {
     public int getVolume() {
         // Volume received by market data needs to be adjusted by 100 multiplier
         // per Broker TickType specification)
-        return this.getTick(TickTypes.VOLUME).intValue() * 100;
+        return (int) this.getTickValue(TickTypes.VOLUME) * 100;
     }
 
     /**
@@ -35,7 +61,7 @@ public class PumpStockTick extends StockTick {
     public int getAverageVolume() {
         // Average Volume received by market data needs to be adjusted by 100 multiplier
         // (per Broker TickType specification)
-        return this.getTick(TickTypes.AVERAGE_VOLUME).intValue() * 100;
+        return (int) this.getTickValue(TickTypes.AVERAGE_VOLUME) * 100;
     }
 
     /**
@@ -44,7 +70,7 @@ public class PumpStockTick extends StockTick {
      * @return The price which this StockTick opened with for the day
      */
     public double getOpen() {
-        return this.getTick(TickTypes.OPEN).doubleValue();
+        return this.getTickValue(TickTypes.OPEN);
     }
 
     /**
@@ -53,7 +79,7 @@ public class PumpStockTick extends StockTick {
      * @return The last price which this StockTick traded at for the day
      */
     public double getLastPrice() {
-        return this.getTick(TickTypes.LAST).doubleValue();
+        return this.getTickValue(TickTypes.LAST);
     }
 
     /**
@@ -62,7 +88,7 @@ public class PumpStockTick extends StockTick {
      * @return The highest price which this StockTick traded at for the day
      */
     public double getHigh() {
-        return this.getTick(TickTypes.HIGH).doubleValue();
+        return this.getTickValue(TickTypes.HIGH);
     }
 
     /**
@@ -71,7 +97,7 @@ public class PumpStockTick extends StockTick {
      * @return The lowest price which this StockTick traded at for the day
      */
     public double getLow() {
-        return this.getTick(TickTypes.LOW).doubleValue();
+        return this.getTickValue(TickTypes.LOW);
     }
 
     /**
@@ -80,7 +106,7 @@ public class PumpStockTick extends StockTick {
      * @return The highest price which this StockTick traded at over the last 13 weeks
      */
     public double getHigh13Weeks() {
-        return this.getTick(TickTypes.HIGH_13_WEEKS).doubleValue();
+        return this.getTickValue(TickTypes.HIGH_13_WEEKS);
     }
 
     /**
@@ -89,7 +115,7 @@ public class PumpStockTick extends StockTick {
      * @return The lowest price which this StockTick traded at over the last 13 weeks
      */
     public double getLow13Weeks() {
-        return this.getTick(TickTypes.LOW_13_WEEKS).doubleValue();
+        return this.getTickValue(TickTypes.LOW_13_WEEKS);
     }
 
     /**
@@ -98,7 +124,7 @@ public class PumpStockTick extends StockTick {
      * @return The total dollar volume of this StockTick for the day.
      */
     public double getVolumeUSD() {
-        return Math.round(this.getVolume() * this.getLastPrice());
+        return this.getDerivedValues()[VOLUME_USD];
     }
 
     /**
@@ -107,7 +133,7 @@ public class PumpStockTick extends StockTick {
      * @return The rough average dollar volume of this StockTick over the last 90 days (13 weeks)
      */
     public double getAverageVolumeUSD() {
-        return Math.round(((getHigh13Weeks() + getLow13Weeks()) / 2) * this.getAverageVolume());
+        return this.getDerivedValues()[AVERAGE_VOLUME_USD];
     }
 
     /**
@@ -116,7 +142,7 @@ public class PumpStockTick extends StockTick {
      * @return The percent change of the price of this stock for the day since the opening price
      */
     public double getPercentChange() {
-        return (this.getLastPrice() - this.getOpen()) / this.getOpen();
+        return this.getDerivedValues()[PERCENT_CHANGE];
     }
 
     /**
@@ -125,6 +151,66 @@ public class PumpStockTick extends StockTick {
      * @return The daily price range of this stock between the high and low prices of the day
      */
     public double getDayRange() {
-        return (this.getHigh() - this.getLow()) / this.getOpen();
+        return this.getDerivedValues()[DAY_RANGE];
+    }
+
+    /**
+     * Retrieves the dollar volume of the StockTick provided directly, without memoizing it.
+     *
+     * @return The total dollar volume of the StockTick for the day.
+     */
+    public static double getVolumeUSD(StockTick tick) {
+        // Volume received by market data needs to be adjusted by 100 multiplier
+        int volume = (int) tick.getTickValue(TickTypes.VOLUME) * 100;
+        return Math.round(volume * tick.getTickValue(TickTypes.LAST));
+    }
+
+    /**
+     * Retrieves the average dollar volume of the StockTick provided directly, without memoizing it.
+     *
+     * @return The rough average dollar volume of the StockTick over the last 90 days (13 weeks)
+     */
+    public static double getAverageVolumeUSD(StockTick tick) {
+        // Average Volume received by market data needs to be adjusted by 100 multiplier
+        int averageVolume = (int) tick.getTickValue(TickTypes.AVERAGE_VOLUME) * 100;
+        return Math.round(((tick.getTickValue(TickTypes.HIGH_13_WEEKS) + tick.getTickValue(TickTypes.LOW_13_WEEKS)) / 2)
+                * averageVolume);
+    }
+
+    /**
+     * Retrieves the percent change of the StockTick provided directly, without memoizing it.
+     *
+     * @return The percent change of the price of the stock for the day since the opening price
+     */
+    public static double getPercentChange(StockTick tick) {
+        double open = tick.getTickValue(TickTypes.OPEN);
+        return (tick.getTickValue(TickTypes.LAST) - open) / open;
+    }
+
+    /**
+     * Retrieves the day's range of the StockTick provided directly, without memoizing it.
+     *
+     * @return The daily price range of the stock between the high and low prices of the day
+     */
+    public static double getDayRange(StockTick tick) {
+        double open = tick.getTickValue(TickTypes.OPEN);
+        return (tick.getTickValue(TickTypes.HIGH) - tick.getTickValue(TickTypes.LOW)) / open;
+    }
+
+    /**
+     * Returns the derived values of this stock, computing and memoizing them the first time they are requested.
+     * Concurrent first requests may each compute the values, but always compute identical values.
+     */
+    private double[] getDerivedValues() {
+        double[] derivedValues = this.derivedValues;
+        if (derivedValues == null) {
+            derivedValues = new double[4];
+            derivedValues[VOLUME_USD] = getVolumeUSD(this);
+            derivedValues[AVERAGE_VOLUME_USD] = getAverageVolumeUSD(this);
+            derivedValues[PERCENT_CHANGE] = getPercentChange(this);
+            derivedValues[DAY_RANGE] = getDayRange(this);
+            this.derivedValues = derivedValues;
+        }
+        return derivedValues;
     }
 }
@@ -6,12 +6,18 @@ import main.java.penny.util.ProgressBar;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
  * StockScanner represents a utility class that requests market data for a series of provided stock tickers.
  * StockScanner provides the efficiency of scanning in parallel while working within the broker constraints
- * of the maximum allowed number of concurrent market data requests.
+ * of the maximum allowed number of concurrent market data requests.  Scanning returns once market data has been
+ * requested for every ticker, providing a future that completes once the market data of every ticker has settled.
  */
 public class StockScanner {
 
@@ -22,9 +28,10 @@ public class StockScanner {
      * Scans and requests market data for all the stock tickers provided.
      *
      * @param tickers The stock tickers to scan and request market data for
+     * @return A future completing with the StockTicks of the scanned tickers once all their market data has settled
      */
-    public static void scan(List<String> tickers) {
-        scan(tickers, null);
+    public static CompletableFuture<List<StockTick>> scan(List<String> tickers) {
+        return scan(tickers, null);
     }
 
     /**
@@ -33,8 +40,41 @@ public class StockScanner {
      *
      * @param tickers The stock tickers to scan and request market data for
      * @param filter The scanner filter to extract a subset of provided tickers using
+     * @return A future completing with the StockTicks of the scanned tickers once all their market data has settled
      */
-    public static void scan(Collection<String> tickers, StockScannerFilter filter) {
+    public static CompletableFuture<List<StockTick>> scan(Collection<String> tickers, StockScannerFilter filter) {
+        return scan(tickers, filter, ScannerConstants.SCAN_PARALLELISM);
+    }
+
+    /**
+     * Scans and request market data for all the stock tickers provided excluding any stocks filtered
+     * by the StockScannerFilter predicate, using at most the number of threads specified.  Scans the subset of
+     * stock tickers that satisfy the stock filter.
+     *
+     * @param tickers The stock tickers to scan and request market data for
+     * @param filter The scanner filter to extract a subset of provided tickers using
+     * @param parallelism The maximum number of threads to scan tickers with; must be positive
+     * @return A future completing with the StockTicks of the scanned tickers once all their market data has settled
+     */
+    public static CompletableFuture<List<StockTick>> scan(Collection<String> tickers, StockScannerFilter filter,
+                                                          int parallelism) {
+        return scan(tickers, filter, parallelism, null);
+    }
+
+    /**
+     * Scans and request market data for all the stock tickers provided excluding any stocks filtered by the
+     * StockScannerFilter predicate, using at most the number of threads specified and handing each StockTick to the
+     * listener provided as soon as its market data has been delivered.  StockTicks whose market data fails to
+     * deliver (times out or errors) are not handed to the listener.
+     *
+     * @param tickers The stock tickers to scan and request market data for
+     * @param filter The scanner filter to extract a subset of provided tickers using
+     * @param parallelism The maximum number of threads to scan tickers with; must be positive
+     * @param deliveredListener The listener notified of each delivered StockTick on the delivering thread, or null
+     * @return A future completing with the StockTicks of the scanned tickers once all their market data has settled
+     */
+    public static CompletableFuture<List<StockTick>> scan(Collection<String> tickers, StockScannerFilter filter,
+                                                          int parallelism, Consumer<StockTick> deliveredListener) {
         // If a filter exists, extract the subset of tickers that satisfy the ticker
         List<String> scanTickers;
         if (filter != null) {
@@ -44,8 +84,16 @@ public class StockScanner {
         }
 
         ProgressBar progressBar = makeScannerProgressBar(scanTickers);
+        List<CompletableFuture<StockTick>> requests = makeRequests(scanTickers);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ScanTask(scanTickers, 0, scanTickers.size(), progressBar, deliveredListener, requests));
+        } finally {
+            pool.shutdown();
+        }
 
-        scanParallel(scanTickers, 0, scanTickers.size(), progressBar);
+        return MarketData.allSettled(requests);
     }
 
     /**
@@ -54,9 +102,10 @@ public class StockScanner {
      * standard "scan".
      *
      * @param tickers The stock tickers to scan and request market data for
+     * @return A future completing with the StockTicks of the scanned tickers once all their market data has settled
      */
-    public static void scanSequential(Collection<String> tickers) {
-        scanSequential(tickers, null);
+    public static CompletableFuture<List<StockTick>> scanSequential(Collection<String> tickers) {
+        return scanSequential(tickers, null);
     }
 
     /**
@@ -67,8 +116,46 @@ public class StockScanner {
      *
      * @param tickers The stock tickers to scan and request market data for
      * @param filter The scanner filter to extract a subset of provided tickers using
+     * @return A future completing with the StockTicks of the scanned tickers once all their market data has settled
+     */
+    public static CompletableFuture<List<StockTick>> scanSequential(Collection<String> tickers,
+                                                                    StockScannerFilter filter) {
+        return scanSequential(tickers, filter, null, true /* Display progress */);
+    }
+
+    /**
+     * Scans and requests market data for all the stock tickers provided sequentially and excluding any stocks filtered
+     * by the StockScannerFilter predicate, handing each StockTick to the listener provided as soon as its market data
+     * has been delivered.  StockTicks whose market data fails to deliver (times out or errors) are not handed to the
+     * listener.  No progress bar is displayed so that the listener may output results as they are delivered.
+     *
+     * @param tickers The stock tickers to scan and request market data for
+     * @param filter The scanner filter to extract a subset of provided tickers using
+     * @param deliveredListener The listener notified of each delivered StockTick on the delivering thread
+     * @return A future completing with the StockTicks of the scanned tickers once all their market data has settled
+     */
+    public static CompletableFuture<List<StockTick>> scanSequential(Collection<String> tickers,
+                                                                    StockScannerFilter filter,
+                                                                    Consumer<StockTick> deliveredListener) {
+        return scanSequential(tickers, filter, deliveredListener, false /* No progress bar */);
+    }
+
+    /**
+     * Scans and requests market data for all the stock tickers provided sequentially and excluding any stocks filtered
+     * by the StockScannerFilter predicate, handing each StockTick to the listener provided as soon as its market data
+     * has been delivered.  StockTicks whose market data fails to deliver (times out or errors) are not handed to the
+     * listener.  A progress bar should only be displayed if the listener does not output to the console.
+     *
+     * @param tickers The stock tickers to scan and request market data for
+     * @param filter The scanner filter to extract a subset of provided tickers using
+     * @param deliveredListener The listener notified of each delivered StockTick on the delivering thread
+     * @param displayProgress True to display the progress of the scan, and false otherwise
+     * @return A future completing with the StockTicks of the scanned tickers once all their market data has settled
      */
-    public static void scanSequential(Collection<String> tickers, StockScannerFilter filter) {
+    public static CompletableFuture<List<StockTick>> scanSequential(Collection<String> tickers,
+                                                                    StockScannerFilter filter,
+                                                                    Consumer<StockTick> deliveredListener,
+                                                                    boolean displayProgress) {
         // If a filter exists, extract the subset of tickers that satisfy the ticker
         List<String> scanTickers;
         if (filter != null) {
@@ -77,39 +164,12 @@ public class StockScanner {
             scanTickers = new ArrayList<String>(tickers);
         }
 
-        ProgressBar progressBar = makeScannerProgressBar(scanTickers);
-
-        scanSequential(scanTickers, 0, scanTickers.size(), progressBar);
-    }
-
-    /**
-     * Scans the provided range of tickers in parallel leveraging divide-and-conquer.  Specifically, splits the
-     * range indicated and delegates scanning to a newly spawned thread for half of this range - continually
-     * splitting the range in half until it is below the sequential cutoff where the tickers are then scanned
-     * sequentially in the current thread.  Assumes the range is valid with respect to the complete ticker list.
-     *
-     * @param tickers The complete list of tickers to divide and request market data for
-     * @param low The low index of the range of tickers to scan in this thread (inclusive)
-     * @param high The high index of the range of tickers to scan in this thread (exclusive)
-     * @param progressBar The progress bar display to show the current status of successfully scanned tickers
-     */
-    private static void scanParallel(List<String> tickers, int low, int high, ProgressBar progressBar) {
-        if (high - low < SEQUENTIAL_CUTOFF) {
-            scanSequential(tickers, low, high, progressBar);
-        } else {
-            int mid = low + (high - low) / 2;
+        ProgressBar progressBar = displayProgress ? makeScannerProgressBar(scanTickers) : null;
+        List<CompletableFuture<StockTick>> requests = makeRequests(scanTickers);
 
-            Thread thread = new Thread(() -> scanParallel(tickers, mid, high, progressBar));
-            thread.start();
-            scanParallel(tickers, low, mid, progressBar);
+        scanSequential(scanTickers, 0, scanTickers.size(), progressBar, deliveredListener, requests);
 
-            // Wait for thread to join...
-            try {
-                thread.join();
-            } catch (InterruptedException e) {
-                // Proceed since thread was interrupted
-            }
-        }
+        return MarketData.allSettled(requests);
     }
 
     /**
@@ -120,19 +180,96 @@ public class StockScanner {
      * @param low The low (first) index of the range of tickers to scan sequentially (inclusive)
      * @param high The high (last) index of the range of tickers to scan sequentially (exclusive)
      * @param progressBar The progress bar display to show the current status of successfully scanned tickers
+     * @param deliveredListener The listener notified of each delivered StockTick, or null if there is none
+     * @param requests The market data request futures of the complete list of tickers, filled in for the range
      */
-    private static void scanSequential(List<String> tickers, int low, int high, ProgressBar progressBar) {
+    private static void scanSequential(List<String> tickers, int low, int high, ProgressBar progressBar,
+                                       Consumer<StockTick> deliveredListener,
+                                       List<CompletableFuture<StockTick>> requests) {
         for (int i = low; i < high; i++) {
             String ticker = tickers.get(i);
-            Broker.getInstance().getMarketData().requestMarketData(ticker);
+            CompletableFuture<StockTick> request = Broker.getInstance().getMarketData().requestMarketData(ticker);
+            requests.set(i, request);
 
             if (progressBar != null) {
-                progressBar.increment();
-                progressBar.display();
+                // Progress is made once the market data request settles rather than when it is queued
+                request.whenComplete((tick, error) -> {
+                    progressBar.increment();
+                    progressBar.display();
+                });
+            }
+
+            if (deliveredListener != null) {
+                request.thenAccept(deliveredListener);
             }
         }
     }
 
+    /**
+     * ScanTask represents scanning a range of tickers in parallel leveraging divide-and-conquer.  Specifically,
+     * splits the range indicated and forks scanning half of this range to the pool - continually splitting the range
+     * in half until it is below the sequential cutoff where the tickers are then scanned sequentially.  Ranges are
+     * executed by the bounded set of work-stealing threads of the pool rather than a new thread per split.
+     */
+    private static class ScanTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The complete list of tickers to divide and request market data for */
+        private final List<String> tickers;
+
+        /** The low index of the range of tickers to scan (inclusive) */
+        private final int low;
+
+        /** The high index of the range of tickers to scan (exclusive) */
+        private final int high;
+
+        /** The progress bar display to show the current status of successfully scanned tickers */
+        private final ProgressBar progressBar;
+
+        /** The listener notified of each delivered StockTick, or null if there is none */
+        private final Consumer<StockTick> deliveredListener;
+
+        /** The market data request futures of the complete list of tickers */
+        private final List<CompletableFuture<StockTick>> requests;
+
+        /**
+         * Constructs a new ScanTask scanning the provided range of tickers.  Assumes the range is valid with respect
+         * to the complete ticker list.
+         */
+        ScanTask(List<String> tickers, int low, int high, ProgressBar progressBar,
+                 Consumer<StockTick> deliveredListener, List<CompletableFuture<StockTick>> requests) {
+            this.tickers = tickers;
+            this.low = low;
+            this.high = high;
+            this.progressBar = progressBar;
+            this.deliveredListener = deliveredListener;
+            this.requests = requests;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.high - this.low < SEQUENTIAL_CUTOFF) {
+                scanSequential(this.tickers, this.low, this.high, this.progressBar, this.deliveredListener,
+                        this.requests);
+            } else {
+                int mid = this.low + (this.high - this.low) / 2;
+                invokeAll(new ScanTask(this.tickers, this.low, mid, this.progressBar, this.deliveredListener,
+                                this.requests),
+                        new ScanTask(this.tickers, mid, this.high, this.progressBar, this.deliveredListener,
+                                this.requests));
+            }
+        }
+    }
+
+    /**
+     * Makes a list to hold the market data request future of each of the tickers provided, by index.
+     */
+    private static List<CompletableFuture<StockTick>> makeRequests(List<String> tickers) {
+        return new ArrayList<CompletableFuture<StockTick>>(
+                Collections.<CompletableFuture<StockTick>>nCopies(tickers.size(), null));
+    }
+
     /**
      * Makes the default scanner progress bar display including the list of tickers provided.
      *
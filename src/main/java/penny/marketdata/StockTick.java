@@ -1,30 +1,45 @@
 package main.java.penny.marketdata;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
-import com.ib.client.Contract;
-
 import main.java.penny.constants.TickTypes;
 
 /**
  * StockTick represents the tick price and size values associated with a particular stock ticker.  In other words, a
  * StockTick captures the market data information associated with a stock ticker.  A StockTick is considered "complete"
  * if it contains a value for every required tick type.
+ *
+ * Tick values are kept in primitive slots indexed by tick type and the presence of each tick type is tracked with an
+ * atomic bitmask (see TickColumns).  Adding tick values and checking completeness are lock-free and do not allocate,
+ * so StockTicks can be updated concurrently by parallel market data delivery.  A StockTick either owns its tick data
+ * or is a view of a single row of the columnar tick data maintained by StockTickResults.
  */
 public class StockTick implements Serializable {
 
     private static final long serialVersionUID = -5833141718388638175L;
 
-    /** Map from TickType to associated value (price/size) for this stock; */
-    private Map<Integer, Number> ticks;
+    /**
+     * Serialized form of a StockTick.  The form is kept identical to the original map-based StockTick so that
+     * previously serialized stock ticks continue to load (see writeObject and readObject).  Stock ticks are persisted
+     * with the compact StockTickCodec instead.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("ticks", Map.class),
+            new ObjectStreamField("ticker", String.class),
+            new ObjectStreamField("missingTicks", Set.class)
+    };
 
-    /** Stock ticker associated with this tick data */
-    private String ticker;
+    /** Columnar tick data containing the values of this stock */
+    private transient TickColumns columns;
 
-    /** Required TickTypes not yet present in this StockTick */
-    private Set<Integer> missingTicks;
+    /** Row of the columnar tick data associated with this stock */
+    private transient int row;
 
     /**
      * Constructs a new StockTick for tick data associated with the ticker provided.  Initializes a
@@ -33,9 +48,9 @@ public class StockTick implements Serializable {
      * @param ticker The ticker associated with the tick data
      */
     public StockTick(String ticker) {
-        this.ticks = new ConcurrentHashMap<Integer, Number>();
-        this.ticker = ticker;
-        this.missingTicks = new HashSet<Integer>(Arrays.asList(TickTypes.requiredTicks));
+        this.columns = new TickColumns(1);
+        this.row = 0;
+        this.columns.init(this.row, ticker, TickTypes.asMask(TickTypes.requiredTicks));
     }
 
     /**
@@ -45,36 +60,121 @@ public class StockTick implements Serializable {
      */
     protected StockTick(StockTick tick) {
         this(tick.getTicker());
-        for (Integer tickType : tick.ticks.keySet()) {
-            this.addTick(tickType, tick.getTick(tickType));
-        }
+        this.copy(tick);
+    }
+
+    /**
+     * Returns a new StockTick with the same ticker and identical tick data as the StockTick provided.  The copy owns
+     * its tick data, so it does not keep the columnar tick data of a StockTickResults reachable as a view would.
+     *
+     * @param tick The StockTick to copy
+     */
+    public static StockTick copyOf(StockTick tick) {
+        return new StockTick(tick);
+    }
+
+    /**
+     * Constructs a new StockTick viewing the row specified of the columnar tick data provided.  Tick data added to
+     * this StockTick is stored directly in the row of the columnar tick data.
+     *
+     * @param columns The columnar tick data containing the values of this stock
+     * @param row The row of the columnar tick data associated with this stock
+     */
+    StockTick(TickColumns columns, int row) {
+        this.columns = columns;
+        this.row = row;
     }
 
     /**
      * Adds the tick data to this StockTick.  If the tick type already exists in this stock tick, overwrites the
-     * data with the new value.
+     * data with the new value.  Integer values are considered sizes and all other values are considered prices.
      *
      * @param tickType Integer tick type corresponding to the stock data provided
      * @param value Value associated with the tick type provided; value must not be null
      */
     public void addTick(int tickType, Number value) {
-        this.ticks.put(tickType, value);
-        this.missingTicks.remove(tickType);
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            this.addTick(tickType, value.intValue());
+        } else {
+            this.addTick(tickType, value.doubleValue());
+        }
+    }
+
+    /**
+     * Adds the size tick data to this StockTick.  If the tick type already exists in this stock tick, overwrites the
+     * data with the new value.  Tick types that are not tracked (see TickTypes) are ignored.
+     *
+     * @param tickType Integer tick type corresponding to the stock data provided
+     * @param size Size value associated with the tick type provided
+     */
+    public void addTick(int tickType, int size) {
+        this.columns.setSize(this.row, tickType, size);
+    }
+
+    /**
+     * Adds the price tick data to this StockTick.  If the tick type already exists in this stock tick, overwrites the
+     * data with the new value.  Tick types that are not tracked (see TickTypes) are ignored.
+     *
+     * @param tickType Integer tick type corresponding to the stock data provided
+     * @param price Price value associated with the tick type provided
+     */
+    public void addTick(int tickType, double price) {
+        this.columns.setPrice(this.row, tickType, price);
+    }
+
+    /**
+     * Overwrites the tick data of this StockTick with the tick data of the StockTick provided.  The ticker of this
+     * StockTick is left unchanged.
+     *
+     * @param tick The StockTick to copy the tick data of
+     */
+    void copy(StockTick tick) {
+        this.columns.copyRow(this.row, tick.columns, tick.row);
+    }
+
+    /**
+     * Returns the columnar tick data containing the values of this stock.
+     */
+    TickColumns getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Returns the row of the columnar tick data associated with this stock.
+     */
+    int getRow() {
+        return this.row;
     }
 
     /**
      * Retrieves the value associated to the tick type specified for this StockTick.
      *
      * @param tickType Integer tick type corresponding to the stock data to retrieve
-     * @return The value (as defined by the provided tick type, i.e. price, size) for this StockTick.
-     *         If no data exists under the tick type specified in this StockTick, null is returned instead.
+     * @return The value (as defined by the provided tick type, i.e. price, size) for this StockTick.  Sizes are
+     *         returned as Integers and prices as Doubles.  If no data exists under the tick type specified in this
+     *         StockTick, null is returned instead.
      */
     public Number getTick(int tickType) {
         if (!this.hasTick(tickType)) {
             return null;
         }
 
-        return this.ticks.get(tickType);
+        double value = this.columns.get(this.row, tickType);
+        if (this.columns.isSize(this.row, tickType)) {
+            return (int) value;
+        }
+        return value;
+    }
+
+    /**
+     * Retrieves the primitive value associated to the tick type specified for this StockTick without boxing.
+     *
+     * @param tickType Integer tick type corresponding to the stock data to retrieve
+     * @return The value (price or size) for this StockTick.  If no data exists under the tick type specified in
+     *         this StockTick, NaN is returned instead.
+     */
+    public double getTickValue(int tickType) {
+        return this.columns.get(this.row, tickType);
     }
 
     /**
@@ -84,7 +184,33 @@ public class StockTick implements Serializable {
      * @return True if this StockTick has tick data corresponding to the tick type specified and false otherwise
      */
     public boolean hasTick(int tickType) {
-        return this.ticks.containsKey(tickType);
+        return this.columns.has(this.row, tickType);
+    }
+
+    /**
+     * Checks whether this stock tick has market data for every tick type of the bitmask provided (see
+     * TickTypes.asMask).
+     *
+     * @param tickTypes Bitmask of the tick types corresponding to the stock data to verify
+     * @return True if this StockTick has tick data corresponding to every tick type specified and false otherwise
+     */
+    public boolean hasTicks(long tickTypes) {
+        return this.columns.hasAll(this.row, tickTypes);
+    }
+
+    /**
+     * Returns the bitmask of tick types this StockTick has market data for, where the bit at position tickType is set
+     * for every tick type present (see TickTypes.asMask).
+     */
+    public long getPresentTicks() {
+        return this.columns.getPresentTicks(this.row);
+    }
+
+    /**
+     * Returns the bitmask of tick types whose market data in this StockTick is a size rather than a price.
+     */
+    public long getSizeTicks() {
+        return this.columns.getSizeTicks(this.row);
     }
 
     /**
@@ -93,14 +219,16 @@ public class StockTick implements Serializable {
      * @return The String ticker associated with the stock tick data of this StockTick
      */
     public String getTicker() {
-        return this.ticker;
+        return this.columns.getTicker(this.row);
     }
 
     /**
-     * Returns true if this StockTick has data for all the required tick types, and false otherwise.
+     * Returns true if this StockTick has data for all the required tick types, and false otherwise.  The required
+     * tick types are those of TickTypes.requiredTicks unless the StockTickResults holding this StockTick requires
+     * otherwise (see StockTickResults.setRequiredTicks).
      */
     public boolean isComplete() {
-        return this.missingTicks.isEmpty();
+        return this.columns.isComplete(this.row);
     }
 
     @Override
@@ -129,7 +257,6 @@ public class StockTick implements Serializable {
      */
     public String toString() {
         StringBuilder builder = new StringBuilder();
-        Set<Integer> fields = new TreeSet<Integer>(this.ticks.keySet());
 
         if (this.getTicker() != null) {
             builder.append("Symbol: ");
@@ -137,13 +264,56 @@ public class StockTick implements Serializable {
             builder.append(System.lineSeparator());
         }
 
-        for (Integer field : fields) {
-            builder.append(TickTypes.asString(field));
-            builder.append(": ");
-            builder.append(this.ticks.get(field));
-            builder.append(System.lineSeparator());
+        for (int field = 0; field < TickTypes.NUM_TICK_TYPES; field++) {
+            if (this.hasTick(field)) {
+                builder.append(TickTypes.asString(field));
+                builder.append(": ");
+                builder.append(this.getTick(field));
+                builder.append(System.lineSeparator());
+            }
         }
 
         return builder.toString();
     }
+
+    /**
+     * Writes this StockTick in the original map-based serialized form.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        Map<Integer, Number> ticks = new ConcurrentHashMap<Integer, Number>();
+        Set<Integer> missingTicks = new HashSet<Integer>();
+
+        for (int tickType = 0; tickType < TickTypes.NUM_TICK_TYPES; tickType++) {
+            if (this.hasTick(tickType)) {
+                ticks.put(tickType, this.getTick(tickType));
+            } else if ((this.columns.getRequiredTicks(this.row) & (1L << tickType)) != 0) {
+                missingTicks.add(tickType);
+            }
+        }
+
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("ticks", ticks);
+        fields.put("ticker", this.getTicker());
+        fields.put("missingTicks", missingTicks);
+        out.writeFields();
+    }
+
+    /**
+     * Reads a StockTick serialized in the original map-based serialized form into primitive tick slots.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+
+        this.columns = new TickColumns(1);
+        this.row = 0;
+        this.columns.init(this.row, (String) fields.get("ticker", null), TickTypes.asMask(TickTypes.requiredTicks));
+
+        Map<Integer, Number> ticks = (Map<Integer, Number>) fields.get("ticks", null);
+        if (ticks != null) {
+            for (Map.Entry<Integer, Number> tick : ticks.entrySet()) {
+                this.addTick(tick.getKey(), tick.getValue());
+            }
+        }
+    }
 }
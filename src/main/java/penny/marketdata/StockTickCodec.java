@@ -0,0 +1,194 @@
+package main.java.penny.marketdata;
+
+import main.java.penny.constants.TickTypes;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * StockTickCodec represents the compact binary encoding of a StockTick.  A stock tick is encoded directly to and
+ * decoded directly from a ByteBuffer as primitives, without reflection and without the object graph metadata of Java
+ * serialization, so an encoded stock tick is a fraction of the size of its serialized form and much faster to read.
+ *
+ * A stock tick is encoded in the byte order of the buffer as follows:
+ *
+ *   Version (1 byte): the version of the encoding (VERSION)
+ *   Ticker: a length byte followed by up to 31 bytes of UTF-8
+ *   Present ticks (8 bytes): the bitmask of tick types the stock tick has tick data for
+ *   Size ticks (8 bytes): the bitmask of present tick types that are sizes rather than prices
+ *   Values: the value of each present tick type in ascending tick type order; 4 byte integers for sizes and 8 byte
+ *           doubles for prices
+ *
+ * Only tick data is encoded.  The required tick types of a stock tick are those of the StockTickResults holding it
+ * (see StockTickResults.setRequiredTicks), so a decoded stock tick requires the default tick types.
+ */
+public final class StockTickCodec {
+
+    /** Version of the encoding written by this codec */
+    public static final byte VERSION = 1;
+
+    /** Maximum number of UTF-8 bytes of an encoded ticker */
+    public static final int MAX_TICKER_BYTES = 31;
+
+    /** Maximum number of bytes of an encoded stock tick; a stock tick with every price present */
+    public static final int MAX_ENCODED_BYTES =
+            1 + 1 + MAX_TICKER_BYTES + Long.BYTES + Long.BYTES + TickTypes.NUM_TICK_TYPES * Double.BYTES;
+
+    /** Bitmask of every tracked tick type */
+    private static final long TRACKED_TICKS = (1L << TickTypes.NUM_TICK_TYPES) - 1;
+
+    private StockTickCodec() {}
+
+    /**
+     * Returns the number of bytes of the encoding of the stock tick provided.
+     *
+     * @throws IllegalArgumentException If the ticker of the stock tick is longer than MAX_TICKER_BYTES in UTF-8
+     */
+    public static int encodedLength(StockTick tick) {
+        long present = tick.getPresentTicks() & TRACKED_TICKS;
+        long sizes = tick.getSizeTicks() & present;
+        int values = Long.bitCount(sizes) * Integer.BYTES + Long.bitCount(present & ~sizes) * Double.BYTES;
+
+        return 1 + 1 + tickerBytes(tick.getTicker()).length + Long.BYTES + Long.BYTES + values;
+    }
+
+    /**
+     * Encodes the stock tick provided into the buffer specified, advancing the position of the buffer past the
+     * encoding.
+     *
+     * @param tick The stock tick to encode
+     * @param buffer The buffer to encode the stock tick into
+     * @throws IllegalArgumentException If the ticker of the stock tick is longer than MAX_TICKER_BYTES in UTF-8
+     * @throws java.nio.BufferOverflowException If the buffer has insufficient space remaining
+     */
+    public static void encode(StockTick tick, ByteBuffer buffer) {
+        byte[] ticker = tickerBytes(tick.getTicker());
+        long present = tick.getPresentTicks() & TRACKED_TICKS;
+        long sizes = tick.getSizeTicks() & present;
+
+        buffer.put(VERSION);
+        buffer.put((byte) ticker.length);
+        buffer.put(ticker);
+        buffer.putLong(present);
+        buffer.putLong(sizes);
+
+        for (long remaining = present; remaining != 0; remaining &= remaining - 1) {
+            int tickType = Long.numberOfTrailingZeros(remaining);
+            if ((sizes & (1L << tickType)) != 0) {
+                buffer.putInt((int) tick.getTickValue(tickType));
+            } else {
+                buffer.putDouble(tick.getTickValue(tickType));
+            }
+        }
+    }
+
+    /**
+     * Returns the encoding of the stock tick provided.
+     *
+     * @throws IllegalArgumentException If the ticker of the stock tick is longer than MAX_TICKER_BYTES in UTF-8
+     */
+    public static byte[] encode(StockTick tick) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedLength(tick));
+        encode(tick, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a stock tick from the buffer provided, advancing the position of the buffer past the encoding.
+     *
+     * @param buffer The buffer positioned at the encoding of a stock tick
+     * @return A new StockTick with the ticker and tick data of the encoding
+     * @throws IllegalArgumentException If the encoding is of an unsupported version or is malformed
+     * @throws java.nio.BufferUnderflowException If the buffer ends before the encoding does
+     */
+    public static StockTick decode(ByteBuffer buffer) {
+        StockTick tick = new StockTick(decodeTicker(buffer));
+        long present = buffer.getLong();
+        long sizes = buffer.getLong();
+        if ((present & ~TRACKED_TICKS) != 0 || (sizes & ~present) != 0) {
+            throw new IllegalArgumentException("Malformed stock tick encoding of " + tick.getTicker());
+        }
+
+        for (long remaining = present; remaining != 0; remaining &= remaining - 1) {
+            int tickType = Long.numberOfTrailingZeros(remaining);
+            if ((sizes & (1L << tickType)) != 0) {
+                tick.addTick(tickType, buffer.getInt());
+            } else {
+                tick.addTick(tickType, buffer.getDouble());
+            }
+        }
+        return tick;
+    }
+
+    /**
+     * Decodes a stock tick from the encoding provided.
+     *
+     * @throws IllegalArgumentException If the encoding is of an unsupported version or is malformed
+     */
+    public static StockTick decode(byte[] encoded) {
+        return decode(ByteBuffer.wrap(encoded));
+    }
+
+    /**
+     * Decodes only the version and ticker of the encoding of a stock tick from the buffer provided, advancing the
+     * position of the buffer to the present ticks of the encoding.
+     *
+     * @param buffer The buffer positioned at the encoding of a stock tick
+     * @return The ticker of the encoded stock tick
+     * @throws IllegalArgumentException If the encoding is of an unsupported version or is malformed
+     */
+    public static String decodeTicker(ByteBuffer buffer) {
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported stock tick encoding version: " + version);
+        }
+
+        int length = buffer.get() & 0xFF;
+        if (length > MAX_TICKER_BYTES) {
+            throw new IllegalArgumentException("Malformed stock tick encoding: ticker of " + length + " bytes");
+        }
+
+        byte[] ticker = new byte[length];
+        buffer.get(ticker);
+        return new String(ticker, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips the encoding of a stock tick in the buffer provided without decoding its tick data, advancing the
+     * position of the buffer past the encoding.
+     *
+     * @param buffer The buffer positioned at the encoding of a stock tick
+     * @return The ticker of the encoded stock tick
+     * @throws IllegalArgumentException If the encoding is of an unsupported version or is malformed
+     * @throws java.nio.BufferUnderflowException If the buffer ends before the encoding does
+     */
+    public static String skip(ByteBuffer buffer) {
+        String ticker = decodeTicker(buffer);
+        long present = buffer.getLong();
+        long sizes = buffer.getLong();
+        if ((present & ~TRACKED_TICKS) != 0 || (sizes & ~present) != 0) {
+            throw new IllegalArgumentException("Malformed stock tick encoding of " + ticker);
+        }
+
+        int values = Long.bitCount(sizes) * Integer.BYTES + Long.bitCount(present & ~sizes) * Double.BYTES;
+        if (values > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        buffer.position(buffer.position() + values);
+        return ticker;
+    }
+
+    /**
+     * Returns the UTF-8 bytes of the ticker provided.
+     *
+     * @throws IllegalArgumentException If the ticker is longer than MAX_TICKER_BYTES in UTF-8
+     */
+    private static byte[] tickerBytes(String ticker) {
+        byte[] bytes = ticker.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_TICKER_BYTES) {
+            throw new IllegalArgumentException("Ticker too long to encode: " + ticker);
+        }
+        return bytes;
+    }
+}
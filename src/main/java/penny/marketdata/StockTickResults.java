@@ -1,52 +1,126 @@
 package main.java.penny.marketdata;
 
+import java.util.AbstractCollection;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import com.ib.client.Contract;
+import main.java.penny.constants.TickTypes;
 
 /**
  * StockTickResults represents a collection of stock tick data results associated with market data tick requests.
  * Results can be accessed either by the stock ticker or integer market data identifier.  StockTickResults
  * provides a robust central location for stock tick data that accommodates concurrent updates and queries.
+ *
+ * Stock tick data is stored column by column in fixed-size blocks of primitive arrays (see TickColumns), with a
+ * single row per unique stock ticker.  Market data identifiers are mapped to rows through a dense integer table, so
+ * delivering a tick value costs two array loads and a primitive store.  Each row is exposed as a StockTick view
+ * sharing the underlying columns, and the columns can be read directly by row (see getRowCount and getColumn) to
+ * evaluate every stock without touching StockTick objects.
  */
 public class StockTickResults {
 
-    /** Map from integer market data identifier to StockTick data */
-    private ConcurrentHashMap<Integer, StockTick> results;
+    /** Number of rows in each block of columnar tick data (must be a power of two) */
+    private static final int BLOCK_SIZE = 1024;
 
-    /** Map from String stock ticker to associated integer market data identifier */
+    /** Shift converting a row into the index of the block containing it */
+    private static final int BLOCK_SHIFT = Integer.numberOfTrailingZeros(BLOCK_SIZE);
+
+    /** Initial size of the dense market data identifier table */
+    private static final int INITIAL_TICK_ID_CAPACITY = 256;
+
+    /** Largest market data identifier stored in the dense table; others are stored in the sparse map */
+    private static final int MAX_DENSE_TICK_ID = 1 << 20;
+
+    /** Row of a market data identifier not associated with any stock */
+    private static final int NO_ROW = -1;
+
+    /** Blocks of columnar tick data holding every row of these results */
+    private volatile TickColumns[] columns;
+
+    /** StockTick views of each row of these results, by block */
+    private volatile StockTick[][] views;
+
+    /** Number of rows (unique stock tickers) in these results */
+    private volatile int rowCount;
+
+    /** Dense table from non-negative integer market data identifier to row; NO_ROW if unassociated */
+    private volatile AtomicIntegerArray tickRows;
+
+    /** Map from market data identifiers outside the dense table to row */
+    private ConcurrentHashMap<Integer, Integer> sparseTickRows;
+
+    /** Map from String stock ticker to associated row */
     private ConcurrentHashMap<String, Integer> tickers;
 
+    /** Bitmask of tick types stock ticks added to these results require to be complete */
+    private volatile long requiredTicks;
+
     /**
      * Constructs a new StockTickResults with an empty collection of market data and stock tick data results.
      */
     public StockTickResults() {
-        this.results = new ConcurrentHashMap<Integer, StockTick>();
+        this.columns = new TickColumns[0];
+        this.views = new StockTick[0][];
+        this.rowCount = 0;
+        this.tickRows = newTickRows(INITIAL_TICK_ID_CAPACITY);
+        this.sparseTickRows = new ConcurrentHashMap<Integer, Integer>();
         this.tickers = new ConcurrentHashMap<String, Integer>();
+        this.requiredTicks = TickTypes.asMask(TickTypes.requiredTicks);
     }
 
     /**
      * Adds a new stock tick associated to the market data request identifier and the contract specified.  If the
-     * same stock ticker has results from a previous market data request, the stock data is now only associated with
-     * the new market data identifier (tickId).
+     * same stock ticker has results from a previous market data request, the existing stock data is now also
+     * associated with the new market data identifier (tickId).  The stock tick requires the tick types currently
+     * required by these results to be complete.
      *
      * @param tickId Integer corresponding to the market data identifier for stock data updates
      * @param contract Stock contract associated to the market data subscription
      */
-    public void addStockTick(int tickId, Contract contract) {
-        StockTick tick;
-        // If we've already added this StockTick, we want to modify the same StockTick instance even with the new tickId
-        if (this.hasTicker(contract.symbol())) {
-            int existingTickID = this.tickers.get(contract.symbol());
-            tick = this.results.get(existingTickID);
-        } else {
-            tick = new StockTick(contract.symbol());
+    public synchronized void addStockTick(int tickId, Contract contract) {
+        int row = this.rowOf(contract.symbol());
+        this.columns[row >>> BLOCK_SHIFT].setRequiredTicks(row & (BLOCK_SIZE - 1), this.requiredTicks);
+        this.bindTickId(tickId, row);
+    }
+
+    /**
+     * Sets the tick types stock ticks subsequently added to these results require to be complete, such as the tick
+     * types consumed by the active classifier (see Classifier.getRequiredTicks).  Market data requests complete as
+     * soon as their stock tick is complete, so requiring fewer tick types completes requests earlier.
+     *
+     * @param requiredTicks Bitmask of the required tick types (see TickTypes.asMask)
+     */
+    public void setRequiredTicks(long requiredTicks) {
+        this.requiredTicks = requiredTicks;
+    }
+
+    /**
+     * Returns the bitmask of tick types stock ticks added to these results require to be complete.
+     */
+    public long getRequiredTicks() {
+        return this.requiredTicks;
+    }
+
+    /**
+     * Releases the market data identifier provided from these results.  The stock data previously associated with
+     * the identifier remains in these results (accessible by ticker), but further tick data delivered under the
+     * identifier is rejected until it is associated with a stock again.  Allows market data identifiers to be
+     * recycled once their market data requests are cancelled.
+     *
+     * @param tickId Integer market data identifier to release
+     * @return True if the market data identifier was associated with a stock in these results, and false otherwise
+     */
+    public synchronized boolean releaseTickId(int tickId) {
+        if (isDense(tickId)) {
+            AtomicIntegerArray rows = this.tickRows;
+            return tickId < rows.length() && rows.getAndSet(tickId, NO_ROW) != NO_ROW;
         }
 
-        this.results.put(tickId, tick);
-        this.tickers.put(contract.symbol(), tickId);
+        return this.sparseTickRows.remove(tickId) != null;
     }
 
     /**
@@ -60,24 +134,64 @@ public class StockTickResults {
      *         with the stock was able to be updated, and false otherwise
      */
     public boolean addTickResult(int tickId, int tickType, Number value) {
-        if (!this.hasStockTick(tickId)) {
+        StockTick tick = this.getStockTick(tickId);
+        if (tick == null) {
             return false;
         }
-        StockTick tick = this.results.get(tickId);
         tick.addTick(tickType, value);
         return true;
     }
 
+    /**
+     * Adds the individual price tick data to the stock associated with the market data identifier provided without
+     * boxing the price.  Updates and overwrites any previous data for that stock associated with the same tick type.
+     *
+     * @param tickId Integer market data identifier associated with this tick update
+     * @param tickType Integer tick type corresponding to the stock data to update
+     * @param price Price of the stock for this particular tick type
+     * @return True if the market data identifier provided exists in these stock results and the tick data associated
+     *         with the stock was able to be updated, and false otherwise
+     */
+    public boolean addTickResult(int tickId, int tickType, double price) {
+        int row = this.getRow(tickId);
+        if (row == NO_ROW) {
+            return false;
+        }
+        this.columns[row >>> BLOCK_SHIFT].setPrice(row & (BLOCK_SIZE - 1), tickType, price);
+        return true;
+    }
+
+    /**
+     * Adds the individual size tick data to the stock associated with the market data identifier provided without
+     * boxing the size.  Updates and overwrites any previous data for that stock associated with the same tick type.
+     *
+     * @param tickId Integer market data identifier associated with this tick update
+     * @param tickType Integer tick type corresponding to the stock data to update
+     * @param size Size of the stock for this particular tick type
+     * @return True if the market data identifier provided exists in these stock results and the tick data associated
+     *         with the stock was able to be updated, and false otherwise
+     */
+    public boolean addTickResult(int tickId, int tickType, int size) {
+        int row = this.getRow(tickId);
+        if (row == NO_ROW) {
+            return false;
+        }
+        this.columns[row >>> BLOCK_SHIFT].setSize(row & (BLOCK_SIZE - 1), tickType, size);
+        return true;
+    }
+
     /**
      * Copies the provided stock tick and stores it in these stock tick results associated with the
-     * market data identifier provided.
+     * market data identifier provided.  Overwrites any existing stock data with the same ticker.
      *
      * @param tickId Integer market data identifier associated with this stock
-     * @param tick StockTick to ocpy into these results
+     * @param tick StockTick to copy into these results
      */
-    public void copyStockTick(int tickId, StockTick tick) {
-        this.results.put(tickId, new StockTick(tick));
-        this.tickers.put(tick.getTicker(), tickId);
+    public synchronized void copyStockTick(int tickId, StockTick tick) {
+        int row = this.rowOf(tick.getTicker());
+        StockTick view = this.views[row >>> BLOCK_SHIFT][row & (BLOCK_SIZE - 1)];
+        view.copy(tick);
+        this.bindTickId(tickId, row);
     }
 
     /**
@@ -88,11 +202,7 @@ public class StockTickResults {
      *         market data identifier provided in these stock results, null is returned instead
      */
     public StockTick getStockTick(int tickId) {
-        if (!this.hasStockTick(tickId)) {
-            return null;
-        }
-
-        return this.results.get(tickId);
+        return this.getView(this.getRow(tickId));
     }
 
     /**
@@ -103,31 +213,59 @@ public class StockTickResults {
      *         results, null is returned instead
      */
     public StockTick getStockTick(String ticker) {
-        if (!this.hasTicker(ticker)) {
+        Integer row = this.tickers.get(ticker);
+        if (row == null) {
             return null;
         }
 
-        return this.getStockTick(this.tickers.get(ticker));
+        return this.getView(row);
     }
 
     /**
-     * Retrieves all the individual stock tick data from these stock tick results.
+     * Retrieves all the individual stock tick data from these stock tick results.  Contains a single StockTick for
+     * each unique stock ticker regardless of how many market data identifiers were associated with it.
      *
      * @return An unmodifiable collection of StockTicks contained in these results
      */
     public Collection<StockTick> getStockTicks() {
-        return Collections.unmodifiableCollection(this.results.values());
+        final int size = this.rowCount;
+        return new AbstractCollection<StockTick>() {
+            @Override
+            public Iterator<StockTick> iterator() {
+                return new Iterator<StockTick>() {
+                    private int row = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.row < size;
+                    }
+
+                    @Override
+                    public StockTick next() {
+                        if (!this.hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return getView(this.row++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     /**
      * Checks whether these StockTickResults has stock tick data associated with the market data identifier provided.
      *
-     * @param tickType Integer corresponding to the market data identifier of the stock to verify
+     * @param tickId Integer corresponding to the market data identifier of the stock to verify
      * @return True if these StockTickResults contain stock tick data associated to the market data identifier
      *         specified, and false otherwise
      */
-    public boolean hasStockTick(int tickType) {
-        return this.results.containsKey(tickType);
+    public boolean hasStockTick(int tickId) {
+        return this.getRow(tickId) != NO_ROW;
     }
 
     /**
@@ -139,4 +277,162 @@ public class StockTickResults {
     public boolean hasTicker(String ticker) {
         return this.tickers.containsKey(ticker);
     }
+
+    /**
+     * Returns the number of rows (unique stock tickers) in these results.  Rows are numbered from zero and a row
+     * is never removed, so rows below the count returned remain valid.
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Returns the stock ticker of the row specified.
+     */
+    public String getRowTicker(int row) {
+        return this.columns[row >>> BLOCK_SHIFT].getTicker(row & (BLOCK_SIZE - 1));
+    }
+
+    /**
+     * Returns true if the row specified has a value for every required tick type, and false otherwise.
+     */
+    public boolean isRowComplete(int row) {
+        return this.columns[row >>> BLOCK_SHIFT].isComplete(row & (BLOCK_SIZE - 1));
+    }
+
+    /**
+     * Returns the value of the tick type specified for the row provided, or NaN if the row has no such tick.
+     */
+    public double getRowTickValue(int row, int tickType) {
+        return this.columns[row >>> BLOCK_SHIFT].get(row & (BLOCK_SIZE - 1), tickType);
+    }
+
+    /**
+     * Copies the values of the tick type specified for every row of these results into a new primitive array.
+     *
+     * @param tickType Integer tick type of the column to retrieve
+     * @return Array of the tick values indexed by row; rows without a value for the tick type are NaN
+     */
+    public double[] getColumn(int tickType) {
+        int size = this.rowCount;
+        TickColumns[] blocks = this.columns;
+        double[] column = new double[size];
+
+        for (int row = 0; row < size; row++) {
+            column[row] = blocks[row >>> BLOCK_SHIFT].get(row & (BLOCK_SIZE - 1), tickType);
+        }
+
+        return column;
+    }
+
+    /**
+     * Returns the row associated with the market data identifier provided, or NO_ROW if there is none.
+     */
+    private int getRow(int tickId) {
+        if (isDense(tickId)) {
+            AtomicIntegerArray rows = this.tickRows;
+            return tickId < rows.length() ? rows.get(tickId) : NO_ROW;
+        }
+
+        return this.sparseTickRows.getOrDefault(tickId, NO_ROW);
+    }
+
+    /**
+     * Returns the StockTick view of the row specified, or null if the row is NO_ROW.
+     */
+    private StockTick getView(int row) {
+        if (row == NO_ROW) {
+            return null;
+        }
+
+        return this.views[row >>> BLOCK_SHIFT][row & (BLOCK_SIZE - 1)];
+    }
+
+    /**
+     * Returns the row of the stock ticker provided, allocating a new row for the ticker if it has none.  Must be
+     * called while holding the lock of these results.
+     */
+    private int rowOf(String ticker) {
+        Integer existing = this.tickers.get(ticker);
+        if (existing != null) {
+            return existing;
+        }
+
+        int row = this.rowCount;
+        int block = row >>> BLOCK_SHIFT;
+        int offset = row & (BLOCK_SIZE - 1);
+
+        if (block == this.columns.length) {
+            this.growBlocks();
+        }
+
+        TickColumns blockColumns = this.columns[block];
+        blockColumns.init(offset, ticker, this.requiredTicks);
+        this.views[block][offset] = new StockTick(blockColumns, offset);
+
+        // Publish the row only once it is fully initialized
+        this.rowCount = row + 1;
+        this.tickers.put(ticker, row);
+        return row;
+    }
+
+    /**
+     * Adds a new block of rows to these results.  Must be called while holding the lock of these results.
+     */
+    private void growBlocks() {
+        int blocks = this.columns.length;
+
+        TickColumns[] columns = new TickColumns[blocks + 1];
+        System.arraycopy(this.columns, 0, columns, 0, blocks);
+        columns[blocks] = new TickColumns(BLOCK_SIZE);
+
+        StockTick[][] views = new StockTick[blocks + 1][];
+        System.arraycopy(this.views, 0, views, 0, blocks);
+        views[blocks] = new StockTick[BLOCK_SIZE];
+
+        this.views = views;
+        this.columns = columns;
+    }
+
+    /**
+     * Associates the market data identifier provided with the row specified.  Must be called while holding the lock
+     * of these results.
+     */
+    private void bindTickId(int tickId, int row) {
+        if (!isDense(tickId)) {
+            this.sparseTickRows.put(tickId, row);
+            return;
+        }
+
+        AtomicIntegerArray rows = this.tickRows;
+        if (tickId >= rows.length()) {
+            AtomicIntegerArray grown = newTickRows(Math.min(Math.max(tickId + 1, rows.length() * 2),
+                    MAX_DENSE_TICK_ID + 1));
+            for (int i = 0; i < rows.length(); i++) {
+                grown.set(i, rows.get(i));
+            }
+            this.tickRows = grown;
+            rows = grown;
+        }
+
+        rows.set(tickId, row);
+    }
+
+    /**
+     * Returns true if the market data identifier provided is stored in the dense table, and false otherwise.
+     */
+    private static boolean isDense(int tickId) {
+        return tickId >= 0 && tickId <= MAX_DENSE_TICK_ID;
+    }
+
+    /**
+     * Creates a new dense market data identifier table of the size provided with no associated rows.
+     */
+    private static AtomicIntegerArray newTickRows(int size) {
+        AtomicIntegerArray rows = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            rows.lazySet(i, NO_ROW);
+        }
+        return rows;
+    }
 }
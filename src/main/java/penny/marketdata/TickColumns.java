@@ -0,0 +1,203 @@
+package main.java.penny.marketdata;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import main.java.penny.constants.TickTypes;
+
+/**
+ * TickColumns represents a fixed-capacity block of stock tick data stored as a structure of primitive arrays.  Each
+ * row of the block holds the tick data of a single stock and each tick type is stored in its own contiguous primitive
+ * column.  The presence of each tick type in a row (and whether the value is a size rather than a price) is tracked
+ * with atomically updated bitmasks, so rows can be updated concurrently without locking or allocating.
+ *
+ * A row publishes a tick value by setting its presence bit after the value is written.  Readers that observe the
+ * presence bit are guaranteed to observe the value.
+ */
+final class TickColumns {
+
+    /** The number of rows in this block */
+    private final int capacity;
+
+    /** Tick values for every row of this block stored column by column i.e. values[tickType * capacity + row] */
+    private final double[] values;
+
+    /** Bitmasks of the tick types present in each row */
+    private final AtomicLongArray presentTicks;
+
+    /** Bitmasks of the tick types in each row holding sizes (integers) rather than prices */
+    private final AtomicLongArray sizeTicks;
+
+    /** Bitmasks of the tick types each row requires to be complete */
+    private final long[] requiredTicks;
+
+    /** The stock ticker of each row */
+    private final String[] tickers;
+
+    /**
+     * Constructs a new empty block of tick data with the number of rows specified.
+     *
+     * @param capacity The number of rows (stocks) this block holds
+     */
+    TickColumns(int capacity) {
+        this.capacity = capacity;
+        this.values = new double[TickTypes.NUM_TICK_TYPES * capacity];
+        this.presentTicks = new AtomicLongArray(capacity);
+        this.sizeTicks = new AtomicLongArray(capacity);
+        this.requiredTicks = new long[capacity];
+        this.tickers = new String[capacity];
+    }
+
+    /**
+     * Initializes the row specified for the stock ticker provided requiring the tick types in the bitmask given.
+     * Must be called before the row is made visible to other threads.
+     */
+    void init(int row, String ticker, long requiredTicks) {
+        this.tickers[row] = ticker;
+        this.requiredTicks[row] = requiredTicks;
+    }
+
+    /**
+     * Sets the size value of the tick type specified for the row provided.  Untracked tick types are ignored.
+     */
+    void setSize(int row, int tickType, int size) {
+        if (!TickTypes.isTracked(tickType)) {
+            return;
+        }
+
+        long bit = 1L << tickType;
+        this.values[tickType * this.capacity + row] = size;
+        setBits(this.sizeTicks, row, bit);
+        setBits(this.presentTicks, row, bit); // Publish the value last
+    }
+
+    /**
+     * Sets the price value of the tick type specified for the row provided.  Untracked tick types are ignored.
+     */
+    void setPrice(int row, int tickType, double price) {
+        if (!TickTypes.isTracked(tickType)) {
+            return;
+        }
+
+        long bit = 1L << tickType;
+        this.values[tickType * this.capacity + row] = price;
+        clearBits(this.sizeTicks, row, bit);
+        setBits(this.presentTicks, row, bit); // Publish the value last
+    }
+
+    /**
+     * Returns the value of the tick type specified for the row provided, or NaN if the row has no such tick.
+     */
+    double get(int row, int tickType) {
+        if (!this.has(row, tickType)) {
+            return Double.NaN;
+        }
+
+        return this.values[tickType * this.capacity + row];
+    }
+
+    /**
+     * Returns true if the row provided has a value for the tick type specified, and false otherwise.
+     */
+    boolean has(int row, int tickType) {
+        return TickTypes.isTracked(tickType) && (this.presentTicks.get(row) & (1L << tickType)) != 0;
+    }
+
+    /**
+     * Returns the bitmask of tick types the row provided has a value for.
+     */
+    long getPresentTicks(int row) {
+        return this.presentTicks.get(row);
+    }
+
+    /**
+     * Returns the bitmask of tick types whose value for the row provided is a size.
+     */
+    long getSizeTicks(int row) {
+        return this.sizeTicks.get(row) & this.presentTicks.get(row);
+    }
+
+    /**
+     * Returns true if the value of the tick type specified for the row provided is a size, and false otherwise.
+     */
+    boolean isSize(int row, int tickType) {
+        return (this.sizeTicks.get(row) & (1L << tickType)) != 0;
+    }
+
+    /**
+     * Returns true if the row provided has a value for every tick type it requires, and false otherwise.
+     */
+    boolean isComplete(int row) {
+        long required = this.requiredTicks[row];
+        return (this.presentTicks.get(row) & required) == required;
+    }
+
+    /**
+     * Sets the bitmask of tick types the row provided requires to be complete.
+     */
+    void setRequiredTicks(int row, long requiredTicks) {
+        this.requiredTicks[row] = requiredTicks;
+    }
+
+    /**
+     * Returns true if the row provided has a value for every tick type of the bitmask specified, and false otherwise.
+     */
+    boolean hasAll(int row, long tickTypes) {
+        return (this.presentTicks.get(row) & tickTypes) == tickTypes;
+    }
+
+    /**
+     * Returns the bitmask of tick types the row provided requires to be complete.
+     */
+    long getRequiredTicks(int row) {
+        return this.requiredTicks[row];
+    }
+
+    /**
+     * Returns the stock ticker of the row provided.
+     */
+    String getTicker(int row) {
+        return this.tickers[row];
+    }
+
+    /**
+     * Overwrites the tick data of the row specified with the tick data of the source row provided.  The ticker of
+     * the row is left unchanged.
+     *
+     * @param row The row of this block to overwrite
+     * @param source The block containing the tick data to copy
+     * @param sourceRow The row of the source block to copy
+     */
+    void copyRow(int row, TickColumns source, int sourceRow) {
+        // Read the presence before the values so every copied value is one that has been published
+        long present = source.presentTicks.get(sourceRow);
+        long sizes = source.sizeTicks.get(sourceRow) & present;
+
+        for (int tickType = 0; tickType < TickTypes.NUM_TICK_TYPES; tickType++) {
+            this.values[tickType * this.capacity + row] = source.values[tickType * source.capacity + sourceRow];
+        }
+
+        this.requiredTicks[row] = source.requiredTicks[sourceRow];
+        this.sizeTicks.set(row, sizes);
+        this.presentTicks.set(row, present);
+    }
+
+    /**
+     * Atomically sets the bits provided in the bitmask of the row specified.
+     */
+    private static void setBits(AtomicLongArray masks, int row, long bits) {
+        long current;
+        do {
+            current = masks.get(row);
+        } while ((current & bits) != bits && !masks.compareAndSet(row, current, current | bits));
+    }
+
+    /**
+     * Atomically clears the bits provided in the bitmask of the row specified.
+     */
+    private static void clearBits(AtomicLongArray masks, int row, long bits) {
+        long current;
+        do {
+            current = masks.get(row);
+        } while ((current & bits) != 0 && !masks.compareAndSet(row, current, current & ~bits));
+    }
+}
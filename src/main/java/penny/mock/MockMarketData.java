@@ -2,8 +2,6 @@ package main.java.penny.mock;
 
 import com.ib.client.Contract;
 import main.java.penny.Broker;
-import main.java.penny.concurrent.Lock;
-import main.java.penny.concurrent.LockManager;
 import main.java.penny.constants.MarketDataConstants;
 import main.java.penny.marketdata.MarketData;
 
@@ -18,6 +16,9 @@ import static main.java.penny.constants.TickTypes.*;
  * with the actual broker and delivers random, simulated market data instead for requests.
  * The market data can be configured so it delivers synchronously or asynchronously in parallel.
  *
+ * Snapshot requests are modelled on the broker: a snapshot delivers only the standard tick types (never the generic
+ * ticks) and then ends with tickSnapshotEnd.
+ *
  * Leveraged for program demonstration and testing purposes.
  */
 public class MockMarketData extends MarketData {
@@ -62,26 +63,23 @@ public class MockMarketData extends MarketData {
     }
 
     @Override
-    public void requestMarketData(String ticker) {
-        Contract contract = contract(ticker);
-        int tickId = this.getNextMarketDataId();
-
-        this.tickers.add(ticker);
-        this.activeMarketData.put(tickId, System.currentTimeMillis());
-
-        this.addStockTick(tickId, contract);
-
-        Lock lock = LockManager.getInstance().getLock(tickId);
-        lock.lock();
-
+    protected void sendMarketDataRequest(int tickId, Contract contract) {
         // Mock market data requests here (can create a thread to fake market data)
         this.deliverMarketData(tickId);
     }
 
     @Override
-    public void cancelMarketData(int tickId) {
-        this.removeActiveMarketData(tickId);
-        this.maybeNotifyAllDataDelivered();
+    protected void sendMarketSnapshotRequest(int tickId, Contract contract) {
+        if (this.isDeliveringInParallel) {
+            // The snapshot must only end after all its market data has delivered, so deliver it on a single thread
+            addAndStart(new Thread(() -> deliverMarketSnapshot(tickId)));
+        } else {
+            deliverMarketSnapshot(tickId);
+        }
+    }
+
+    @Override
+    protected void sendMarketDataCancel(int tickId) {
         Broker.getInstance().getWrapper().marketDataType(tickId, MarketDataConstants.MARKET_DATA_TYPE);
     }
 
@@ -156,6 +154,30 @@ public class MockMarketData extends MarketData {
         }
     }
 
+    /**
+     * Delivers the standard tick types of a snapshot to the market data identifier specified and then ends the
+     * snapshot.  The generic ticks (average volume and 13 week prices) are never delivered to snapshots.
+     *
+     * @param tickId The market data identifier associated with the stock to deliver the snapshot to
+     */
+    private void deliverMarketSnapshot(int tickId) {
+        int volume = rng.nextInt(MAX_MOCK_VOLUME);
+
+        double open = rng.nextDouble() * MAX_MOCK_PRICE;
+        double last = rng.nextDouble() * MAX_MOCK_PRICE;
+
+        double low = Math.min(Math.min(open, last), rng.nextDouble() * MAX_MOCK_PRICE);
+        double high = Math.max(Math.max(open, last), rng.nextDouble() * MAX_MOCK_PRICE);
+
+        deliver(tickId, open, OPEN);
+        deliver(tickId, last, LAST);
+        deliver(tickId, low, LOW);
+        deliver(tickId, high, HIGH);
+        deliver(tickId, volume, VOLUME);
+
+        Broker.getInstance().getWrapper().tickSnapshotEnd(tickId);
+    }
+
     /**
      * Delivers the integer size value to the stock associated with the market data identifier provided for
      * the particular tick type.
@@ -1,14 +1,13 @@
 package main.java.penny.models;
 
+import main.java.penny.constants.TickTypes;
 import main.java.penny.marketdata.StockTick;
 import main.java.penny.models.classification.ClassificationResult;
-import weka.core.Instance;
 
 import java.util.List;
 
 /**
- * Classifier represents an interface for classifying individual StockTicks and building live
- * actual data instances for a provided StockTick.
+ * Classifier represents an interface for classifying individual StockTicks.
  */
 public interface Classifier {
 
@@ -24,13 +23,28 @@ public interface Classifier {
     public ClassificationResult classify(StockTick tick);
 
     /**
-     * Builds an actual data instance of the StockTick provided.  A StockTick data instance corresponds to a
-     * StockTick data point with all required features that this classifier expects.
+     * Classifies every StockTick provided, returning the percentage (probability) that each StockTick is a pump and
+     * dump.  Implementations that are safe to classify concurrently should override this to classify in parallel;
+     * by default, each StockTick is classified in turn.
      *
-     * @param tick The StockTick to build an actual data instance from
-     * @return A new data instance containing the required model features based on the StockTick provided.  If
-     *         a data instance cannot be created, null is returned instead
+     * @param ticks The StockTicks to classify as either pump and dump stocks or not
+     * @return The classification percentage of each StockTick in the order provided; the percentage of a StockTick
+     *         that cannot be classified is the invalid percentage (-1)
      */
-    public Instance buildInstanceOf(StockTick tick);
+    public default double[] classifyBatch(List<StockTick> ticks) {
+        double[] percentages = new double[ticks.size()];
+        for (int i = 0; i < percentages.length; i++) {
+            percentages[i] = this.classify(ticks.get(i)).getPercentage();
+        }
+        return percentages;
+    }
 
+    /**
+     * Returns the bitmask of the tick types (see TickTypes.asMask) this classifier consumes.  A StockTick with every
+     * one of these tick types can be classified, so market data requests for the classifier complete as soon as
+     * they are delivered (see MarketData.setRequiredTicks).  By default, every tick type of TickTypes.requiredTicks.
+     */
+    public default long getRequiredTicks() {
+        return TickTypes.asMask(TickTypes.requiredTicks);
+    }
 }
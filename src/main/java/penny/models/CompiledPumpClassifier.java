@@ -0,0 +1,148 @@
+package main.java.penny.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import main.java.penny.constants.ResourceConstants;
+import main.java.penny.marketdata.StockTick;
+import main.java.penny.models.classification.ClassificationResult;
+
+/**
+ * CompiledPumpClassifier represents the pump and dump classifier (see PumpClassifier) loaded from its compiled model
+ * artifact rather than from Weka.  Loading the artifact neither parses the training data nor deserializes the Weka
+ * model, and classifying never touches Weka, so the classifier starts quickly with a small heap footprint.
+ *
+ * The artifact is exported from a PumpClassifier whose compiled form reproduces the Weka model exactly, so the
+ * probabilities are identical to those of PumpClassifier.  Stock ticks with non-finite feature values (such as a
+ * stock with no opening price) are invalid, just as they are for PumpClassifier.
+ */
+public class CompiledPumpClassifier implements Classifier {
+
+    /** File location of the compiled model artifact exported from the logistic regression model */
+    public static final String MODEL_ARTIFACT = ResourceConstants.MODEL_FILE_PATH + "PumpClassifier.pnym";
+
+    /** Classpath resource name of the compiled model artifact */
+    public static final String MODEL_ARTIFACT_RESOURCE = "/models/PumpClassifier.pnym";
+
+    /** Number of rows below which a batch of data points is classified sequentially */
+    private static final int BATCH_SEQUENTIAL_CUTOFF = 512;
+
+    /** Compiled form of the logistic regression model and its standardization */
+    private final LogisticScorer scorer;
+
+    /**
+     * Constructs a new CompiledPumpClassifier scoring stock ticks with the compiled model provided.
+     *
+     * @param scorer The compiled model with one coefficient per pump and dump feature (see PumpFeatures)
+     * @throws IllegalArgumentException If the compiled model does not have one coefficient per feature
+     */
+    public CompiledPumpClassifier(LogisticScorer scorer) {
+        if (scorer.getNumFeatures() != PumpFeatures.NUM_FEATURES) {
+            throw new IllegalArgumentException("Compiled model has " + scorer.getNumFeatures() + " features, expected "
+                    + PumpFeatures.NUM_FEATURES);
+        }
+        this.scorer = scorer;
+    }
+
+    /**
+     * Loads the compiled model artifact, memory-mapping it from its default file location if it exists and reading
+     * it from the classpath otherwise.
+     *
+     * @return The classifier of the compiled model artifact, or null if there is no artifact to load
+     * @throws IOException If the artifact exists but cannot be read
+     */
+    public static CompiledPumpClassifier load() throws IOException {
+        File artifact = new File(MODEL_ARTIFACT);
+        LogisticScorer scorer = artifact.isFile() ? ModelArtifact.map(artifact)
+                                                  : ModelArtifact.readResource(MODEL_ARTIFACT_RESOURCE);
+
+        return scorer == null ? null : new CompiledPumpClassifier(scorer);
+    }
+
+    @Override
+    public ClassificationResult classify(StockTick tick) {
+        double[] features = new double[PumpFeatures.NUM_FEATURES];
+        if (!PumpFeatures.hasRequiredTicks(tick) || !PumpFeatures.extract(tick, features)) {
+            return ClassificationResult.INVALID;
+        }
+
+        return new ClassificationResult(this.scorer.score(features));
+    }
+
+    @Override
+    public long getRequiredTicks() {
+        return PumpFeatures.REQUIRED_TICKS;
+    }
+
+    /**
+     * Classifies every StockTick provided in parallel across the common fork-join pool.  This method is thread-safe.
+     */
+    @Override
+    public double[] classifyBatch(List<StockTick> ticks) {
+        FeatureMatrix features = new FeatureMatrix(PumpFeatures.NUM_FEATURES, ticks.size());
+        double[] percentages = new double[ticks.size()];
+
+        ForkJoinPool.commonPool().invoke(new BatchTask(ticks, features, 0, ticks.size(), percentages));
+        return percentages;
+    }
+
+    /**
+     * BatchTask represents classifying a range of stock ticks in parallel leveraging divide-and-conquer.  Splits the
+     * range in half until it is below the sequential cutoff, where the features of the range are extracted and
+     * scored by the compiled model.
+     */
+    private class BatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The stock ticks to classify by row */
+        private final List<StockTick> ticks;
+
+        /** The feature matrix of the stock ticks to classify */
+        private final FeatureMatrix features;
+
+        /** The low row of the range to classify (inclusive) */
+        private final int low;
+
+        /** The high row of the range to classify (exclusive) */
+        private final int high;
+
+        /** The probability of each stock tick by row */
+        private final double[] percentages;
+
+        BatchTask(List<StockTick> ticks, FeatureMatrix features, int low, int high, double[] percentages) {
+            this.ticks = ticks;
+            this.features = features;
+            this.low = low;
+            this.high = high;
+            this.percentages = percentages;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.high - this.low > BATCH_SEQUENTIAL_CUTOFF) {
+                int mid = this.low + (this.high - this.low) / 2;
+                invokeAll(new BatchTask(this.ticks, this.features, this.low, mid, this.percentages),
+                        new BatchTask(this.ticks, this.features, mid, this.high, this.percentages));
+                return;
+            }
+
+            PumpFeatures.extract(this.ticks, this.features, this.low, this.high);
+            CompiledPumpClassifier.this.scorer.score(this.features.getColumns(), this.low, this.high,
+                    this.percentages);
+
+            double[] row = new double[PumpFeatures.NUM_FEATURES];
+            for (int i = this.low; i < this.high; i++) {
+                for (int feature = 0; feature < row.length; feature++) {
+                    row[feature] = this.features.get(i, feature);
+                }
+                if (!this.features.isValid(i) || !PumpFeatures.isFinite(row)) {
+                    this.percentages[i] = ClassificationResult.INVALID.getPercentage();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package main.java.penny.models;
+
+/**
+ * FeatureMatrix represents a block of data points stored column by column: one primitive array of values per feature,
+ * indexed by row.  Rows whose data point could not be built (for example, from an incomplete StockTick) are marked
+ * invalid and are never classified.
+ *
+ * Columns can be filled by many threads at once as long as each thread fills distinct rows.
+ */
+public class FeatureMatrix {
+
+    /** Values of each feature, by feature then row */
+    private final double[][] columns;
+
+    /** True for each row holding a valid data point */
+    private final boolean[] valid;
+
+    /**
+     * Constructs a new FeatureMatrix of the dimensions specified with every value zero and every row valid.
+     *
+     * @param numFeatures The number of features (columns) of each data point
+     * @param rowCount The number of data points (rows)
+     */
+    public FeatureMatrix(int numFeatures, int rowCount) {
+        this.columns = new double[numFeatures][rowCount];
+        this.valid = new boolean[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            this.valid[row] = true;
+        }
+    }
+
+    /**
+     * Returns the number of features (columns) of each data point in this matrix.
+     */
+    public int getNumFeatures() {
+        return this.columns.length;
+    }
+
+    /**
+     * Returns the number of data points (rows) in this matrix.
+     */
+    public int getRowCount() {
+        return this.valid.length;
+    }
+
+    /**
+     * Returns the value of the feature specified for the data point of the row provided.
+     *
+     * @param row The row of the data point
+     * @param feature The index of the feature
+     */
+    public double get(int row, int feature) {
+        return this.columns[feature][row];
+    }
+
+    /**
+     * Sets the value of the feature specified for the data point of the row provided.
+     *
+     * @param row The row of the data point
+     * @param feature The index of the feature
+     * @param value The value of the feature
+     */
+    public void set(int row, int feature, double value) {
+        this.columns[feature][row] = value;
+    }
+
+    /**
+     * Returns the column of values of the feature specified, indexed by row.  The column is shared with this matrix
+     * rather than copied.
+     *
+     * @param feature The index of the feature
+     */
+    public double[] getColumn(int feature) {
+        return this.columns[feature];
+    }
+
+    /**
+     * Returns every column of this matrix, indexed by feature then row.  The columns are shared with this matrix
+     * rather than copied.
+     */
+    double[][] getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Returns true if the row provided holds a valid data point, and false otherwise.
+     *
+     * @param row The row of the data point
+     */
+    public boolean isValid(int row) {
+        return this.valid[row];
+    }
+
+    /**
+     * Marks whether the row provided holds a valid data point.
+     *
+     * @param row The row of the data point
+     * @param valid True if the row holds a valid data point, and false otherwise
+     */
+    public void setValid(int row, boolean valid) {
+        this.valid[row] = valid;
+    }
+}
@@ -0,0 +1,26 @@
+package main.java.penny.models;
+
+/**
+ * LinearPredictorKernel represents the inner loop of scoring a feature matrix with a linear model: standardizing a
+ * column of raw feature values and accumulating its weighted contribution into the linear predictor of each row.
+ * Implementations must reproduce the scalar arithmetic exactly (no fused multiply-add or reassociation) so that
+ * every implementation produces bit-for-bit identical predictors.
+ */
+interface LinearPredictorKernel {
+
+    /**
+     * Accumulates the contribution of the range of rows provided of a single feature column into the linear
+     * predictors of those rows.  For each row, adds coefficient * ((value - mean) / stdDev) to its predictor, or
+     * coefficient * (value - mean) if the standard deviation is not positive.
+     *
+     * @param column The raw values of the feature by row
+     * @param low The low row of the range (inclusive)
+     * @param high The high row of the range (exclusive)
+     * @param coefficient The coefficient of the feature
+     * @param mean The mean the feature is standardized with
+     * @param stdDev The standard deviation the feature is standardized with
+     * @param predictors The linear predictor of each row, by row
+     */
+    void accumulate(double[] column, int low, int high, double coefficient, double mean, double stdDev,
+                    double[] predictors);
+}
@@ -0,0 +1,194 @@
+package main.java.penny.models;
+
+/**
+ * LogisticScorer represents a compiled form of a trained two-class logistic regression model and the standardization
+ * applied to its inputs.  The coefficients of the model and the mean and standard deviation of each feature are
+ * extracted once, after which scoring a data point is a handful of primitive multiply-adds with no Weka objects and
+ * no allocation.  Scoring does not depend on Weka, so a scorer read from a model artifact (see ModelArtifact) runs
+ * without Weka on the classpath.
+ *
+ * Scoring reproduces the arithmetic of Weka (Standardize followed by Logistic.distributionForInstance) operation for
+ * operation, so the probabilities are bit-for-bit identical to those of the Weka model.  A compiled scorer should
+ * still be validated against the Weka model before it is trusted (see PumpClassifier).
+ *
+ * Feature matrices are scored column by column with a LinearPredictorKernel.  When the JDK Vector API module is
+ * available the SIMD kernel (VectorLinearPredictorKernel) is used, and otherwise a scalar kernel; both produce
+ * identical probabilities.
+ */
+public class LogisticScorer {
+
+    /** Class name of the SIMD kernel, loaded reflectively as it requires the jdk.incubator.vector module */
+    private static final String VECTOR_KERNEL_CLASS = "main.java.penny.models.VectorLinearPredictorKernel";
+
+    /** Kernel scoring feature columns: the SIMD kernel if the Vector API is available, and the scalar otherwise */
+    private static final LinearPredictorKernel KERNEL = loadKernel();
+
+    /** Intercept of the logistic regression model */
+    private final double intercept;
+
+    /** Coefficient of each feature, in attribute order excluding the class attribute */
+    private final double[] coefficients;
+
+    /** Mean of each feature in the training data */
+    private final double[] means;
+
+    /** Standard deviation of each feature in the training data */
+    private final double[] stdDevs;
+
+    /**
+     * Constructs a new LogisticScorer with the intercept, feature coefficients and feature standardization provided.
+     *
+     * @param intercept The intercept of the logistic regression model
+     * @param coefficients The coefficient of each feature
+     * @param means The mean of each feature the feature is standardized with
+     * @param stdDevs The standard deviation of each feature the feature is standardized with
+     */
+    LogisticScorer(double intercept, double[] coefficients, double[] means, double[] stdDevs) {
+        this.intercept = intercept;
+        this.coefficients = coefficients;
+        this.means = means;
+        this.stdDevs = stdDevs;
+    }
+
+    /**
+     * Returns the number of features this scorer expects.
+     */
+    public int getNumFeatures() {
+        return this.coefficients.length;
+    }
+
+    /**
+     * Returns the intercept of the logistic regression model.
+     */
+    double getIntercept() {
+        return this.intercept;
+    }
+
+    /**
+     * Returns the coefficient of the feature provided.
+     *
+     * @param feature The index of the feature
+     */
+    double getCoefficient(int feature) {
+        return this.coefficients[feature];
+    }
+
+    /**
+     * Returns the mean of the feature provided the feature is standardized with.
+     *
+     * @param feature The index of the feature
+     */
+    double getMean(int feature) {
+        return this.means[feature];
+    }
+
+    /**
+     * Returns the standard deviation of the feature provided the feature is standardized with.
+     *
+     * @param feature The index of the feature
+     */
+    double getStdDev(int feature) {
+        return this.stdDevs[feature];
+    }
+
+    /**
+     * Returns the probability that the data point with the raw (unstandardized) feature values provided belongs to
+     * the second (positive) class.  Feature values must be finite; Weka treats other values as missing.
+     *
+     * @param features The raw feature values in attribute order excluding the class attribute
+     * @return The probability of the positive class
+     */
+    public double score(double[] features) {
+        double v = 0;
+        v += this.intercept * 1.0;
+        for (int i = 0; i < this.coefficients.length; i++) {
+            v += this.coefficients[i] * this.standardize(i, features[i]);
+        }
+
+        return probability(v);
+    }
+
+    /**
+     * Scores the range of rows provided of the raw (unstandardized) feature columns specified, storing the
+     * probability of the positive class of each row.  Each row is accumulated in the same order as score(double[]),
+     * so the probabilities are identical; rows with non-finite feature values produce undefined probabilities.
+     *
+     * @param columns The raw feature values by feature (in attribute order excluding the class attribute) then row
+     * @param low The low row of the range to score (inclusive)
+     * @param high The high row of the range to score (exclusive)
+     * @param probabilities The array to store the probability of each row in, by row
+     */
+    public void score(double[][] columns, int low, int high, double[] probabilities) {
+        for (int row = low; row < high; row++) {
+            double v = 0;
+            probabilities[row] = v + this.intercept * 1.0;
+        }
+
+        for (int i = 0; i < this.coefficients.length; i++) {
+            KERNEL.accumulate(columns[i], low, high, this.coefficients[i], this.means[i], this.stdDevs[i],
+                    probabilities);
+        }
+
+        for (int row = low; row < high; row++) {
+            probabilities[row] = probability(probabilities[row]);
+        }
+    }
+
+    /**
+     * Returns true if feature matrices are scored with the SIMD kernel of the JDK Vector API, and false if they are
+     * scored with the scalar kernel.
+     */
+    public static boolean isVectorized() {
+        return !(KERNEL instanceof ScalarKernel);
+    }
+
+    /**
+     * Returns the standardized value of the raw value provided for the feature specified.
+     *
+     * @param feature The index of the feature
+     * @param value The raw value of the feature
+     */
+    double standardize(int feature, double value) {
+        if (this.stdDevs[feature] > 0) {
+            return (value - this.means[feature]) / this.stdDevs[feature];
+        }
+        return value - this.means[feature];
+    }
+
+    /**
+     * Returns the probability of the positive class given the linear predictor of a data point, computed in the same
+     * order of operations as Weka so the result is bit-for-bit identical.
+     *
+     * @param v The linear predictor (log-odds of the negative class relative to the positive class) of a data point
+     */
+    static double probability(double v) {
+        return 1 / (Math.exp(v - 0) + Math.exp(-0.0));
+    }
+
+    /**
+     * Loads the SIMD kernel if the JDK Vector API module is available on this JVM, and the scalar kernel otherwise.
+     */
+    private static LinearPredictorKernel loadKernel() {
+        try {
+            return (LinearPredictorKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Either the kernel was not compiled or the jdk.incubator.vector module is not present
+            return new ScalarKernel();
+        }
+    }
+
+    /**
+     * ScalarKernel represents a LinearPredictorKernel processing a single row at a time.
+     */
+    static class ScalarKernel implements LinearPredictorKernel {
+
+        @Override
+        public void accumulate(double[] column, int low, int high, double coefficient, double mean, double stdDev,
+                               double[] predictors) {
+            for (int row = low; row < high; row++) {
+                double standardized = stdDev > 0 ? (column[row] - mean) / stdDev : column[row] - mean;
+                predictors[row] += coefficient * standardized;
+            }
+        }
+    }
+}
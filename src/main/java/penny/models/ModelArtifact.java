@@ -0,0 +1,188 @@
+package main.java.penny.models;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * ModelArtifact represents the compact binary form of a compiled logistic regression model (see LogisticScorer).
+ * An artifact is exported once from the trained Weka model and its training data (see PumpClassifier.export), after
+ * which it is loaded without Weka: memory-mapped from a file or read from the classpath.
+ *
+ * An artifact is laid out in big-endian order as follows:
+ *
+ *   int    magic number ("PNYM")
+ *   int    format version
+ *   long   time the artifact was exported (milliseconds since the epoch)
+ *   int    number of features (n)
+ *   double intercept
+ *   double coefficient of each feature (n)
+ *   double mean of each feature (n)
+ *   double standard deviation of each feature (n)
+ *   long   CRC-32 checksum of every preceding byte
+ *
+ * Readers reject artifacts of any other format version rather than guessing at their layout.
+ */
+public final class ModelArtifact {
+
+    /** Magic number identifying a model artifact ("PNYM") */
+    public static final int MAGIC = 0x504E594D;
+
+    /** Version of the artifact format written by this class */
+    public static final int FORMAT_VERSION = 1;
+
+    /** Number of bytes of an artifact preceding its parameters: magic, version, export time and feature count */
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    private ModelArtifact() {}
+
+    /**
+     * Writes the compiled model provided to the artifact file specified, replacing any existing file.
+     *
+     * @param scorer The compiled model to write
+     * @param artifact The file to write the artifact to
+     * @throws IOException If the artifact cannot be written
+     */
+    public static void write(LogisticScorer scorer, File artifact) throws IOException {
+        try (OutputStream out = new FileOutputStream(artifact)) {
+            out.write(toBytes(scorer, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Returns the artifact bytes of the compiled model provided.
+     *
+     * @param scorer The compiled model
+     * @param exportMillis The time the artifact is exported (milliseconds since the epoch)
+     */
+    static byte[] toBytes(LogisticScorer scorer, long exportMillis) throws IOException {
+        int numFeatures = scorer.getNumFeatures();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + (3 * numFeatures + 2) * Double.BYTES);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(exportMillis);
+        out.writeInt(numFeatures);
+        out.writeDouble(scorer.getIntercept());
+        for (int i = 0; i < numFeatures; i++) {
+            out.writeDouble(scorer.getCoefficient(i));
+        }
+        for (int i = 0; i < numFeatures; i++) {
+            out.writeDouble(scorer.getMean(i));
+        }
+        for (int i = 0; i < numFeatures; i++) {
+            out.writeDouble(scorer.getStdDev(i));
+        }
+        out.flush();
+
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes.toByteArray());
+        out.writeLong(checksum.getValue());
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the compiled model of the artifact file provided by memory-mapping the file.
+     *
+     * @param artifact The artifact file to read
+     * @return The compiled model of the artifact
+     * @throws IOException If the artifact cannot be read or is not a valid artifact of a supported format version
+     */
+    public static LogisticScorer map(File artifact) throws IOException {
+        try (FileChannel channel = FileChannel.open(artifact.toPath(), StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads the compiled model of the artifact on the classpath with the resource name provided.
+     *
+     * @param resource The absolute resource name of the artifact
+     * @return The compiled model of the artifact, or null if there is no such resource
+     * @throws IOException If the artifact cannot be read or is not a valid artifact of a supported format version
+     */
+    public static LogisticScorer readResource(String resource) throws IOException {
+        try (InputStream in = ModelArtifact.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                bytes.write(buffer, 0, read);
+            }
+            return read(ByteBuffer.wrap(bytes.toByteArray()));
+        }
+    }
+
+    /**
+     * Reads the compiled model of the artifact held by the buffer provided, from its position to its limit.
+     *
+     * @param buffer The buffer holding the artifact
+     * @return The compiled model of the artifact
+     * @throws IOException If the buffer does not hold a valid artifact of a supported format version
+     */
+    static LogisticScorer read(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a model artifact");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported model artifact format version: " + version);
+            }
+            buffer.getLong(); // Export time
+
+            int numFeatures = buffer.getInt();
+            if (numFeatures < 0 || numFeatures > (buffer.remaining() - Long.BYTES) / Double.BYTES) {
+                throw new IOException("Corrupt model artifact: invalid number of features " + numFeatures);
+            }
+
+            double intercept = buffer.getDouble();
+            double[] coefficients = readDoubles(buffer, numFeatures);
+            double[] means = readDoubles(buffer, numFeatures);
+            double[] stdDevs = readDoubles(buffer, numFeatures);
+
+            int end = buffer.position();
+            long expected = buffer.getLong();
+
+            ByteBuffer content = buffer.duplicate();
+            content.position(start);
+            content.limit(end);
+            CRC32 checksum = new CRC32();
+            checksum.update(content);
+            if (checksum.getValue() != expected) {
+                throw new IOException("Corrupt model artifact: checksum mismatch");
+            }
+
+            return new LogisticScorer(intercept, coefficients, means, stdDevs);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt model artifact: truncated", e);
+        }
+    }
+
+    /**
+     * Reads the number of doubles provided from the buffer specified.
+     */
+    private static double[] readDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.getDouble();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,70 @@
+package main.java.penny.models;
+
+/**
+ * ModelHandle represents an immutable, versioned handle to a loaded model.  A new handle (with the next version) is
+ * created each time the ModelRegistry reloads a model, so a handle held by a scan keeps referring to the same model
+ * even if the model is reloaded while the scan runs.
+ */
+public final class ModelHandle {
+
+    /** Name the model is registered under */
+    private final String name;
+
+    /** Version of the model, starting at 1 and incremented each time the model is reloaded */
+    private final int version;
+
+    /** The loaded model */
+    private final Classifier classifier;
+
+    /** Last modification time (milliseconds since the epoch) of the model files this model was loaded from */
+    private final long sourceLastModified;
+
+    /**
+     * Constructs a new ModelHandle to the loaded model provided.
+     *
+     * @param name The name the model is registered under
+     * @param version The version of the model
+     * @param classifier The loaded model
+     * @param sourceLastModified The last modification time of the model files the model was loaded from
+     */
+    ModelHandle(String name, int version, Classifier classifier, long sourceLastModified) {
+        this.name = name;
+        this.version = version;
+        this.classifier = classifier;
+        this.sourceLastModified = sourceLastModified;
+    }
+
+    /**
+     * Returns the name the model of this handle is registered under.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the version of the model of this handle, starting at 1 and incremented each time it is reloaded.
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns the loaded model of this handle.
+     */
+    public Classifier getClassifier() {
+        return this.classifier;
+    }
+
+    /**
+     * Returns the last modification time (milliseconds since the epoch) of the model files the model of this handle
+     * was loaded from.
+     */
+    public long getSourceLastModified() {
+        return this.sourceLastModified;
+    }
+
+    @Override
+    public String toString() {
+        return this.name + " v" + this.version;
+    }
+}
@@ -0,0 +1,287 @@
+package main.java.penny.models;
+
+import main.java.penny.constants.ClassificationConstants;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ModelRegistry represents a singleton, process-wide registry of models that loads each model only once.  Models are
+ * registered by name with a loader and the files they are loaded from.  A model is loaded the first time it is
+ * requested, or ahead of time in the background (see preload), for example while the broker connects.
+ *
+ * Models are exposed through immutable, versioned ModelHandles.  The registry periodically checks whether the files
+ * of a loaded model have changed on disk; if so, the model is reloaded in the background and its handle is swapped
+ * atomically once the new version has loaded, while the previous version keeps serving requests in the meantime.
+ * Registered models must be safe to share across threads.
+ */
+public class ModelRegistry {
+
+    /** Singleton ModelRegistry */
+    private static ModelRegistry registry;
+
+    /** Map from model name to registered model */
+    private final Map<String, RegisteredModel> models;
+
+    /** Single background thread loading and reloading models */
+    private final ExecutorService loader;
+
+    /** Minimum interval in milliseconds between checks of whether the files of a model have changed */
+    private final long reloadCheckMillis;
+
+    /**
+     * Constructs a new ModelRegistry with no registered models.
+     *
+     * @param reloadCheckMillis The minimum interval in milliseconds between checks for changed model files
+     */
+    ModelRegistry(long reloadCheckMillis) {
+        this.models = new ConcurrentHashMap<String, RegisteredModel>();
+        this.reloadCheckMillis = reloadCheckMillis;
+        this.loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ModelRegistry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Initializes a new singleton ModelRegistry with the pump and dump classifier registered.
+     */
+    public static synchronized void init() {
+        cleanup();
+
+        registry = new ModelRegistry(ClassificationConstants.MODEL_RELOAD_CHECK_MILLIS);
+        registry.register(ClassificationConstants.PUMP_CLASSIFIER_MODEL, ModelRegistry::loadPumpClassifier,
+                new File(CompiledPumpClassifier.MODEL_ARTIFACT), new File(PumpClassifier.LOGISTIC_REGRESSION_MODEL),
+                new File(PumpClassifier.TRANING_DATA));
+    }
+
+    /**
+     * Returns the singleton instance of the current ModelRegistry.
+     */
+    public static synchronized ModelRegistry getInstance() {
+        if (registry == null) {
+            ModelRegistry.init();
+        }
+        return registry;
+    }
+
+    /**
+     * Cleans up the singleton ModelRegistry, stopping any model loading in progress.
+     */
+    public static synchronized void cleanup() {
+        if (registry != null) {
+            registry.loader.shutdownNow();
+            registry = null;
+        }
+    }
+
+    /**
+     * Registers the model loaded by the loader provided under the name specified.  Replaces any model previously
+     * registered under the same name.
+     *
+     * @param name The name to register the model under
+     * @param modelLoader The loader creating a new instance of the model
+     * @param sources The files the model is loaded from; the model is reloaded whenever any of them changes
+     */
+    public void register(String name, ModelLoader modelLoader, File... sources) {
+        this.models.put(name, new RegisteredModel(name, modelLoader, sources));
+    }
+
+    /**
+     * Starts loading the model registered under the name provided in the background if it has not been loaded yet.
+     * Never blocks.
+     *
+     * @param name The name the model is registered under
+     */
+    public void preload(String name) {
+        RegisteredModel model = this.getRegisteredModel(name);
+        if (model.current.get() == null) {
+            this.load(model, null);
+        }
+    }
+
+    /**
+     * Returns the handle to the current version of the model registered under the name provided, waiting for the
+     * model to load if it has never been loaded.  If the files of the model have changed since it was loaded, starts
+     * reloading the model in the background and returns the current version in the meantime.  This method is
+     * thread-safe.
+     *
+     * @param name The name the model is registered under
+     * @return The handle to the current version of the model
+     * @throws Exception If the model has never been loaded and fails to load
+     */
+    public ModelHandle getModel(String name) throws Exception {
+        RegisteredModel model = this.getRegisteredModel(name);
+
+        ModelHandle handle = model.current.get();
+        if (handle == null) {
+            try {
+                return this.load(model, null).get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        if (this.isStale(model, handle)) {
+            this.load(model, handle);
+        }
+        return handle;
+    }
+
+    /**
+     * Returns the current version of the model registered under the name provided (see getModel).
+     *
+     * @param name The name the model is registered under
+     * @return The current version of the model
+     * @throws Exception If the model has never been loaded and fails to load
+     */
+    public Classifier getClassifier(String name) throws Exception {
+        return this.getModel(name).getClassifier();
+    }
+
+    /**
+     * Loads the pump and dump classifier from its compiled model artifact without Weka if an artifact is available,
+     * and otherwise from the Weka model and training data.
+     */
+    private static Classifier loadPumpClassifier() throws Exception {
+        Classifier classifier = CompiledPumpClassifier.load();
+        return classifier != null ? classifier : new PumpClassifier();
+    }
+
+    /**
+     * Returns the registered model with the name provided.
+     *
+     * @throws IllegalArgumentException If no model is registered under the name
+     */
+    private RegisteredModel getRegisteredModel(String name) {
+        RegisteredModel model = this.models.get(name);
+        if (model == null) {
+            throw new IllegalArgumentException("No model registered under the name: " + name);
+        }
+        return model;
+    }
+
+    /**
+     * Returns true if the files of the model provided have changed since the handle specified was loaded, checking
+     * the files at most once per reload check interval.
+     */
+    private boolean isStale(RegisteredModel model, ModelHandle handle) {
+        long now = System.currentTimeMillis();
+        long nextCheck = model.nextCheckMillis;
+        if (now < nextCheck) {
+            return false;
+        }
+        model.nextCheckMillis = now + this.reloadCheckMillis;
+
+        return model.getSourceLastModified() != handle.getSourceLastModified();
+    }
+
+    /**
+     * Loads the model provided on the background thread, unless it is already being loaded or the version specified
+     * has already been replaced.
+     *
+     * @param model The registered model to load
+     * @param replacing The handle to the version of the model to replace, or null if the model has never been loaded
+     * @return A future completing with the handle to the newly loaded version of the model
+     */
+    private CompletableFuture<ModelHandle> load(RegisteredModel model, ModelHandle replacing) {
+        CompletableFuture<ModelHandle> loading = new CompletableFuture<ModelHandle>();
+        while (!model.loading.compareAndSet(null, loading)) {
+            CompletableFuture<ModelHandle> inProgress = model.loading.get();
+            if (inProgress != null) {
+                return inProgress;
+            }
+        }
+
+        // Another load may have finished since the caller last read the current version
+        ModelHandle current = model.current.get();
+        if (current != replacing) {
+            model.loading.set(null);
+            loading.complete(current);
+            return loading;
+        }
+
+        this.loader.execute(() -> {
+            try {
+                // Record the modification time before loading so a change made during loading triggers a reload
+                long sourceLastModified = model.getSourceLastModified();
+                Classifier classifier = model.modelLoader.load();
+
+                ModelHandle previous = model.current.get();
+                int version = previous == null ? 1 : previous.getVersion() + 1;
+                ModelHandle handle = new ModelHandle(model.name, version, classifier, sourceLastModified);
+
+                model.current.set(handle);
+                model.loading.set(null);
+                loading.complete(handle);
+            } catch (Throwable e) {
+                model.loading.set(null);
+                loading.completeExceptionally(e);
+            }
+        });
+        return loading;
+    }
+
+    /**
+     * ModelLoader represents a means of loading a new instance of a model.
+     */
+    public interface ModelLoader {
+
+        /**
+         * Loads and returns a new instance of the model.
+         *
+         * @throws Exception If the model fails to load
+         */
+        Classifier load() throws Exception;
+    }
+
+    /**
+     * RegisteredModel represents a model registered in the registry along with its current version.
+     */
+    private static class RegisteredModel {
+
+        /** Name the model is registered under */
+        private final String name;
+
+        /** Loader creating a new instance of the model */
+        private final ModelLoader modelLoader;
+
+        /** Files the model is loaded from */
+        private final File[] sources;
+
+        /** Handle to the current version of the model, or null if it has never been loaded */
+        private final AtomicReference<ModelHandle> current;
+
+        /** Future of the load of the model in progress, or null if the model is not being loaded */
+        private final AtomicReference<CompletableFuture<ModelHandle>> loading;
+
+        /** Earliest time (milliseconds since the epoch) to next check whether the files of the model changed */
+        private volatile long nextCheckMillis;
+
+        RegisteredModel(String name, ModelLoader modelLoader, File[] sources) {
+            this.name = name;
+            this.modelLoader = modelLoader;
+            this.sources = sources;
+            this.current = new AtomicReference<ModelHandle>();
+            this.loading = new AtomicReference<CompletableFuture<ModelHandle>>();
+        }
+
+        /**
+         * Returns the latest modification time of the files of this model, or 0 if none of them exist.
+         */
+        long getSourceLastModified() {
+            long lastModified = 0;
+            for (File source : this.sources) {
+                lastModified = Math.max(lastModified, source.lastModified());
+            }
+            return lastModified;
+        }
+    }
+}
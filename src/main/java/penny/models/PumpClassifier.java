@@ -1,10 +1,14 @@
 package main.java.penny.models;
 
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import main.java.penny.constants.Classification;
 import main.java.penny.constants.ResourceConstants;
-import main.java.penny.marketdata.PumpStockTick;
 import main.java.penny.marketdata.StockTick;
 import main.java.penny.models.classification.ClassificationResult;
 
@@ -29,6 +33,12 @@ import static main.java.penny.constants.ClassificationConstants.CLASSIFICATION_T
  * previous trading activity for the stock.  Additionally, pump and dumps show a staggering increase in price on the
  * first day that is stabilized and maintained for the duration of the market hours.  The limitation of these components
  * is that it does not consider intra-day signals (such as the previously mentioned manipulated/stabilized stock price).
+ *
+ * Stock ticks are scored by a compiled form of the logistic regression model (see LogisticScorer) rather than through
+ * Weka.  The compiled scorer is validated bit-for-bit against the Weka model on every training instance when the
+ * classifier is loaded; if any probability differs, the Weka model is used instead.  Stock ticks with non-finite
+ * feature values (such as a stock with no opening price) are invalid whichever model scores them, so the compiled
+ * and Weka models classify every stock tick alike.
  */
 public class PumpClassifier implements Classifier {
 
@@ -38,13 +48,12 @@ public class PumpClassifier implements Classifier {
     /** File location of the training data used to build this model */
     public static final String TRANING_DATA = ResourceConstants.DATA_FILE_PATH + "PennyStockPrincipalComponents.arff";
 
-    /** Indices of features found in the original training data */
-    // Assumes this is the order attributes appear in when model was constructed
+    /** Number of attributes found in the original training data */
+    // Assumes the class attribute comes first, followed by the features in the order of PumpFeatures
     private static final int NUM_ATTRIBUTES = 5; // Includes "class" aka positive/negative classification as attribute
-    private static final int VOLUME_USD_INDEX = 1;
-    private static final int AVG_VOLUME_USD_INDEX = 2;
-    private static final int PERCENT_CHANGE_INDEX = 3;
-    private static final int DAY_RANGE_INDEX = 4;
+
+    /** Number of rows below which a batch of data points is classified sequentially */
+    private static final int BATCH_SEQUENTIAL_CUTOFF = 512;
 
     /** The logistic regression pump and dump classifier model */
     private Logistic model;
@@ -55,6 +64,12 @@ public class PumpClassifier implements Classifier {
     /** The transformations applied to the training data to normalize data instances between 0 and 1 */
     private Standardize standardize;
 
+    /** Compiled form of the model and standardization, or null if it does not reproduce the Weka model exactly */
+    private LogisticScorer scorer;
+
+    /** Reusable buffer of the feature values of the stock tick being classified; guarded by this classifier */
+    private final double[] features;
+
     /**
      * Constructs a new PumpClassifier loading the logistic regression model and training data from their
      * default file locations.
@@ -63,73 +78,125 @@ public class PumpClassifier implements Classifier {
      */
     public PumpClassifier() throws Exception {
         DataSource trainingData = new DataSource(new FileInputStream(TRANING_DATA));
-        Instances dataset = trainingData.getDataSet();
-        dataset.setClassIndex(0);
+        Instances rawDataset = trainingData.getDataSet();
+        rawDataset.setClassIndex(0);
 
         this.standardize = new Standardize();
-        this.standardize.setInputFormat(dataset);
+        this.standardize.setInputFormat(rawDataset);
 
-        dataset = Filter.useFilter(dataset, this.standardize);
+        Instances dataset = Filter.useFilter(rawDataset, this.standardize);
 
         this.model = readLogisticModel(); // Use model created with Weka GUI
         this.dataset = dataset; // Need this updated dataset for standardization
+
+        this.features = new double[NUM_ATTRIBUTES - 1];
+        this.scorer = compile(this.model, rawDataset);
+        if (this.scorer != null && !this.isScorerExact(rawDataset)) {
+            this.scorer = null;
+        }
+    }
+
+    /**
+     * Returns true if this classifier scores stock ticks with the compiled form of the model, and false if it scores
+     * them with the Weka model.
+     */
+    public boolean isCompiled() {
+        return this.scorer != null;
     }
 
     @Override
-    public ClassificationResult classify(StockTick tick) {
-        // Build an actual data instance from the provided stock tick
-        Instance instance = buildInstanceOf(tick);
-        if (instance == null) {
+    public synchronized ClassificationResult classify(StockTick tick) {
+        if (!PumpFeatures.hasRequiredTicks(tick) || !PumpFeatures.extract(tick, this.features)) {
             return ClassificationResult.INVALID;
         }
 
-        // Normalize the instance values the same as the training data
-        try {
-            instance = normalize(instance);
-        } catch (Exception e) {
-            return ClassificationResult.INVALID;
+        if (this.scorer != null) {
+            return new ClassificationResult(this.scorer.score(this.features));
         }
+        return new ClassificationResult(this.scoreWithModel(this.features));
+    }
 
-        if (instance == null) {
-            return ClassificationResult.INVALID;
-        }
+    @Override
+    public long getRequiredTicks() {
+        return PumpFeatures.REQUIRED_TICKS;
+    }
 
-        ClassificationResult result;
-        try {
-            // Classify the instance and get the probability that the instance is a pump (index 1 class)
-            double classification = this.model.classifyInstance(instance);
-            double percentage = this.model.distributionForInstance(instance)[1];
+    /**
+     * Classifies every StockTick provided in parallel across the common fork-join pool.  Feature extraction and
+     * compiled scoring run concurrently; only stock ticks scored by the Weka model (if the model could not be
+     * compiled) are serialized.  This method is thread-safe.
+     */
+    @Override
+    public double[] classifyBatch(List<StockTick> ticks) {
+        FeatureMatrix features = new FeatureMatrix(NUM_ATTRIBUTES - 1, ticks.size());
+        double[] percentages = new double[ticks.size()];
 
-            // Associate a positive or negative result depending on if the probability exceeds the threshold
-            result = new ClassificationResult(percentage);
-        } catch (Exception e) {
-            result = ClassificationResult.INVALID;
-        }
+        ForkJoinPool.commonPool().invoke(new BatchTask(ticks, features, 0, ticks.size(), percentages));
+        return percentages;
+    }
 
-        return result;
+    /**
+     * Classifies every valid data point of the feature matrix provided in parallel across the common fork-join pool.
+     * The matrix holds the raw (unstandardized) volume USD, average volume USD, percent change and day range of each
+     * data point, in that order.  This method is thread-safe.
+     *
+     * @param features The feature matrix of the data points to classify
+     * @return The probability that each data point is a pump and dump by row, or the invalid percentage (-1) for
+     *         invalid rows and rows with non-finite feature values
+     */
+    public double[] classifyBatch(FeatureMatrix features) {
+        double[] percentages = new double[features.getRowCount()];
+
+        ForkJoinPool.commonPool().invoke(new BatchTask(null, features, 0, features.getRowCount(), percentages));
+        return percentages;
     }
 
-    @Override
+    /**
+     * Builds the feature matrix of the stock ticks provided, one row per stock tick.  Rows of incomplete stock ticks
+     * are marked invalid.
+     *
+     * @param ticks The stock ticks to build the feature matrix of
+     * @return A feature matrix of the volume USD, average volume USD, percent change and day range of each stock tick
+     */
+    public FeatureMatrix buildFeatureMatrix(List<StockTick> ticks) {
+        FeatureMatrix features = new FeatureMatrix(NUM_ATTRIBUTES - 1, ticks.size());
+        PumpFeatures.extract(ticks, features, 0, ticks.size());
+        return features;
+    }
+
+    /**
+     * Builds a Weka data instance of the StockTick provided.  A StockTick data instance corresponds to a StockTick
+     * data point with all required features that the Weka model expects.
+     *
+     * @param tick The StockTick to build a data instance from
+     * @return A new data instance containing the required model features based on the StockTick provided.  If
+     *         a data instance cannot be created, null is returned instead
+     */
     public Instance buildInstanceOf(StockTick tick) {
         // If this stock tick is not complete, we cannot build a data instance; return null
-        if (!tick.isComplete()) {
+        if (!PumpFeatures.hasRequiredTicks(tick)) {
             return null;
         }
-        PumpStockTick pumpTick = new PumpStockTick(tick);
-
         // Extract the necessary features from this stock tick
-        double[] attributeValues = new double[NUM_ATTRIBUTES];
-
-        attributeValues[VOLUME_USD_INDEX] = pumpTick.getVolumeUSD();
-        attributeValues[AVG_VOLUME_USD_INDEX] = pumpTick.getAverageVolumeUSD();
-        attributeValues[PERCENT_CHANGE_INDEX] = pumpTick.getPercentChange();
-        attributeValues[DAY_RANGE_INDEX] = pumpTick.getDayRange();
+        double[] features = new double[NUM_ATTRIBUTES - 1];
+        PumpFeatures.extract(tick, features);
 
-        Instance instance = new DenseInstance(1.0, attributeValues);
+        return this.instanceOf(features);
+    }
 
-        Instances dataset = getDatasetCopy();
-        dataset.add(instance);
-        return dataset.instance(dataset.numInstances() - 1);
+    /**
+     * Exports the compiled form of this classifier to the model artifact file provided, which CompiledPumpClassifier
+     * loads without Weka (see ModelArtifact).
+     *
+     * @param artifact The file to write the model artifact to
+     * @throws IllegalStateException If this classifier cannot be compiled to reproduce the Weka model exactly
+     * @throws IOException If the model artifact cannot be written
+     */
+    public void export(File artifact) throws IOException {
+        if (this.scorer == null) {
+            throw new IllegalStateException("The model cannot be compiled to reproduce the Weka model exactly");
+        }
+        ModelArtifact.write(this.scorer, artifact);
     }
 
     @Override
@@ -138,10 +205,72 @@ public class PumpClassifier implements Classifier {
     }
 
     /**
-     * Returns a copy of the training dataset used to build this classifier.
+     * Returns the probability that the data point with the raw feature values provided is a pump and dump, computed
+     * by the Weka model, or the invalid percentage (-1) if the Weka model fails to classify it.  Serialized as the
+     * standardization filter of the Weka model is stateful.
+     *
+     * @param features The raw feature values in attribute order excluding the class attribute
      */
-    private Instances getDatasetCopy() {
-        return new Instances(this.dataset);
+    private synchronized double scoreWithModel(double[] features) {
+        try {
+            // Normalize the instance values the same as the training data
+            Instance instance = normalize(this.instanceOf(features));
+            if (instance == null) {
+                return ClassificationResult.INVALID.getPercentage();
+            }
+
+            // Get the probability that the instance is a pump (index 1 class)
+            return this.model.distributionForInstance(instance)[1];
+        } catch (Exception e) {
+            return ClassificationResult.INVALID.getPercentage();
+        }
+    }
+
+    /**
+     * Builds a data instance of the raw feature values provided.
+     *
+     * @param features The raw feature values in attribute order excluding the class attribute
+     */
+    private Instance instanceOf(double[] features) {
+        double[] attributeValues = new double[NUM_ATTRIBUTES];
+        System.arraycopy(features, 0, attributeValues, 1, NUM_ATTRIBUTES - 1);
+
+        // Reference the training dataset for its attribute information rather than copying every instance of it
+        Instance instance = new DenseInstance(1.0, attributeValues);
+        instance.setDataset(this.dataset);
+        return instance;
+    }
+
+    /**
+     * Returns true if the compiled scorer of this classifier reproduces the probability of the Weka model bit for bit
+     * on every instance of the raw training data provided, and false otherwise.
+     *
+     * @param rawDataset The training data before standardization
+     */
+    private boolean isScorerExact(Instances rawDataset) {
+        for (int i = 0; i < rawDataset.numInstances(); i++) {
+            Instance raw = rawDataset.instance(i);
+
+            boolean isMissingValue = false;
+            for (int attribute = 1; attribute < NUM_ATTRIBUTES; attribute++) {
+                this.features[attribute - 1] = raw.value(attribute);
+                isMissingValue |= Double.isNaN(raw.value(attribute));
+            }
+            if (isMissingValue) {
+                continue; // Instances with missing values are invalid and never scored
+            }
+
+            try {
+                double expected = this.model.distributionForInstance(normalize(raw))[1];
+                double actual = this.scorer.score(this.features);
+                if (Double.doubleToLongBits(expected) != Double.doubleToLongBits(actual)) {
+                    return false;
+                }
+            } catch (Exception e) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -158,6 +287,114 @@ public class PumpClassifier implements Classifier {
         return this.standardize.output();
     }
 
+    /**
+     * BatchTask represents classifying a range of rows of a feature matrix in parallel leveraging divide-and-conquer.
+     * Splits the range in half until it is below the sequential cutoff, where the features of the range are extracted
+     * (if stock ticks are provided) and scored by the compiled model.  If the model could not be compiled, rows are
+     * scored by the Weka model one at a time.
+     */
+    private class BatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The stock ticks to extract the features of by row, or null if the features are already extracted */
+        private final List<StockTick> ticks;
+
+        /** The feature matrix of the data points to classify */
+        private final FeatureMatrix features;
+
+        /** The low row of the range to classify (inclusive) */
+        private final int low;
+
+        /** The high row of the range to classify (exclusive) */
+        private final int high;
+
+        /** The probability of each data point by row */
+        private final double[] percentages;
+
+        BatchTask(List<StockTick> ticks, FeatureMatrix features, int low, int high, double[] percentages) {
+            this.ticks = ticks;
+            this.features = features;
+            this.low = low;
+            this.high = high;
+            this.percentages = percentages;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.high - this.low > BATCH_SEQUENTIAL_CUTOFF) {
+                int mid = this.low + (this.high - this.low) / 2;
+                invokeAll(new BatchTask(this.ticks, this.features, this.low, mid, this.percentages),
+                        new BatchTask(this.ticks, this.features, mid, this.high, this.percentages));
+                return;
+            }
+
+            if (this.ticks != null) {
+                PumpFeatures.extract(this.ticks, this.features, this.low, this.high);
+            }
+
+            LogisticScorer scorer = PumpClassifier.this.scorer;
+            if (scorer != null) {
+                scorer.score(this.features.getColumns(), this.low, this.high, this.percentages);
+            }
+
+            double[] row = new double[NUM_ATTRIBUTES - 1];
+            for (int i = this.low; i < this.high; i++) {
+                if (!this.features.isValid(i)) {
+                    this.percentages[i] = ClassificationResult.INVALID.getPercentage();
+                    continue;
+                }
+
+                for (int feature = 0; feature < row.length; feature++) {
+                    row[feature] = this.features.get(i, feature);
+                }
+                if (!PumpFeatures.isFinite(row)) {
+                    this.percentages[i] = ClassificationResult.INVALID.getPercentage();
+                } else if (scorer == null) {
+                    this.percentages[i] = scoreWithModel(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compiles the two-class logistic regression model provided, trained on the standardized form of the raw training
+     * data specified.  Every attribute other than the class attribute is a feature.
+     *
+     * @param model The trained logistic regression model
+     * @param rawDataset The training data before standardization, with its class index set
+     * @return The compiled scorer of the model, or null if the model cannot be compiled (it is not a two-class model,
+     *         or Weka removed attributes from the model while training)
+     */
+    static LogisticScorer compile(Logistic model, Instances rawDataset) {
+        int numFeatures = rawDataset.numAttributes() - 1;
+        double[][] parameters = model.coefficients();
+
+        // One row per feature plus the intercept, and a single column for a two-class model
+        if (parameters.length != numFeatures + 1 || parameters[0].length != 1) {
+            return null;
+        }
+
+        double[] coefficients = new double[numFeatures];
+        double[] means = new double[numFeatures];
+        double[] stdDevs = new double[numFeatures];
+
+        int feature = 0;
+        for (int attribute = 0; attribute < rawDataset.numAttributes(); attribute++) {
+            if (attribute == rawDataset.classIndex()) {
+                continue;
+            }
+
+            // Identical to the statistics Standardize computes from its input format
+            coefficients[feature] = parameters[feature + 1][0];
+            means[feature] = rawDataset.meanOrMode(attribute);
+            stdDevs[feature] = Math.sqrt(rawDataset.variance(attribute));
+            feature++;
+        }
+
+        return new LogisticScorer(parameters[0][0], coefficients, means, stdDevs);
+    }
+
     /**
      * Reads the logistic regression model from the default logistic regression model file location.
      *
@@ -0,0 +1,107 @@
+package main.java.penny.models;
+
+import main.java.penny.constants.TickTypes;
+import main.java.penny.marketdata.PumpStockTick;
+import main.java.penny.marketdata.StockTick;
+
+import java.util.List;
+
+/**
+ * PumpFeatures represents the features of the pump and dump classifiers: the daily dollar volume, average dollar
+ * volume, daily percent change and daily price range of a stock tick, in that order.  Feature extraction does not
+ * depend on Weka so it may be shared by the Weka and compiled pump and dump classifiers.
+ *
+ * The features of a PumpStockTick (such as the stock ticks accepted by a ClassificationFilter) are its memoized
+ * derived values, so they are not computed again.
+ */
+public final class PumpFeatures {
+
+    /** Number of features of each data point */
+    public static final int NUM_FEATURES = 4;
+
+    /** Indices of each feature within a data point */
+    public static final int VOLUME_USD_INDEX = 0;
+    public static final int AVG_VOLUME_USD_INDEX = 1;
+    public static final int PERCENT_CHANGE_INDEX = 2;
+    public static final int DAY_RANGE_INDEX = 3;
+
+    /**
+     * Bitmask of the tick types the features are derived from.  Every feature needs its tick types (the average
+     * dollar volume is priced at the midpoint of the 13 week high and low), so this is the same set of tick types as
+     * TickTypes.requiredTicks and requesting market data for the pump classifiers completes no sooner than requesting
+     * complete stock ticks.  Classifiers deriving their features from fewer tick types complete sooner.
+     */
+    public static final long REQUIRED_TICKS = TickTypes.asMask(TickTypes.VOLUME, TickTypes.LAST,
+            TickTypes.AVERAGE_VOLUME, TickTypes.HIGH_13_WEEKS, TickTypes.LOW_13_WEEKS, TickTypes.OPEN, TickTypes.HIGH,
+            TickTypes.LOW);
+
+    private PumpFeatures() {}
+
+    /**
+     * Returns true if the StockTick provided has every tick type the features are derived from, and false otherwise.
+     */
+    public static boolean hasRequiredTicks(StockTick tick) {
+        return tick.hasTicks(REQUIRED_TICKS);
+    }
+
+    /**
+     * Extracts the feature values of the complete StockTick provided into the feature array specified.
+     *
+     * @param tick The complete StockTick to extract feature values from
+     * @param features The array to store the feature values in
+     * @return True if every feature value is finite, and false otherwise
+     */
+    public static boolean extract(StockTick tick, double[] features) {
+        if (tick instanceof PumpStockTick) {
+            PumpStockTick pumpTick = (PumpStockTick) tick;
+            features[VOLUME_USD_INDEX] = pumpTick.getVolumeUSD();
+            features[AVG_VOLUME_USD_INDEX] = pumpTick.getAverageVolumeUSD();
+            features[PERCENT_CHANGE_INDEX] = pumpTick.getPercentChange();
+            features[DAY_RANGE_INDEX] = pumpTick.getDayRange();
+        } else {
+            features[VOLUME_USD_INDEX] = PumpStockTick.getVolumeUSD(tick);
+            features[AVG_VOLUME_USD_INDEX] = PumpStockTick.getAverageVolumeUSD(tick);
+            features[PERCENT_CHANGE_INDEX] = PumpStockTick.getPercentChange(tick);
+            features[DAY_RANGE_INDEX] = PumpStockTick.getDayRange(tick);
+        }
+
+        return isFinite(features);
+    }
+
+    /**
+     * Extracts the feature values of the range of stock ticks provided into the rows of the feature matrix specified.
+     * Rows of stock ticks missing any tick type the features are derived from are marked invalid.
+     *
+     * @param ticks The stock ticks to extract the feature values of, by row
+     * @param features The feature matrix to store the feature values in
+     * @param low The low row of the range to extract (inclusive)
+     * @param high The high row of the range to extract (exclusive)
+     */
+    public static void extract(List<StockTick> ticks, FeatureMatrix features, int low, int high) {
+        double[] values = new double[NUM_FEATURES];
+        for (int row = low; row < high; row++) {
+            StockTick tick = ticks.get(row);
+            if (!hasRequiredTicks(tick)) {
+                features.setValid(row, false);
+                continue;
+            }
+
+            extract(tick, values);
+            for (int feature = 0; feature < NUM_FEATURES; feature++) {
+                features.set(row, feature, values[feature]);
+            }
+        }
+    }
+
+    /**
+     * Returns true if every value provided is finite, and false if any of them is NaN or infinite.
+     */
+    public static boolean isFinite(double[] features) {
+        for (double feature : features) {
+            if (Double.isNaN(feature) || Double.isInfinite(feature)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
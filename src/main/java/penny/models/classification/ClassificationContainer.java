@@ -3,37 +3,126 @@ package main.java.penny.models.classification;
 import main.java.penny.marketdata.StockTick;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 /**
  * ClassificationContainer represents a container of classified stock tick results.  The ClassificationContainer
  * merges stock ticks and their classifications into individual instances and accommodates concurrent population
- * of classification results.
+ * of classification results.  Each ticker holds at most one classification; classifying a ticker again replaces
+ * its previous classification.
+ *
+ * A container may be bounded to the K classifications of highest percentage (the leaders).  A bounded container
+ * keeps its leaders ranked as classifications are added, so the current leaders can be polled in O(K) while results
+ * are still streaming in.  Tickers ranked out of the leaders are forgotten.
  */
 public class ClassificationContainer {
 
-    /** The classified stock tick results */
-    private final Set<ClassifiedStockTick> results;
+    /** Ranks classified stock ticks in descending order of classification percentage, then by ticker */
+    private static final Comparator<ClassifiedStockTick> RANK = Comparator
+            .comparingDouble((ClassifiedStockTick classified) -> -classified.getClassification().getPercentage())
+            .thenComparing(classified -> classified.getStockTick().getTicker());
+
+    /** The classified stock tick results by ticker; only the leaders if this container is bounded */
+    private final Map<String, ClassifiedStockTick> results;
+
+    /** The maximum number of leaders of this container, or 0 if this container is unbounded */
+    private final int capacity;
+
+    /** The leaders of this bounded container in rank order, or null if this container is unbounded */
+    private final ConcurrentSkipListSet<ClassifiedStockTick> leaders;
+
+    /** The number of leaders; guarded by the leaders */
+    private int leaderCount;
+
+    /** The percentage of the last leader once this bounded container is full; ranks below it cannot lead */
+    private volatile double admissionPercentage;
 
     /**
      * Constructs a new ClassificationContainer with an empty collection of classified stock tick results.
      */
     public ClassificationContainer() {
-        this.results = ConcurrentHashMap.newKeySet();
+        this.results = new ConcurrentHashMap<String, ClassifiedStockTick>();
+        this.capacity = 0;
+        this.leaders = null;
+        this.admissionPercentage = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Constructs a new ClassificationContainer bounded to the number of leaders provided.
+     *
+     * @param capacity The maximum number of classified stock ticks of highest percentage to keep
+     * @throws IllegalArgumentException If the capacity is not positive
+     */
+    public ClassificationContainer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.results = new ConcurrentHashMap<String, ClassifiedStockTick>();
+        this.capacity = capacity;
+        this.leaders = new ConcurrentSkipListSet<ClassifiedStockTick>(RANK);
+        this.admissionPercentage = Double.NEGATIVE_INFINITY;
     }
 
     /**
      * Merges the stock tick and classification result provided and adds the compiled stock tick to the
      * classification results in this container.  If the stock already exists in this container, overwrites
-     * the information with the new merged stock tick classification result.
+     * the information with the new merged stock tick classification result.  If this container is bounded and
+     * full, the stock tick is only kept if it ranks among the leaders.
      *
      * @param tick The stock tick to add to these results
      * @param result The classification of the provided stock tick to associate with in these results
      */
     public void addStockTick(StockTick tick, ClassificationResult result) {
-        this.results.add(new ClassifiedStockTick(tick, result));
+        ClassifiedStockTick classified = new ClassifiedStockTick(tick, result);
+        if (this.leaders == null) {
+            this.results.put(tick.getTicker(), classified);
+            return;
+        }
+
+        // Reject a new ticker ranked below every leader of a full container without locking
+        if (result.getPercentage() < this.admissionPercentage && !this.results.containsKey(tick.getTicker())) {
+            return;
+        }
+
+        synchronized (this.leaders) {
+            ClassifiedStockTick previous = this.results.put(tick.getTicker(), classified);
+            if (previous != null) {
+                this.leaders.remove(previous);
+                this.leaderCount--;
+            }
+            this.leaders.add(classified);
+            this.leaderCount++;
+
+            if (this.leaderCount > this.capacity) {
+                ClassifiedStockTick evicted = this.leaders.pollLast();
+                this.results.remove(evicted.getStockTick().getTicker());
+                this.leaderCount--;
+            }
+            if (this.leaderCount == this.capacity) {
+                this.admissionPercentage = this.leaders.last().getClassification().getPercentage();
+            }
+        }
+    }
+
+    /**
+     * Retrieves the current leaders of this container in decreasing order of classification percentage without
+     * sorting.  Safe to call while classifications are being added; a ticker being replaced concurrently may be
+     * momentarily absent.  If this container is unbounded, every classified stock tick is a leader (see
+     * getClassifiedPumpStockTicks).
+     *
+     * @return A List of at most K classified stock ticks in descending order of classification percentage
+     */
+    public List<ClassifiedStockTick> getLeaders() {
+        if (this.leaders == null) {
+            return this.getClassifiedPumpStockTicks();
+        }
+
+        return new ArrayList<ClassifiedStockTick>(this.leaders);
     }
 
     /**
@@ -45,11 +134,14 @@ public class ClassificationContainer {
      *         classification to negative classification (least positive)
      */
     public List<ClassifiedStockTick> getClassifiedPumpStockTicks() {
+        if (this.leaders != null) {
+            return this.getLeaders();
+        }
+
         List<ClassifiedStockTick> output = new ArrayList<ClassifiedStockTick>();
-        output.addAll(this.results);
+        output.addAll(this.results.values());
 
-        output.sort((first, second) -> Double.compare(second.getClassification().getPercentage(),
-                first.getClassification().getPercentage()));
+        output.sort(RANK);
 
         return output;
     }
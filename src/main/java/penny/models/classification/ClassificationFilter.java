@@ -1,5 +1,6 @@
 package main.java.penny.models.classification;
 
+import main.java.penny.constants.TickTypes;
 import main.java.penny.marketdata.PumpStockTick;
 import main.java.penny.marketdata.StockTick;
 
@@ -15,6 +16,9 @@ import java.util.List;
  * For example, depending on the available data a model is trained with, StockTicks with extremely low prices or
  * dollar volumes may exhibit drastic percentage increases that are falsely viewed as positive model indicators
  * when they are obviously do not exhibit the actual target class (i.e. 0.0001 to 0.0002 change in price).
+ *
+ * Filtered StockTicks are PumpStockTick views of the StockTicks provided, so the derived values computed while
+ * filtering are reused when the StockTicks are classified.
  */
 public class ClassificationFilter {
 
@@ -38,7 +42,7 @@ public class ClassificationFilter {
      * and returns a new collection of the same StockTicks that satisfy the predicate.
      *
      * @param ticks The StockTicks to filter following the predicate defined in this ClassificationFilter
-     * @return A new List of StockTicks from the provided stock ticks that satisfied the predicate
+     * @return A new List of PumpStockTick views of the provided stock ticks that satisfied the predicate
      */
     public List<StockTick> filter(Iterable<StockTick> ticks) {
         return filter(ticks.iterator());
@@ -49,17 +53,15 @@ public class ClassificationFilter {
      * instance-defined predicate to provide as a new collection of the same StockTicks.
      *
      * @param ticks The iterator of StockTicks to filter following the predicate defined in this ClassificationFilter
-     * @return A new List of StockTicks from the provided iterator that satisfied the predicate
+     * @return A new List of PumpStockTick views of the provided stock ticks that satisfied the predicate
      */
     private List<StockTick> filter(Iterator<StockTick> ticks) {
         List<StockTick> filtered = new ArrayList<StockTick>();
 
         while (ticks.hasNext()) {
-            StockTick tick = ticks.next();
-
-            PumpStockTick pumpTick = new PumpStockTick(tick);
+            PumpStockTick tick = PumpStockTick.of(ticks.next());
 
-            if (satisfiesFilter(pumpTick)) {
+            if (satisfiesFilter(tick)) {
                 filtered.add(tick);
             }
         }
@@ -67,6 +69,37 @@ public class ClassificationFilter {
         return filtered;
     }
 
+    /**
+     * Returns true if the single StockTick provided satisfies the instance-defined predicate of this
+     * ClassificationFilter, and false otherwise.
+     *
+     * @param tick The StockTick to test against the predicate defined in this ClassificationFilter
+     */
+    public boolean accepts(StockTick tick) {
+        return satisfiesFilter(PumpStockTick.of(tick));
+    }
+
+    /**
+     * Returns false if the tick data already delivered for the StockTick provided fails the predicate of this
+     * ClassificationFilter, and true otherwise.  Unlike accepts, does not require the StockTick to be complete:
+     * a price or dollar volume that has not been delivered is assumed to satisfy the filter.  Allows stocks to be
+     * screened out from partial market data (such as a snapshot) before requesting all their market data.
+     *
+     * @param tick The possibly incomplete StockTick to test against the predicate defined in this ClassificationFilter
+     */
+    public boolean mayAccept(StockTick tick) {
+        if (!tick.hasTick(TickTypes.LAST)) {
+            return true;
+        }
+
+        // Derived values of partial market data are computed directly rather than memoized in a view
+        if (tick.getTickValue(TickTypes.LAST) < this.minimumPrice) {
+            return false;
+        }
+
+        return !tick.hasTick(TickTypes.VOLUME) || PumpStockTick.getVolumeUSD(tick) >= this.minimumDollarVolume;
+    }
+
     /**
      * Returns true if the StockTick provided satisfies the instance-defined predicate of this ClassificationFilter,
      * and false otherwise.
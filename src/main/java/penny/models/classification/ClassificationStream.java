@@ -0,0 +1,179 @@
+package main.java.penny.models.classification;
+
+import main.java.penny.marketdata.PumpStockTick;
+import main.java.penny.marketdata.StockTick;
+import main.java.penny.models.Classifier;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * ClassificationStream represents a pipeline classifying stock ticks as soon as their market data is delivered,
+ * rather than once an entire scan has completed.  Stock ticks that do not satisfy the classification filter are
+ * discarded on the delivering thread, and the rest are classified in delivery order by a single classification
+ * thread (the underlying Classifier need not be thread-safe).  Every positive classification is handed to the
+ * listener as soon as it is classified.
+ *
+ * A stream may keep only its K classifications of highest percentage (see ClassificationContainer), whose current
+ * leaders may be polled at any time while stock ticks are still being classified.
+ *
+ * A stock tick the classifier fails to classify is classified as invalid, and the failure is recorded by the stream
+ * (see getFailure) so a broken model is reported rather than silently producing no classifications.
+ */
+public class ClassificationStream {
+
+    /** The classifier to classify every accepted stock tick with */
+    private final Classifier classifier;
+
+    /** The filter stock ticks must satisfy to be classified, or null if every stock tick is classified */
+    private final ClassificationFilter filter;
+
+    /** The listener notified of every positive classification as soon as it is classified */
+    private final Consumer<ClassifiedStockTick> positiveListener;
+
+    /** The classified stock tick results of this stream */
+    private final ClassificationContainer classifications;
+
+    /** The single thread classifying accepted stock ticks in the order they are delivered */
+    private final ExecutorService classificationThread;
+
+    /**
+     * The first failure of the classifier, holding every later failure as suppressed, or null if there is none;
+     * written only by the classification thread
+     */
+    private volatile RuntimeException failure;
+
+    /** Number of stock ticks the classifier failed to classify; written only by the classification thread */
+    private volatile int failureCount;
+
+    /**
+     * Constructs a new ClassificationStream classifying stock ticks with the classifier provided.
+     *
+     * @param classifier The classifier to classify delivered stock ticks with; only used by the classification thread
+     * @param filter The filter stock ticks must satisfy to be classified, or null to classify every stock tick
+     * @param positiveListener The listener notified of each positive classification on the classification thread
+     */
+    public ClassificationStream(Classifier classifier, ClassificationFilter filter,
+                                Consumer<ClassifiedStockTick> positiveListener) {
+        this(classifier, filter, positiveListener, new ClassificationContainer());
+    }
+
+    /**
+     * Constructs a new ClassificationStream classifying stock ticks with the classifier provided and keeping only
+     * the classifications of highest percentage.
+     *
+     * @param classifier The classifier to classify delivered stock ticks with; only used by the classification thread
+     * @param filter The filter stock ticks must satisfy to be classified, or null to classify every stock tick
+     * @param positiveListener The listener notified of each positive classification on the classification thread
+     * @param leaderCapacity The maximum number of classifications of highest percentage to keep
+     */
+    public ClassificationStream(Classifier classifier, ClassificationFilter filter,
+                                Consumer<ClassifiedStockTick> positiveListener, int leaderCapacity) {
+        this(classifier, filter, positiveListener, new ClassificationContainer(leaderCapacity));
+    }
+
+    /**
+     * Constructs a new ClassificationStream adding classifications to the container provided.
+     */
+    private ClassificationStream(Classifier classifier, ClassificationFilter filter,
+                                 Consumer<ClassifiedStockTick> positiveListener,
+                                 ClassificationContainer classifications) {
+        this.classifier = classifier;
+        this.filter = filter;
+        this.positiveListener = positiveListener;
+        this.classifications = classifications;
+        this.classificationThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ClassificationStream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Accepts the delivered stock tick provided into this stream, classifying it asynchronously if it satisfies
+     * the classification filter.  This method is thread-safe and does not block on classification.
+     *
+     * @param delivered The stock tick whose market data has been delivered
+     */
+    public void accept(StockTick delivered) {
+        if (delivered == null) {
+            return;
+        }
+
+        // Filter and classify the same view so its derived values are only computed once
+        PumpStockTick tick = PumpStockTick.of(delivered);
+        if (this.filter != null && !this.filter.accepts(tick)) {
+            return;
+        }
+
+        this.classificationThread.execute(() -> {
+            ClassificationResult classification = this.classify(tick);
+            this.classifications.addStockTick(tick, classification);
+
+            if (classification.isPositive()) {
+                this.positiveListener.accept(new ClassifiedStockTick(tick, classification));
+            }
+        });
+    }
+
+    /**
+     * Classifies the stock tick provided on the classification thread, recording the failure and classifying the
+     * stock tick as invalid if the classifier fails.
+     */
+    private ClassificationResult classify(StockTick tick) {
+        try {
+            return this.classifier.classify(tick);
+        } catch (RuntimeException e) {
+            if (this.failure == null) {
+                this.failure = e;
+            } else {
+                this.failure.addSuppressed(e);
+            }
+            this.failureCount++;
+            return ClassificationResult.INVALID;
+        }
+    }
+
+    /**
+     * Returns the first exception thrown by the classifier of this stream, holding every later exception as
+     * suppressed, or null if the classifier has not failed.  Complete once this stream is closed.
+     */
+    public RuntimeException getFailure() {
+        return this.failure;
+    }
+
+    /**
+     * Returns the number of stock ticks the classifier of this stream failed to classify, each classified as invalid.
+     * Complete once this stream is closed.
+     */
+    public int getFailureCount() {
+        return this.failureCount;
+    }
+
+    /**
+     * Returns the current leaders of this stream in descending order of classification percentage (see
+     * ClassificationContainer.getLeaders).  This method is thread-safe and may be called while stock ticks are
+     * still being classified.
+     */
+    public List<ClassifiedStockTick> getLeaders() {
+        return this.classifications.getLeaders();
+    }
+
+    /**
+     * Closes this stream once every accepted stock tick has been classified.  Stock ticks accepted after this stream
+     * is closed are rejected.
+     *
+     * @return A List of every classified stock tick (or every leader) of this stream in descending order of
+     *         classification percentage
+     * @throws InterruptedException If interrupted while waiting for the accepted stock ticks to be classified
+     */
+    public List<ClassifiedStockTick> close() throws InterruptedException {
+        this.classificationThread.shutdown();
+        this.classificationThread.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+        return this.classifications.getClassifiedPumpStockTicks();
+    }
+}
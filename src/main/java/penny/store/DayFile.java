@@ -0,0 +1,203 @@
+package main.java.penny.store;
+
+import main.java.penny.constants.TickTypes;
+import main.java.penny.marketdata.StockTick;
+import main.java.penny.marketdata.StockTickCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static main.java.penny.constants.SerializationConstants.*;
+
+/**
+ * DayFile represents the binary container of every stock tick serialized on a given day.  A day file replaces the
+ * directory of one serialized file per ticker with a single append-only file written as one sequential stream, and
+ * lives alongside the (legacy) day directory of the same date: MMMyyyy/dd.day.
+ *
+ * A day file is laid out in big-endian order as follows:
+ *
+ *   Header (32 bytes): magic number ("PNYD"), format version, maximum record width, number of tick types, creation
+ *                      time and 8 reserved bytes
+ *   Records: one record per appended stock tick, in order of appending: the stock tick encoded by StockTickCodec,
+ *            so each record is only as long as the tick data it holds
+ *   Record offsets: the offset of each record within the file, in order of appending, as 32-bit integers
+ *   Index: one entry per ticker in ascending ticker order: the ticker (a length byte followed by up to 31 bytes
+ *          of UTF-8, zero padded) and the offset of the most recent record of the ticker
+ *   Bloom filter: the bits of a TickerBloomFilter of every ticker of the index, as 64-bit words
+ *   Footer (28 bytes): offset of the record offsets, number of records, number of index entries, number of words
+ *                      and hash functions of the Bloom filter and the index magic number ("PNYI")
+ *
+ * A ticker is looked up by testing the Bloom filter, then binary searching the index in place, and finally reading
+ * the single record it refers to; a ticker absent from the day is usually rejected by the Bloom filter alone.
+ *
+ * The record offsets, index, Bloom filter and footer are written when the file is closed and are truncated away
+ * when the file is appended to again.  A day file whose index is missing (for example, because the writer never
+ * closed) is still readable: its records are scanned instead.
+ */
+public final class DayFile {
+
+    /** Magic number identifying a day file ("PNYD") */
+    public static final int MAGIC = 0x504E5944;
+
+    /** Version of the day file format written by this class */
+    public static final int FORMAT_VERSION = 1;
+
+    /** Magic number ending the footer of an indexed day file ("PNYI") */
+    static final int INDEX_MAGIC = 0x504E5949;
+
+    /** Number of bytes of the header */
+    static final int HEADER_BYTES = 32;
+
+    /** Maximum number of UTF-8 bytes of a ticker */
+    public static final int MAX_TICKER_BYTES = StockTickCodec.MAX_TICKER_BYTES;
+
+    /** Number of bytes of an encoded ticker: a length byte followed by the zero-padded ticker */
+    static final int TICKER_BYTES = 1 + MAX_TICKER_BYTES;
+
+    /** Maximum number of bytes of a record */
+    static final int MAX_RECORD_BYTES = StockTickCodec.MAX_ENCODED_BYTES;
+
+    /** Number of bytes of each record offset */
+    static final int RECORD_OFFSET_BYTES = Integer.BYTES;
+
+    /** Number of bytes of each index entry */
+    static final int INDEX_ENTRY_BYTES = TICKER_BYTES + Integer.BYTES;
+
+    /** Number of bytes of the footer */
+    static final int FOOTER_BYTES = Long.BYTES + 5 * Integer.BYTES;
+
+    private DayFile() {}
+
+    /**
+     * Returns the day file of the date provided within the database directory defined by the SerializationConstants.
+     *
+     * @param date The date of the stock ticks of the day file
+     */
+    public static File getDayFile(Date date) {
+        Path path = Paths.get(DATABASE_ROOT_DIR, DATABASE_DIR, format(MONTH_DIR_FORMAT, date),
+                format(DAY_DIR_FORMAT, date) + DAY_FILE_EXTENSION);
+        return new File(path.toString());
+    }
+
+    /**
+     * Returns the (legacy) day directory of one serialized file per ticker of the date provided within the database
+     * directory defined by the SerializationConstants.
+     *
+     * @param date The date of the stock ticks of the day directory
+     */
+    public static File getDayDirectory(Date date) {
+        Path path = Paths.get(DATABASE_ROOT_DIR, DATABASE_DIR, format(MONTH_DIR_FORMAT, date),
+                format(DAY_DIR_FORMAT, date));
+        return new File(path.toString());
+    }
+
+    /**
+     * Formats the date provided with the shared date format specified.  Date formats are not thread-safe, so day
+     * files of different dates may be located from many threads at once.
+     */
+    private static String format(SimpleDateFormat dateFormat, Date date) {
+        synchronized (dateFormat) {
+            return dateFormat.format(date);
+        }
+    }
+
+    /**
+     * Writes the header of a new day file to the buffer provided.
+     */
+    static void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(MAX_RECORD_BYTES);
+        buffer.putInt(TickTypes.NUM_TICK_TYPES);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putLong(0L); // Reserved
+    }
+
+    /**
+     * Reads and validates the header of a day file from the buffer provided.
+     *
+     * @throws IOException If the header is not that of a day file of a supported format version
+     */
+    static void readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a day file");
+        }
+
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported day file format version: " + version);
+        }
+        if (buffer.getInt() != MAX_RECORD_BYTES || buffer.getInt() != TickTypes.NUM_TICK_TYPES) {
+            throw new IOException("Day file records do not match the tracked tick types");
+        }
+
+        buffer.getLong(); // Creation time
+        buffer.getLong(); // Reserved
+    }
+
+    /**
+     * Writes the ticker provided to the buffer specified as a length byte followed by the zero-padded ticker.
+     *
+     * @throws IllegalArgumentException If the ticker is longer than MAX_TICKER_BYTES in UTF-8
+     */
+    static void writeTicker(ByteBuffer buffer, String ticker) {
+        byte[] bytes = ticker.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_TICKER_BYTES) {
+            throw new IllegalArgumentException("Ticker too long to store in a day file: " + ticker);
+        }
+
+        buffer.put((byte) bytes.length);
+        buffer.put(bytes);
+        for (int i = bytes.length; i < MAX_TICKER_BYTES; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    /**
+     * Reads a ticker written by writeTicker from the buffer provided.
+     */
+    static String readTicker(ByteBuffer buffer) {
+        int length = Math.min(buffer.get() & 0xFF, MAX_TICKER_BYTES);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        buffer.position(buffer.position() + MAX_TICKER_BYTES - length);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the record of the stock tick provided to the buffer specified.
+     *
+     * @throws IllegalArgumentException If the ticker of the stock tick is longer than MAX_TICKER_BYTES in UTF-8
+     */
+    static void writeRecord(ByteBuffer buffer, StockTick tick) {
+        StockTickCodec.encode(tick, buffer);
+    }
+
+    /**
+     * Reads the record of a stock tick written by writeRecord from the buffer provided.
+     *
+     * @return A new StockTick with the ticker and tick data of the record
+     * @throws IllegalArgumentException If the record is malformed
+     */
+    static StockTick readRecord(ByteBuffer buffer) {
+        return StockTickCodec.decode(buffer);
+    }
+
+    /**
+     * Reads only the ticker of the record written by writeRecord from the buffer provided, leaving the buffer
+     * positioned after the record.
+     *
+     * @throws IllegalArgumentException If the record is malformed
+     * @throws java.nio.BufferUnderflowException If the buffer ends before the record does
+     */
+    static String skipRecord(ByteBuffer buffer) {
+        return StockTickCodec.skip(buffer);
+    }
+}
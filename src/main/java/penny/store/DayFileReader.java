@@ -0,0 +1,340 @@
+package main.java.penny.store;
+
+import main.java.penny.marketdata.StockTick;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DayFileReader represents a reader of a day file (see DayFile).  The day file is memory-mapped and its index and
+ * Bloom filter are searched in place, so opening a day file reads only its header and footer, and looking up a
+ * ticker touches only the Bloom filter, a logarithmic number of index entries and the single record of the ticker.
+ *
+ * A day file without an index is read by scanning its records for the most recent record of each ticker, which are
+ * then held on the heap.  The scan ends at the first record that is short or malformed; everything from there on is
+ * treated as the torn tail of a writer that never finished closing.
+ */
+public class DayFileReader {
+
+    /** The memory-mapped contents of the day file */
+    private final ByteBuffer data;
+
+    /** Number of complete records of the day file */
+    private final int recordCount;
+
+    /** Number of tickers of the day file */
+    private final int tickerCount;
+
+    /** Offset of the end of the records of the day file, where the record offsets (or the torn tail) begin */
+    private final int recordsEnd;
+
+    /** Offset of the index of the day file, or -1 if the day file has no index and its records were scanned */
+    private final int indexOffset;
+
+    /** Bloom filter of every ticker of the day file, or null if the day file has no index */
+    private final TickerBloomFilter bloomFilter;
+
+    /** Offset of every record of the day file if its records were scanned, and null otherwise */
+    private final int[] scannedOffsets;
+
+    /** Every ticker of the day file in ascending order if its records were scanned, and null otherwise */
+    private final String[] scannedTickers;
+
+    /** Offset of the most recent record of each scanned ticker, in the order of the tickers */
+    private final int[] scannedLatestOffsets;
+
+    /**
+     * Constructs a new DayFileReader of the day file contents provided.
+     *
+     * @param data The contents of the day file
+     * @throws IOException If the contents are not those of a day file of a supported format version
+     */
+    DayFileReader(ByteBuffer data) throws IOException {
+        this.data = data;
+        DayFile.readHeader(data.duplicate());
+
+        long recordsEnd = findRecordsEnd(data);
+        if (recordsEnd >= 0) {
+            int footer = data.limit() - DayFile.FOOTER_BYTES;
+
+            this.recordsEnd = (int) recordsEnd;
+            this.recordCount = data.getInt(footer + Long.BYTES);
+            this.tickerCount = data.getInt(footer + Long.BYTES + Integer.BYTES);
+            this.indexOffset = this.recordsEnd + this.recordCount * DayFile.RECORD_OFFSET_BYTES;
+
+            ByteBuffer bloom = data.duplicate();
+            bloom.position(this.indexOffset + this.tickerCount * DayFile.INDEX_ENTRY_BYTES);
+            bloom.limit(footer);
+            this.bloomFilter = new TickerBloomFilter(bloom.slice().order(data.order()).asLongBuffer(),
+                    data.getInt(footer + Long.BYTES + 3 * Integer.BYTES));
+
+            this.scannedOffsets = null;
+            this.scannedTickers = null;
+            this.scannedLatestOffsets = null;
+        } else {
+            // Without an index, every complete record is scanned and later records of a ticker supersede earlier ones
+            this.indexOffset = -1;
+            this.bloomFilter = null;
+
+            Map<String, Integer> latest = new TreeMap<String, Integer>();
+            int[] offsets = new int[16];
+            int records = 0;
+            ByteBuffer record = data.duplicate();
+            record.position(DayFile.HEADER_BYTES);
+            while (record.hasRemaining()) {
+                int offset = record.position();
+                try {
+                    latest.put(DayFile.skipRecord(record), offset);
+                } catch (IllegalArgumentException | BufferUnderflowException e) {
+                    // A short or malformed record begins a torn tail, such as an index cut short while it was being
+                    // written; the record offsets always begin with a zero byte, which is never a record
+                    record.position(offset);
+                    break;
+                }
+
+                if (records == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, 2 * records);
+                }
+                offsets[records++] = offset;
+            }
+
+            this.recordsEnd = record.position();
+            this.recordCount = records;
+            this.scannedOffsets = Arrays.copyOf(offsets, records);
+            this.tickerCount = latest.size();
+            this.scannedTickers = latest.keySet().toArray(new String[0]);
+            this.scannedLatestOffsets = new int[this.tickerCount];
+            for (int i = 0; i < this.tickerCount; i++) {
+                this.scannedLatestOffsets[i] = latest.get(this.scannedTickers[i]);
+            }
+        }
+    }
+
+    /**
+     * Opens the day file provided for reading by memory-mapping it.
+     *
+     * @param file The day file to read
+     * @return A reader of the day file
+     * @throws IOException If the file cannot be read or is not a day file of a supported format version
+     */
+    public static DayFileReader open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Day file too large to map: " + file);
+            }
+            return new DayFileReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the number of records of the day file, including records superseded by later records of the same
+     * ticker.
+     */
+    public int getRecordCount() {
+        return this.recordCount;
+    }
+
+    /**
+     * Returns the number of tickers of the day file.
+     */
+    public int getTickerCount() {
+        return this.tickerCount;
+    }
+
+    /**
+     * Returns true if the day file has an index that is searched in place, and false if the day file has no index
+     * and its records were scanned.
+     */
+    public boolean isIndexed() {
+        return this.indexOffset >= 0;
+    }
+
+    /**
+     * Returns every ticker of the day file in ascending order.  Reads the whole index of an indexed day file.
+     */
+    public List<String> getTickers() {
+        List<String> tickers = new ArrayList<String>(this.tickerCount);
+        for (int entry = 0; entry < this.tickerCount; entry++) {
+            tickers.add(this.getTicker(entry));
+        }
+        return tickers;
+    }
+
+    /**
+     * Returns false if the day file definitely has no record of the ticker provided, and true if it may have.  Does
+     * not read the index or any record of an indexed day file.
+     *
+     * @param ticker The ticker to test
+     */
+    public boolean mightContain(String ticker) {
+        return this.bloomFilter == null || this.bloomFilter.mightContain(ticker);
+    }
+
+    /**
+     * Returns the most recent stock tick of the ticker provided, or null if the day file has no record of it.
+     *
+     * @param ticker The ticker of the stock tick to read
+     */
+    public StockTick find(String ticker) {
+        int entry = this.indexOf(ticker);
+        return entry < 0 ? null : this.readRecordAt(this.getLatestRecordOffset(entry));
+    }
+
+    /**
+     * Returns the most recent stock tick of every ticker of the day file in ascending order of ticker.
+     */
+    public List<StockTick> readAll() {
+        List<StockTick> ticks = new ArrayList<StockTick>(this.tickerCount);
+        for (int entry = 0; entry < this.tickerCount; entry++) {
+            ticks.add(this.readEntry(entry));
+        }
+        return ticks;
+    }
+
+    /**
+     * Returns the most recent stock tick of the ticker of the index entry provided.  Entries are numbered in
+     * ascending order of ticker from 0 to getTickerCount (exclusive), as in getTickers.  Safe to call from many
+     * threads at once.
+     *
+     * @param entry The index entry of the ticker
+     * @throws IndexOutOfBoundsException If the day file has no such entry
+     */
+    public StockTick readEntry(int entry) {
+        if (entry < 0 || entry >= this.tickerCount) {
+            throw new IndexOutOfBoundsException("Entry " + entry + " of " + this.tickerCount);
+        }
+        return this.readRecordAt(this.getLatestRecordOffset(entry));
+    }
+
+    /**
+     * Returns the stock tick of the record number provided.
+     *
+     * @param record The number of the record, in order of appending
+     * @throws IndexOutOfBoundsException If the day file has no such record
+     */
+    public StockTick readRecord(int record) {
+        if (record < 0 || record >= this.recordCount) {
+            throw new IndexOutOfBoundsException("Record " + record + " of " + this.recordCount);
+        }
+        return this.readRecordAt(this.getRecordOffset(record));
+    }
+
+    /**
+     * Returns the offset of the end of the records of the day file; a writer appends its next record there.
+     */
+    int getRecordsEnd() {
+        return this.recordsEnd;
+    }
+
+    /**
+     * Returns the offset of the record number provided, in order of appending.
+     *
+     * @param record The number of the record
+     */
+    int getRecordOffset(int record) {
+        if (this.scannedOffsets != null) {
+            return this.scannedOffsets[record];
+        }
+
+        return this.data.getInt(this.recordsEnd + record * DayFile.RECORD_OFFSET_BYTES);
+    }
+
+    /**
+     * Returns the ticker of the index entry provided, in ascending order of ticker.
+     *
+     * @param entry The index entry
+     */
+    String getTicker(int entry) {
+        if (this.scannedTickers != null) {
+            return this.scannedTickers[entry];
+        }
+
+        ByteBuffer index = this.data.duplicate();
+        index.position(this.indexOffset + entry * DayFile.INDEX_ENTRY_BYTES);
+        return DayFile.readTicker(index);
+    }
+
+    /**
+     * Returns the offset of the most recent record of the ticker of the index entry provided.
+     *
+     * @param entry The index entry
+     */
+    int getLatestRecordOffset(int entry) {
+        if (this.scannedLatestOffsets != null) {
+            return this.scannedLatestOffsets[entry];
+        }
+
+        return this.data.getInt(this.indexOffset + entry * DayFile.INDEX_ENTRY_BYTES + DayFile.TICKER_BYTES);
+    }
+
+    /**
+     * Returns the index entry of the ticker provided, or -1 if the day file has no record of it.  The Bloom filter
+     * rejects most absent tickers before the index is binary searched.
+     *
+     * @param ticker The ticker to search for
+     */
+    int indexOf(String ticker) {
+        if (!this.mightContain(ticker)) {
+            return -1;
+        }
+
+        int low = 0;
+        int high = this.tickerCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = this.getTicker(mid).compareTo(ticker);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the stock tick of the record at the offset provided.
+     */
+    private StockTick readRecordAt(int offset) {
+        ByteBuffer buffer = this.data.duplicate();
+        buffer.position(offset);
+        return DayFile.readRecord(buffer);
+    }
+
+    /**
+     * Returns the offset of the end of the records of the day file contents provided, or -1 if the contents have no
+     * valid index.  The index is valid if the footer is intact and the record offsets, index and Bloom filter lie
+     * exactly between the records and the footer.
+     */
+    static long findRecordsEnd(ByteBuffer data) {
+        int size = data.limit();
+        if (size < DayFile.HEADER_BYTES + DayFile.FOOTER_BYTES) {
+            return -1;
+        }
+
+        int footer = size - DayFile.FOOTER_BYTES;
+        long recordsEnd = data.getLong(footer);
+        int records = data.getInt(footer + Long.BYTES);
+        int entries = data.getInt(footer + Long.BYTES + Integer.BYTES);
+        int bloomWords = data.getInt(footer + Long.BYTES + 2 * Integer.BYTES);
+        int bloomHashes = data.getInt(footer + Long.BYTES + 3 * Integer.BYTES);
+        if (data.getInt(footer + Long.BYTES + 4 * Integer.BYTES) != DayFile.INDEX_MAGIC
+                || recordsEnd < DayFile.HEADER_BYTES || records < 0 || entries < 0 || bloomWords <= 0
+                || bloomHashes <= 0 || recordsEnd + (long) records * DayFile.RECORD_OFFSET_BYTES
+                        + (long) entries * DayFile.INDEX_ENTRY_BYTES + (long) bloomWords * Long.BYTES != footer) {
+            return -1;
+        }
+        return recordsEnd;
+    }
+}
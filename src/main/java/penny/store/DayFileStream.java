@@ -0,0 +1,240 @@
+package main.java.penny.store;
+
+import main.java.penny.marketdata.StockTick;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * DayFileStream represents a write-behind stage persisting stock ticks to a day file as soon as their market data is
+ * delivered, rather than once an entire scan has completed.  Delivered stock ticks are handed to a bounded queue and
+ * appended in batches by a single dedicated I/O thread, which flushes each batch once the queue runs dry.  Delivering
+ * threads (such as the thread of the broker delivering market data) never wait on the I/O thread: a stock tick
+ * delivered while the queue is full overflows, and is left to be accepted once the scan ends (see acceptRemaining)
+ * rather than held in an unbounded backlog.
+ *
+ * Closing the stream appends every queued stock tick and writes the index of the day file.  A stream still open when
+ * the JVM shuts down is closed by a shutdown hook, so stock ticks queued in a stream are never lost on exit.
+ */
+public class DayFileStream {
+
+    /** Marks the end of the queue once this stream is closed */
+    private static final StockTick END = new StockTick("");
+
+    /** The writer of the day file; only used by the I/O thread until the I/O thread has ended */
+    private final DayFileWriter writer;
+
+    /** Stock ticks accepted but not yet appended to the day file */
+    private final BlockingQueue<StockTick> queue;
+
+    /** Maximum number of stock ticks appended between flushes */
+    private final int batchSize;
+
+    /** Tickers of every stock tick accepted into this stream */
+    private final Set<String> acceptedTickers;
+
+    /**
+     * Guards closing this stream: held shared while accepting a stock tick into the queue and exclusively while
+     * closing, so no stock tick is queued behind the end of the queue
+     */
+    private final ReadWriteLock closeLock;
+
+    /** The single thread appending accepted stock ticks to the day file */
+    private final Thread ioThread;
+
+    /** Closes this stream if the JVM shuts down while it is still open */
+    private final Thread shutdownHook;
+
+    /** True once this stream is closed; written only while holding the close lock exclusively */
+    private volatile boolean closed;
+
+    /** The first failure appending to the day file, or null if there is none; written only by the I/O thread */
+    private volatile IOException failure;
+
+    /**
+     * Opens a new DayFileStream appending to the day file provided, creating it if it does not exist.
+     *
+     * @param dayFile The day file to append delivered stock ticks to
+     * @param capacity The maximum number of stock ticks waiting to be appended
+     * @param batchSize The maximum number of stock ticks appended between flushes
+     * @throws IOException If the day file cannot be opened for appending
+     */
+    public DayFileStream(File dayFile, int capacity, int batchSize) throws IOException {
+        this.writer = new DayFileWriter(dayFile);
+        this.queue = new ArrayBlockingQueue<StockTick>(capacity);
+        this.batchSize = batchSize;
+        this.acceptedTickers = ConcurrentHashMap.newKeySet();
+        this.closeLock = new ReentrantReadWriteLock();
+
+        this.ioThread = new Thread(this::run, "DayFileStream");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+
+        this.shutdownHook = new Thread(() -> {
+            try {
+                this.close();
+            } catch (IOException | InterruptedException e) {
+                System.out.println("Unable to persist stock ticks on shutdown: " + e.getMessage());
+            }
+        }, "DayFileStreamShutdown");
+        Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+    }
+
+    /**
+     * Accepts the delivered stock tick provided to be appended to the day file.  Never waits for the I/O thread: if
+     * the queue of this stream is full, the stock tick overflows and is not accepted, so it is accepted by
+     * acceptRemaining once the scan ends.  This method is thread-safe.
+     *
+     * @param delivered The stock tick whose market data has been delivered
+     * @throws IllegalStateException If this stream is closed
+     */
+    public void accept(StockTick delivered) {
+        if (delivered == null) {
+            return;
+        }
+
+        this.closeLock.readLock().lock();
+        try {
+            if (this.closed) {
+                throw new IllegalStateException("Day file stream is closed");
+            }
+
+            // A stock tick that overflows is not accepted, so acceptRemaining accepts it
+            if (this.queue.offer(delivered)) {
+                this.acceptedTickers.add(delivered.getTicker());
+            }
+        } finally {
+            this.closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Accepts every stock tick provided whose ticker was not already accepted into this stream, such as stock ticks
+     * whose market data failed to deliver before the end of a scan or that overflowed the queue.  Waits for the I/O
+     * thread while the queue of this stream is full.
+     *
+     * @param ticks The stock ticks to accept if not already accepted
+     * @throws IllegalStateException If this stream is closed
+     * @throws InterruptedException If interrupted while waiting for the I/O thread
+     */
+    public void acceptRemaining(Collection<StockTick> ticks) throws InterruptedException {
+        for (StockTick tick : ticks) {
+            if (this.acceptedTickers.contains(tick.getTicker())) {
+                continue;
+            }
+
+            this.closeLock.readLock().lock();
+            try {
+                if (this.closed) {
+                    throw new IllegalStateException("Day file stream is closed");
+                }
+
+                // Shared with delivering threads, which only offer to the queue and so never wait on this thread
+                this.queue.put(tick);
+                this.acceptedTickers.add(tick.getTicker());
+            } finally {
+                this.closeLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Closes this stream once every accepted stock tick has been appended, writing the index of the day file and
+     * forcing it to disk.  Closing a stream more than once has no further effect.
+     *
+     * @throws IOException If any accepted stock tick could not be appended or the day file could not be closed
+     * @throws InterruptedException If interrupted while waiting for the accepted stock ticks to be appended
+     */
+    public void close() throws IOException, InterruptedException {
+        boolean closing = false;
+        this.closeLock.writeLock().lock();
+        try {
+            if (!this.closed) {
+                this.closed = true;
+                closing = true;
+            }
+        } finally {
+            this.closeLock.writeLock().unlock();
+        }
+
+        // No stock tick is queued once closed, so the end of the queue follows every accepted stock tick
+        if (closing) {
+            this.queue.put(END);
+        }
+
+        this.ioThread.join();
+        this.writer.close();
+
+        if (Thread.currentThread() != this.shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down
+            }
+        }
+
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * Appends accepted stock ticks in batches until the end of the queue, flushing whenever the queue runs dry.  Once
+     * appending fails, the remaining stock ticks are drained without being appended so delivering threads never wait
+     * on a failed day file.
+     */
+    private void run() {
+        List<StockTick> batch = new ArrayList<StockTick>(this.batchSize);
+        boolean ended = false;
+
+        while (!ended) {
+            try {
+                batch.add(this.queue.take());
+            } catch (InterruptedException e) {
+                // Only the end of the queue ends this thread, so no accepted stock tick is lost
+                continue;
+            }
+            this.queue.drainTo(batch, this.batchSize - 1);
+
+            for (StockTick tick : batch) {
+                if (tick == END) {
+                    ended = true;
+                } else if (this.failure == null) {
+                    this.append(tick);
+                }
+            }
+            batch.clear();
+
+            if (this.failure == null && (ended || this.queue.isEmpty())) {
+                try {
+                    this.writer.flush();
+                } catch (IOException e) {
+                    this.failure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the stock tick provided to the day file, recording the failure if it cannot be appended.  A stock tick
+     * whose ticker cannot be stored is skipped.
+     */
+    private void append(StockTick tick) {
+        try {
+            this.writer.append(tick);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unable to persist stock tick: " + e.getMessage());
+        } catch (IOException e) {
+            this.failure = e;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package main.java.penny.store;
+
+import main.java.penny.marketdata.StockTick;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DayFileWriter represents an appender of stock tick records to a day file (see DayFile).  Records are buffered and
+ * written sequentially, and the ticker index and its Bloom filter are written once the writer is closed.  Opening
+ * an existing day file truncates its index so new records can be appended after the existing ones; the index is
+ * rewritten to cover every record once the writer is closed again.
+ *
+ * A DayFileWriter may be shared by many threads; appends are serialized.
+ */
+public class DayFileWriter implements Closeable {
+
+    /** Number of bytes of records buffered before they are written to the day file */
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /** The channel of the day file */
+    private final FileChannel channel;
+
+    /** Records appended but not yet written to the day file */
+    private final ByteBuffer buffer;
+
+    /** Offset of the most recent record of each ticker; later records of a ticker supersede earlier ones */
+    private final Map<String, Integer> index;
+
+    /** Offset of every record of the day file in order of appending, including buffered records */
+    private int[] recordOffsets;
+
+    /** Number of records of the day file, including buffered records */
+    private int recordCount;
+
+    /** Offset of the end of the records of the day file, including buffered records */
+    private long recordsEnd;
+
+    /**
+     * Opens the day file provided for appending, creating it (and its parent directories) if it does not exist.
+     *
+     * @param file The day file to append to
+     * @throws IOException If the file cannot be opened or exists but is not a day file of a supported format version
+     */
+    public DayFileWriter(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        this.index = new TreeMap<String, Integer>();
+        this.recordOffsets = new int[16];
+
+        try {
+            if (this.channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(DayFile.HEADER_BYTES);
+                DayFile.writeHeader(header);
+                header.flip();
+                while (header.hasRemaining()) {
+                    this.channel.write(header);
+                }
+                this.recordsEnd = DayFile.HEADER_BYTES;
+            } else {
+                this.reopen();
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the record of the stock tick provided to the day file.  The record may be buffered until the writer
+     * is flushed or closed.
+     *
+     * @param tick The stock tick to append
+     * @throws IOException If the buffered records cannot be written, or the day file is too large to hold the
+     *                     record
+     * @throws IllegalArgumentException If the ticker of the stock tick is too long to store (see DayFile)
+     */
+    public synchronized void append(StockTick tick) throws IOException {
+        // Records are addressed by 32-bit offsets, so a day file may not outgrow them
+        if (this.recordsEnd + DayFile.MAX_RECORD_BYTES > Integer.MAX_VALUE) {
+            throw new IOException("Day file too large to append to");
+        }
+        if (this.buffer.remaining() < DayFile.MAX_RECORD_BYTES) {
+            this.flush();
+        }
+
+        int start = this.buffer.position();
+        try {
+            DayFile.writeRecord(this.buffer, tick);
+        } catch (RuntimeException e) {
+            this.buffer.position(start);
+            throw e;
+        }
+
+        int offset = (int) this.recordsEnd;
+        if (this.recordCount == this.recordOffsets.length) {
+            this.recordOffsets = Arrays.copyOf(this.recordOffsets, 2 * this.recordCount);
+        }
+        this.recordOffsets[this.recordCount++] = offset;
+        this.recordsEnd += this.buffer.position() - start;
+        this.index.put(tick.getTicker(), offset);
+    }
+
+    /**
+     * Writes every buffered record to the day file.
+     *
+     * @throws IOException If the records cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Returns the number of records of the day file, including records not yet written.
+     */
+    public synchronized int getRecordCount() {
+        return this.recordCount;
+    }
+
+    /**
+     * Writes every buffered record followed by the record offsets, ticker index, Bloom filter and footer, then
+     * closes the day file.
+     *
+     * @throws IOException If the records or index cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!this.channel.isOpen()) {
+            return;
+        }
+
+        try {
+            this.flush();
+
+            TickerBloomFilter bloomFilter = TickerBloomFilter.create(this.index.size());
+            this.index.keySet().forEach(bloomFilter::add);
+
+            ByteBuffer index = ByteBuffer.allocate(this.recordCount * DayFile.RECORD_OFFSET_BYTES
+                    + this.index.size() * DayFile.INDEX_ENTRY_BYTES + bloomFilter.getNumWords() * Long.BYTES
+                    + DayFile.FOOTER_BYTES);
+            index.asIntBuffer().put(this.recordOffsets, 0, this.recordCount);
+            index.position(this.recordCount * DayFile.RECORD_OFFSET_BYTES);
+            for (Map.Entry<String, Integer> entry : this.index.entrySet()) {
+                DayFile.writeTicker(index, entry.getKey());
+                index.putInt(entry.getValue());
+            }
+            index.asLongBuffer().put(bloomFilter.getBits());
+            index.position(index.position() + bloomFilter.getNumWords() * Long.BYTES);
+
+            index.putLong(this.recordsEnd);
+            index.putInt(this.recordCount);
+            index.putInt(this.index.size());
+            index.putInt(bloomFilter.getNumWords());
+            index.putInt(bloomFilter.getNumHashes());
+            index.putInt(DayFile.INDEX_MAGIC);
+
+            index.flip();
+            while (index.hasRemaining()) {
+                this.channel.write(index);
+            }
+            this.channel.force(false);
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Prepares the existing day file for appending by reading its index (or scanning its records), truncating the
+     * index (or the torn tail left by a writer that never finished closing) and positioning the channel after the
+     * last complete record.
+     */
+    private void reopen() throws IOException {
+        long size = this.channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Day file too large to append to");
+        }
+
+        ByteBuffer data = ByteBuffer.allocate((int) size);
+        while (data.hasRemaining() && this.channel.read(data, data.position()) >= 0) {
+            // Read the whole file before the index is truncated
+        }
+        data.flip();
+
+        DayFileReader reader = new DayFileReader(data);
+        for (int entry = 0; entry < reader.getTickerCount(); entry++) {
+            this.index.put(reader.getTicker(entry), reader.getLatestRecordOffset(entry));
+        }
+        this.recordCount = reader.getRecordCount();
+        this.recordOffsets = new int[Math.max(16, this.recordCount)];
+        for (int record = 0; record < this.recordCount; record++) {
+            this.recordOffsets[record] = reader.getRecordOffset(record);
+        }
+        this.recordsEnd = reader.getRecordsEnd();
+
+        this.channel.truncate(this.recordsEnd);
+        this.channel.position(this.recordsEnd);
+    }
+}
@@ -0,0 +1,225 @@
+package main.java.penny.store;
+
+import main.java.penny.constants.TickTypes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static main.java.penny.constants.SerializationConstants.*;
+
+/**
+ * MonthArchive represents the compressed, columnar archive of every stock tick serialized in a given month.  A month
+ * archive holds the same stock ticks as the day files (or legacy day directories) of the month in a single file,
+ * stored column by column so a research query over a single tick type reads and decompresses only that tick type.
+ * The archive of a month lives in its month directory: MMMyyyy/MMMyyyy.archive.
+ *
+ * A month archive is laid out in big-endian order as follows:
+ *
+ *   Header (32 bytes): magic number ("PNYA"), format version, number of columns per day, number of tick types,
+ *                      creation time and 8 reserved bytes
+ *   Column blocks: for each day in ascending order, one compressed block per column in the order: ticker column
+ *                  (the dictionary identifier of the ticker of each row), present ticks column and size ticks column
+ *                  (the bitmasks of StockTick.getPresentTicks and getSizeTicks of each row), followed by one value
+ *                  column per tick type (the value of each row, NaN where the row has no value)
+ *   Dictionary: every ticker of the month in order of dictionary identifier, as a length byte followed by UTF-8
+ *   Directory: one entry per day in ascending order: the day of the month, the number of rows, and the offset and
+ *              compressed length of each column block of the day
+ *   Footer (28 bytes): offset of the dictionary, offset of the directory, number of tickers, number of days and the
+ *                      directory magic number ("PNYX")
+ *
+ * Each column block is the fixed-width values of its column with their bytes shuffled (every first byte, then every
+ * second byte, and so on) and then deflated.  Shuffling groups the sign, exponent and high-order bytes of similar
+ * prices and sizes together, which compresses far better than the values as written.  A block is decompressed alone,
+ * without the other columns of its day.
+ */
+public final class MonthArchive {
+
+    /** Magic number identifying a month archive ("PNYA") */
+    public static final int MAGIC = 0x504E5941;
+
+    /** Version of the month archive format written by this class */
+    public static final int FORMAT_VERSION = 1;
+
+    /** Magic number ending the footer of a complete month archive ("PNYX") */
+    static final int DIRECTORY_MAGIC = 0x504E5958;
+
+    /** Number of bytes of the header */
+    static final int HEADER_BYTES = 32;
+
+    /** Column of the dictionary identifier of the ticker of each row */
+    static final int TICKER_COLUMN = 0;
+
+    /** Column of the bitmask of tick types present in each row */
+    static final int PRESENT_COLUMN = 1;
+
+    /** Column of the bitmask of tick types that are sizes rather than prices in each row */
+    static final int SIZE_COLUMN = 2;
+
+    /** Number of columns of each day: the ticker, present and size columns followed by one column per tick type */
+    static final int NUM_COLUMNS = 3 + TickTypes.NUM_TICK_TYPES;
+
+    /** Number of bytes of each directory entry */
+    static final int DIRECTORY_ENTRY_BYTES = Integer.BYTES + Integer.BYTES + NUM_COLUMNS * (Long.BYTES + Integer.BYTES);
+
+    /** Number of bytes of the footer */
+    static final int FOOTER_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES + Integer.BYTES;
+
+    /** Number of bytes of the buffer blocks are deflated and inflated through */
+    private static final int CHUNK_BYTES = 8 * 1024;
+
+    private MonthArchive() {}
+
+    /**
+     * Returns the month archive of the month of the date provided within the database directory defined by the
+     * SerializationConstants.
+     *
+     * @param date Any date of the month of the stock ticks of the month archive
+     */
+    public static File getMonthArchive(Date date) {
+        String month = format(MONTH_DIR_FORMAT, date);
+        Path path = Paths.get(DATABASE_ROOT_DIR, DATABASE_DIR, month, month + MONTH_ARCHIVE_EXTENSION);
+        return new File(path.toString());
+    }
+
+    /**
+     * Formats the date provided with the shared date format specified.  Date formats are not thread-safe.
+     */
+    private static String format(SimpleDateFormat dateFormat, Date date) {
+        synchronized (dateFormat) {
+            return dateFormat.format(date);
+        }
+    }
+
+    /**
+     * Returns the column of the values of the tick type provided.
+     */
+    static int tickColumn(int tickType) {
+        return 3 + tickType;
+    }
+
+    /**
+     * Returns the number of bytes of each value of the column provided.
+     */
+    static int columnWidth(int column) {
+        return column == TICKER_COLUMN ? Integer.BYTES : Long.BYTES;
+    }
+
+    /**
+     * Writes the header of a new month archive to the buffer provided.
+     */
+    static void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(NUM_COLUMNS);
+        buffer.putInt(TickTypes.NUM_TICK_TYPES);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putLong(0L); // Reserved
+    }
+
+    /**
+     * Reads and validates the header of a month archive from the buffer provided.
+     *
+     * @throws IOException If the header is not that of a month archive of a supported format version
+     */
+    static void readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a month archive");
+        }
+
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported month archive format version: " + version);
+        }
+        if (buffer.getInt() != NUM_COLUMNS || buffer.getInt() != TickTypes.NUM_TICK_TYPES) {
+            throw new IOException("Month archive columns do not match the tracked tick types");
+        }
+
+        buffer.getLong(); // Creation time
+        buffer.getLong(); // Reserved
+    }
+
+    /**
+     * Compresses the fixed-width values provided into a column block by shuffling their bytes and deflating them.
+     *
+     * @param values The values of the column, each of the width specified
+     * @param width The number of bytes of each value
+     * @return The compressed column block
+     */
+    static byte[] compress(byte[] values, int width) {
+        byte[] shuffled = new byte[values.length];
+        int count = values.length / width;
+        for (int i = 0; i < count; i++) {
+            for (int b = 0; b < width; b++) {
+                shuffled[b * count + i] = values[i * width + b];
+            }
+        }
+
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(shuffled);
+            deflater.finish();
+
+            ByteArrayOutputStream block = new ByteArrayOutputStream(Math.max(64, shuffled.length / 4));
+            byte[] chunk = new byte[CHUNK_BYTES];
+            while (!deflater.finished()) {
+                block.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return block.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompresses a column block written by compress back into its fixed-width values.
+     *
+     * @param block The compressed column block
+     * @param count The number of values of the column
+     * @param width The number of bytes of each value
+     * @return The values of the column, each of the width specified
+     * @throws IOException If the block is corrupt or does not hold the number of values specified
+     */
+    static byte[] decompress(byte[] block, int count, int width) throws IOException {
+        byte[] shuffled = new byte[count * width];
+        if (shuffled.length == 0) {
+            return shuffled;
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block);
+            int length = 0;
+            while (length < shuffled.length && !inflater.finished()) {
+                int inflated = inflater.inflate(shuffled, length, shuffled.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != shuffled.length || !inflater.finished()) {
+                throw new IOException("Corrupt month archive column block");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt month archive column block", e);
+        } finally {
+            inflater.end();
+        }
+
+        byte[] values = new byte[shuffled.length];
+        for (int i = 0; i < count; i++) {
+            for (int b = 0; b < width; b++) {
+                values[i * width + b] = shuffled[b * count + i];
+            }
+        }
+        return values;
+    }
+}
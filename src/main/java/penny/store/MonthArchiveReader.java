@@ -0,0 +1,317 @@
+package main.java.penny.store;
+
+import main.java.penny.constants.TickTypes;
+import main.java.penny.marketdata.StockTick;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MonthArchiveReader represents a reader of a month archive (see MonthArchive).  The month archive is memory-mapped,
+ * and opening it reads only its footer, ticker dictionary and day directory.  Every read decompresses only the column
+ * blocks it needs: scanning a single tick type across every day of the month never touches the blocks of the other
+ * tick types.
+ *
+ * A MonthArchiveReader is safe to read from many threads at once.
+ */
+public class MonthArchiveReader {
+
+    /**
+     * ColumnConsumer represents a consumer of the values of a single tick type column, one day at a time.
+     */
+    public interface ColumnConsumer {
+
+        /**
+         * Accepts the values of a tick type column of a single day.
+         *
+         * @param dayOfMonth The day of the month of the values
+         * @param tickerIds The dictionary identifier of the ticker of each row (see getTicker)
+         * @param values The value of the tick type of each row, NaN where the row has no value
+         * @throws IOException If the values cannot be consumed
+         */
+        void accept(int dayOfMonth, int[] tickerIds, double[] values) throws IOException;
+    }
+
+    /** The memory-mapped contents of the month archive */
+    private final ByteBuffer data;
+
+    /** Every ticker of the month archive, indexed by dictionary identifier */
+    private final String[] dictionary;
+
+    /** Offset of the day directory */
+    private final int directoryOffset;
+
+    /** Day of the month of each directory entry, in ascending order */
+    private final int[] days;
+
+    /**
+     * Constructs a new MonthArchiveReader of the month archive contents provided.
+     *
+     * @param data The contents of the month archive
+     * @throws IOException If the contents are not those of a complete month archive of a supported format version
+     */
+    MonthArchiveReader(ByteBuffer data) throws IOException {
+        this.data = data;
+        MonthArchive.readHeader(data.duplicate());
+
+        int size = data.limit();
+        if (size < MonthArchive.HEADER_BYTES + MonthArchive.FOOTER_BYTES) {
+            throw new IOException("Month archive is incomplete");
+        }
+
+        int footer = size - MonthArchive.FOOTER_BYTES;
+        long dictionaryOffset = data.getLong(footer);
+        long directoryOffset = data.getLong(footer + Long.BYTES);
+        int tickerCount = data.getInt(footer + 2 * Long.BYTES);
+        int dayCount = data.getInt(footer + 2 * Long.BYTES + Integer.BYTES);
+        if (data.getInt(footer + 2 * Long.BYTES + 2 * Integer.BYTES) != MonthArchive.DIRECTORY_MAGIC
+                || dictionaryOffset < MonthArchive.HEADER_BYTES || dictionaryOffset > directoryOffset
+                || tickerCount < 0 || dayCount < 0
+                || directoryOffset + (long) dayCount * MonthArchive.DIRECTORY_ENTRY_BYTES != footer) {
+            throw new IOException("Month archive is incomplete");
+        }
+        this.directoryOffset = (int) directoryOffset;
+
+        ByteBuffer dictionary = data.duplicate();
+        dictionary.position((int) dictionaryOffset);
+        dictionary.limit(this.directoryOffset);
+        this.dictionary = new String[tickerCount];
+        for (int id = 0; id < tickerCount; id++) {
+            byte[] ticker = new byte[dictionary.get() & 0xFF];
+            dictionary.get(ticker);
+            this.dictionary[id] = new String(ticker, StandardCharsets.UTF_8);
+        }
+
+        this.days = new int[dayCount];
+        for (int entry = 0; entry < dayCount; entry++) {
+            this.days[entry] = data.getInt(this.directoryOffset + entry * MonthArchive.DIRECTORY_ENTRY_BYTES);
+        }
+    }
+
+    /**
+     * Opens the month archive provided for reading by memory-mapping it.
+     *
+     * @param file The month archive to read
+     * @return A reader of the month archive
+     * @throws IOException If the file cannot be read or is not a complete month archive of a supported format
+     *                     version
+     */
+    public static MonthArchiveReader open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Month archive too large to map: " + file);
+            }
+            return new MonthArchiveReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Opens the month archive provided for reading by copying it into memory rather than mapping it, so the month
+     * archive file holds no mapping and may be replaced while the reader is in use (such as when rebuilding the
+     * month archive, see Archive).
+     *
+     * @param file The month archive to read
+     * @return A reader of the month archive
+     * @throws IOException If the file cannot be read or is not a complete month archive of a supported format
+     *                     version
+     */
+    public static MonthArchiveReader read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Month archive too large to read: " + file);
+            }
+
+            ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) {
+                    throw new IOException("Month archive truncated while reading: " + file);
+                }
+            }
+            data.flip();
+            return new MonthArchiveReader(data);
+        }
+    }
+
+    /**
+     * Returns the day of the month of every day of the month archive in ascending order.
+     */
+    public int[] getDays() {
+        return this.days.clone();
+    }
+
+    /**
+     * Returns true if the month archive has the stock ticks of the day of the month provided, and false otherwise.
+     *
+     * @param dayOfMonth The day of the month
+     */
+    public boolean hasDay(int dayOfMonth) {
+        return Arrays.binarySearch(this.days, dayOfMonth) >= 0;
+    }
+
+    /**
+     * Returns every ticker of the month archive, indexed by dictionary identifier.
+     */
+    public List<String> getTickers() {
+        return Collections.unmodifiableList(Arrays.asList(this.dictionary));
+    }
+
+    /**
+     * Returns the ticker of the dictionary identifier provided.
+     *
+     * @param tickerId The dictionary identifier of the ticker
+     * @throws IndexOutOfBoundsException If the month archive has no such ticker
+     */
+    public String getTicker(int tickerId) {
+        return this.dictionary[tickerId];
+    }
+
+    /**
+     * Returns the number of rows (stock ticks) of the day of the month provided.
+     *
+     * @param dayOfMonth The day of the month
+     * @throws IllegalArgumentException If the month archive has no such day
+     */
+    public int getRowCount(int dayOfMonth) {
+        return this.data.getInt(this.entryOffset(dayOfMonth) + Integer.BYTES);
+    }
+
+    /**
+     * Returns the dictionary identifier of the ticker of each row of the day of the month provided.  Decompresses
+     * only the ticker column of the day.
+     *
+     * @param dayOfMonth The day of the month
+     * @throws IOException If the ticker column is corrupt
+     * @throws IllegalArgumentException If the month archive has no such day
+     */
+    public int[] readTickerIds(int dayOfMonth) throws IOException {
+        ByteBuffer column = this.readColumnBlock(this.entryOffset(dayOfMonth), MonthArchive.TICKER_COLUMN);
+        int[] tickerIds = new int[column.remaining() / Integer.BYTES];
+        column.asIntBuffer().get(tickerIds);
+
+        for (int tickerId : tickerIds) {
+            if (tickerId < 0 || tickerId >= this.dictionary.length) {
+                throw new IOException("Corrupt month archive ticker column");
+            }
+        }
+        return tickerIds;
+    }
+
+    /**
+     * Returns the value of the tick type provided of each row of the day of the month specified, NaN where the row
+     * has no value.  Decompresses only the column of the tick type.
+     *
+     * @param dayOfMonth The day of the month
+     * @param tickType The tick type (see TickTypes)
+     * @throws IOException If the column is corrupt
+     * @throws IllegalArgumentException If the month archive has no such day or the tick type is not tracked
+     */
+    public double[] readColumn(int dayOfMonth, int tickType) throws IOException {
+        if (!TickTypes.isTracked(tickType)) {
+            throw new IllegalArgumentException("Tick type not tracked: " + tickType);
+        }
+
+        ByteBuffer column = this.readColumnBlock(this.entryOffset(dayOfMonth), MonthArchive.tickColumn(tickType));
+        double[] values = new double[column.remaining() / Double.BYTES];
+        column.asDoubleBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Scans the column of the tick type provided across every day of the month archive in ascending order of day.
+     * Decompresses only the ticker column and the column of the tick type of each day.
+     *
+     * @param tickType The tick type (see TickTypes)
+     * @param consumer Accepts the values of the tick type of each day
+     * @throws IOException If a column is corrupt or the consumer fails
+     * @throws IllegalArgumentException If the tick type is not tracked
+     */
+    public void scanColumn(int tickType, ColumnConsumer consumer) throws IOException {
+        for (int dayOfMonth : this.days) {
+            consumer.accept(dayOfMonth, this.readTickerIds(dayOfMonth), this.readColumn(dayOfMonth, tickType));
+        }
+    }
+
+    /**
+     * Returns the stock ticks of the day of the month provided in the order they were appended.  Decompresses every
+     * column of the day.
+     *
+     * @param dayOfMonth The day of the month
+     * @throws IOException If a column is corrupt
+     * @throws IllegalArgumentException If the month archive has no such day
+     */
+    public List<StockTick> readDay(int dayOfMonth) throws IOException {
+        int entry = this.entryOffset(dayOfMonth);
+        int[] tickerIds = this.readTickerIds(dayOfMonth);
+        ByteBuffer present = this.readColumnBlock(entry, MonthArchive.PRESENT_COLUMN);
+        ByteBuffer sizes = this.readColumnBlock(entry, MonthArchive.SIZE_COLUMN);
+        ByteBuffer[] values = new ByteBuffer[TickTypes.NUM_TICK_TYPES];
+        for (int tickType = 0; tickType < TickTypes.NUM_TICK_TYPES; tickType++) {
+            values[tickType] = this.readColumnBlock(entry, MonthArchive.tickColumn(tickType));
+        }
+
+        List<StockTick> ticks = new ArrayList<StockTick>(tickerIds.length);
+        for (int row = 0; row < tickerIds.length; row++) {
+            StockTick tick = new StockTick(this.dictionary[tickerIds[row]]);
+            long presentTicks = present.getLong();
+            long sizeTicks = sizes.getLong();
+            for (int tickType = 0; tickType < TickTypes.NUM_TICK_TYPES; tickType++) {
+                double value = values[tickType].getDouble();
+                if ((presentTicks & (1L << tickType)) == 0) {
+                    continue;
+                }
+
+                if ((sizeTicks & (1L << tickType)) != 0) {
+                    tick.addTick(tickType, (int) value);
+                } else {
+                    tick.addTick(tickType, value);
+                }
+            }
+            ticks.add(tick);
+        }
+        return ticks;
+    }
+
+    /**
+     * Returns the offset of the directory entry of the day of the month provided.
+     *
+     * @throws IllegalArgumentException If the month archive has no such day
+     */
+    private int entryOffset(int dayOfMonth) {
+        int entry = Arrays.binarySearch(this.days, dayOfMonth);
+        if (entry < 0) {
+            throw new IllegalArgumentException("Month archive has no day " + dayOfMonth);
+        }
+        return this.directoryOffset + entry * MonthArchive.DIRECTORY_ENTRY_BYTES;
+    }
+
+    /**
+     * Reads and decompresses the column block provided of the directory entry at the offset specified.
+     *
+     * @return The values of the column, each of the width of the column
+     * @throws IOException If the column block is corrupt
+     */
+    private ByteBuffer readColumnBlock(int entryOffset, int column) throws IOException {
+        int rows = this.data.getInt(entryOffset + Integer.BYTES);
+        int location = entryOffset + 2 * Integer.BYTES + column * (Long.BYTES + Integer.BYTES);
+        long offset = this.data.getLong(location);
+        int length = this.data.getInt(location + Long.BYTES);
+        if (rows < 0 || length < 0 || offset < MonthArchive.HEADER_BYTES || offset + length > this.directoryOffset) {
+            throw new IOException("Corrupt month archive directory");
+        }
+
+        byte[] block = new byte[length];
+        ByteBuffer source = this.data.duplicate();
+        source.position((int) offset);
+        source.get(block);
+
+        return ByteBuffer.wrap(MonthArchive.decompress(block, rows, MonthArchive.columnWidth(column)));
+    }
+}
@@ -0,0 +1,214 @@
+package main.java.penny.store;
+
+import main.java.penny.constants.TickTypes;
+import main.java.penny.marketdata.StockTick;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MonthArchiveWriter represents a writer of a month archive (see MonthArchive).  The stock ticks of each day are
+ * appended at once, in ascending order of day, and are written as compressed column blocks immediately, so only a
+ * single day is held in memory at a time.  The ticker dictionary and day directory are written once the writer is
+ * closed; an archive whose writer never closed is not readable.
+ *
+ * A MonthArchiveWriter may be shared by many threads; appends are serialized.
+ */
+public class MonthArchiveWriter implements Closeable {
+
+    /** The channel of the month archive */
+    private final FileChannel channel;
+
+    /** Dictionary identifier of each ticker of the month, in order of identifier */
+    private final Map<String, Integer> dictionary;
+
+    /** Directory entry of each day appended so far, in ascending order of day */
+    private final List<ByteBuffer> directory;
+
+    /** Day of the month of the last day appended, or 0 if no day has been appended */
+    private int lastDayOfMonth;
+
+    /** Number of rows of every day appended so far */
+    private long rowCount;
+
+    /**
+     * Creates the month archive provided (and its parent directories), replacing any existing file.
+     *
+     * @param file The month archive to write
+     * @throws IOException If the file cannot be created
+     */
+    public MonthArchiveWriter(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.dictionary = new LinkedHashMap<String, Integer>();
+        this.directory = new ArrayList<ByteBuffer>();
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(MonthArchive.HEADER_BYTES);
+            MonthArchive.writeHeader(header);
+            header.flip();
+            this.write(header);
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the stock ticks of the day of the month provided to the month archive as one row per stock tick, in
+     * the order of the collection.  Days must be appended in ascending order, and each day at most once.
+     *
+     * @param dayOfMonth The day of the month the stock ticks were serialized on (1 to 31)
+     * @param ticks The stock ticks of the day; each ticker at most once
+     * @throws IOException If the column blocks of the day cannot be written
+     * @throws IllegalArgumentException If the day is not after the last day appended, or a ticker is too long to
+     *                                  store (see DayFile.MAX_TICKER_BYTES)
+     */
+    public synchronized void appendDay(int dayOfMonth, Collection<StockTick> ticks) throws IOException {
+        if (dayOfMonth <= this.lastDayOfMonth || dayOfMonth > 31) {
+            throw new IllegalArgumentException("Day " + dayOfMonth + " cannot follow day " + this.lastDayOfMonth);
+        }
+
+        int rows = ticks.size();
+        ByteBuffer[] columns = new ByteBuffer[MonthArchive.NUM_COLUMNS];
+        for (int column = 0; column < MonthArchive.NUM_COLUMNS; column++) {
+            columns[column] = ByteBuffer.allocate(rows * MonthArchive.columnWidth(column));
+        }
+
+        for (StockTick tick : ticks) {
+            columns[MonthArchive.TICKER_COLUMN].putInt(this.lookup(tick.getTicker()));
+            columns[MonthArchive.PRESENT_COLUMN].putLong(tick.getPresentTicks());
+            columns[MonthArchive.SIZE_COLUMN].putLong(tick.getSizeTicks());
+            for (int tickType = 0; tickType < TickTypes.NUM_TICK_TYPES; tickType++) {
+                columns[MonthArchive.tickColumn(tickType)].putDouble(tick.getTickValue(tickType));
+            }
+        }
+
+        ByteBuffer entry = ByteBuffer.allocate(MonthArchive.DIRECTORY_ENTRY_BYTES);
+        entry.putInt(dayOfMonth);
+        entry.putInt(rows);
+        for (int column = 0; column < MonthArchive.NUM_COLUMNS; column++) {
+            byte[] block = MonthArchive.compress(columns[column].array(), MonthArchive.columnWidth(column));
+            entry.putLong(this.channel.position());
+            entry.putInt(block.length);
+            this.write(ByteBuffer.wrap(block));
+        }
+        entry.flip();
+
+        this.directory.add(entry);
+        this.lastDayOfMonth = dayOfMonth;
+        this.rowCount += rows;
+    }
+
+    /**
+     * Returns the number of days appended to the month archive.
+     */
+    public synchronized int getDayCount() {
+        return this.directory.size();
+    }
+
+    /**
+     * Returns the number of distinct tickers of every day appended to the month archive.
+     */
+    public synchronized int getTickerCount() {
+        return this.dictionary.size();
+    }
+
+    /**
+     * Returns the number of rows (stock ticks) of every day appended to the month archive.
+     */
+    public synchronized long getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Writes the ticker dictionary, day directory and footer, then closes the month archive.
+     *
+     * @throws IOException If the dictionary or directory cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!this.channel.isOpen()) {
+            return;
+        }
+
+        try {
+            long dictionaryOffset = this.channel.position();
+            int dictionaryBytes = 0;
+            List<byte[]> tickers = new ArrayList<byte[]>(this.dictionary.size());
+            for (String ticker : this.dictionary.keySet()) {
+                byte[] bytes = ticker.getBytes(StandardCharsets.UTF_8);
+                tickers.add(bytes);
+                dictionaryBytes += 1 + bytes.length;
+            }
+
+            ByteBuffer dictionary = ByteBuffer.allocate(dictionaryBytes);
+            for (byte[] ticker : tickers) {
+                dictionary.put((byte) ticker.length);
+                dictionary.put(ticker);
+            }
+            dictionary.flip();
+            this.write(dictionary);
+
+            long directoryOffset = this.channel.position();
+            for (ByteBuffer entry : this.directory) {
+                this.write(entry);
+            }
+
+            ByteBuffer footer = ByteBuffer.allocate(MonthArchive.FOOTER_BYTES);
+            footer.putLong(dictionaryOffset);
+            footer.putLong(directoryOffset);
+            footer.putInt(this.dictionary.size());
+            footer.putInt(this.directory.size());
+            footer.putInt(MonthArchive.DIRECTORY_MAGIC);
+            footer.flip();
+            this.write(footer);
+
+            this.channel.force(false);
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Returns the dictionary identifier of the ticker provided, adding the ticker to the dictionary if it is new.
+     *
+     * @throws IllegalArgumentException If the ticker is longer than DayFile.MAX_TICKER_BYTES in UTF-8
+     */
+    private int lookup(String ticker) {
+        Integer id = this.dictionary.get(ticker);
+        if (id == null) {
+            if (ticker.getBytes(StandardCharsets.UTF_8).length > DayFile.MAX_TICKER_BYTES) {
+                throw new IllegalArgumentException("Ticker too long to store in a month archive: " + ticker);
+            }
+
+            id = this.dictionary.size();
+            this.dictionary.put(ticker, id);
+        }
+        return id;
+    }
+
+    /**
+     * Writes the whole buffer provided to the month archive.
+     */
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+    }
+}
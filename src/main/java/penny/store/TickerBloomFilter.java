@@ -0,0 +1,125 @@
+package main.java.penny.store;
+
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * TickerBloomFilter represents a Bloom filter of tickers: a compact set membership test that may report a ticker
+ * absent from the set as present (a false positive) but never reports a ticker of the set as absent.  A day file
+ * stores a TickerBloomFilter of its tickers so a lookup of a ticker absent from the day is usually rejected without
+ * searching the index or reading any record.
+ *
+ * The bits of the filter are kept in a LongBuffer, so a filter can be tested in place within a memory-mapped day
+ * file.
+ */
+final class TickerBloomFilter {
+
+    /** Number of bits of the filter per ticker, giving a false positive rate of about 1% */
+    private static final int BITS_PER_TICKER = 10;
+
+    /** Number of hash functions (bits set per ticker) minimizing false positives at BITS_PER_TICKER */
+    static final int DEFAULT_HASHES = 7;
+
+    /** The bits of the filter */
+    private final LongBuffer bits;
+
+    /** Number of bits of the filter */
+    private final long numBits;
+
+    /** Number of hash functions (bits set per ticker) */
+    private final int numHashes;
+
+    /**
+     * Constructs a new TickerBloomFilter over the bits provided.
+     *
+     * @param bits The bits of the filter; may be a view of a memory-mapped day file
+     * @param numHashes The number of hash functions (bits set per ticker)
+     */
+    TickerBloomFilter(LongBuffer bits, int numHashes) {
+        this.bits = bits;
+        this.numBits = (long) bits.limit() * Long.SIZE;
+        this.numHashes = numHashes;
+    }
+
+    /**
+     * Returns a new empty TickerBloomFilter sized for the number of tickers provided.
+     *
+     * @param expectedTickers The number of tickers that will be added to the filter
+     */
+    static TickerBloomFilter create(int expectedTickers) {
+        int words = (int) Math.max(1, ((long) expectedTickers * BITS_PER_TICKER + Long.SIZE - 1) / Long.SIZE);
+        return new TickerBloomFilter(LongBuffer.allocate(words), DEFAULT_HASHES);
+    }
+
+    /**
+     * Adds the ticker provided to this filter.
+     */
+    void add(String ticker) {
+        long hash1 = hash(ticker, 0xcbf29ce484222325L);
+        long hash2 = hash(ticker, 0x84222325cbf29ce4L) | 1;
+
+        for (int i = 0; i < this.numHashes; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, this.numBits);
+            int word = (int) (bit >>> 6);
+            this.bits.put(word, this.bits.get(word) | (1L << bit));
+        }
+    }
+
+    /**
+     * Returns false if the ticker provided was definitely never added to this filter, and true if it probably was.
+     */
+    boolean mightContain(String ticker) {
+        long hash1 = hash(ticker, 0xcbf29ce484222325L);
+        long hash2 = hash(ticker, 0x84222325cbf29ce4L) | 1;
+
+        for (int i = 0; i < this.numHashes; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, this.numBits);
+            if ((this.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of 64-bit words of the bits of this filter.
+     */
+    int getNumWords() {
+        return this.bits.limit();
+    }
+
+    /**
+     * Returns the number of hash functions (bits set per ticker) of this filter.
+     */
+    int getNumHashes() {
+        return this.numHashes;
+    }
+
+    /**
+     * Returns the bits of this filter, positioned at the first word.
+     */
+    LongBuffer getBits() {
+        LongBuffer bits = this.bits.duplicate();
+        bits.rewind();
+        return bits;
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of the UTF-8 bytes of the ticker provided starting from the basis specified,
+     * finished with the MurmurHash3 mixer so every bit of the hash depends on every byte of the ticker.
+     */
+    private static long hash(String ticker, long basis) {
+        long hash = basis;
+        for (byte b : ticker.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
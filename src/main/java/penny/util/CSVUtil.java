@@ -7,6 +7,7 @@ import weka.core.Instances;
 import weka.core.converters.ArffSaver;
 import weka.core.converters.CSVLoader;
 import java.io.File;
+import java.util.Date;
 
 import static main.java.penny.constants.SerializationConstants.LOADED_TICK_DATE_FORMAT;
 
@@ -27,6 +28,18 @@ public class CSVUtil {
      * @return String CSV line following the format above for the provided ClassifiedStockTick
      */
     public static String classifiedStockTickToCSV(ClassifiedStockTick tick) {
+        return classifiedStockTickToCSV(tick, StockCalendar.getInstance().getTime());
+    }
+
+    /**
+     * Takes a ClassifiedStockTick loaded on the date provided and returns a CSV line in the form:
+     * ticker,classification,open,high,low,last,volume,average volume,13 week high,13 week low,date
+     *
+     * @param tick Stock tick and associated classification to convert to CSV line
+     * @param date The date the stock tick was loaded on
+     * @return String CSV line following the format above for the provided ClassifiedStockTick
+     */
+    public static String classifiedStockTickToCSV(ClassifiedStockTick tick, Date date) {
         StringBuilder builder = new StringBuilder();
 
         appendCSV(builder, tick.getStockTick().getTicker());
@@ -37,7 +50,7 @@ public class CSVUtil {
             appendCSV(builder, Integer.toString(0));
         }
 
-        builder.append(stockTickToCSV(tick.getStockTick(), false /* Should not include ticker */));
+        builder.append(stockTickToCSV(tick.getStockTick(), false /* Should not include ticker */, date));
 
         return builder.toString();
     }
@@ -52,6 +65,20 @@ public class CSVUtil {
      * @return String CSV line following the format above for the provided StockTick
      */
     public static String stockTickToCSV(StockTick tick, boolean shouldIncludeTicker) {
+        return stockTickToCSV(tick, shouldIncludeTicker, StockCalendar.getInstance().getTime());
+    }
+
+    /**
+     * Takes a StockTick loaded on the date provided and returns a CSV line in the form:
+     * ticker,open,high,low,last,volume,average volume,13 week high,13 week low,date
+     *
+     * @param tick Stock tick and associated classification to convert to CSV line
+     * @param shouldIncludeTicker True if the output CSV should include the initial ticker,
+     *                            false if it should be excluded
+     * @param date The date the stock tick was loaded on
+     * @return String CSV line following the format above for the provided StockTick
+     */
+    public static String stockTickToCSV(StockTick tick, boolean shouldIncludeTicker, Date date) {
         StringBuilder builder = new StringBuilder();
         if (shouldIncludeTicker) {
             appendCSV(builder, tick.getTicker());
@@ -65,7 +92,9 @@ public class CSVUtil {
         appendTickCSV(builder, tick, TickTypes.AVERAGE_VOLUME);
         appendTickCSV(builder, tick, TickTypes.HIGH_13_WEEKS);
         appendTickCSV(builder, tick, TickTypes.LOW_13_WEEKS);
-        builder.append(LOADED_TICK_DATE_FORMAT.format(StockCalendar.getInstance().getTime()));
+        synchronized (LOADED_TICK_DATE_FORMAT) {
+            builder.append(LOADED_TICK_DATE_FORMAT.format(date));
+        }
 
         return builder.toString();
     }
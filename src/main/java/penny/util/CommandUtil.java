@@ -1,22 +1,45 @@
 package main.java.penny.util;
 
+import main.java.penny.constants.ClassificationConstants;
 import main.java.penny.constants.ScannerConstants;
+import main.java.penny.constants.SerializationConstants;
 import main.java.penny.marketdata.StockTick;
 import main.java.penny.marketdata.StockTickResults;
 import main.java.penny.models.Classifier;
-import main.java.penny.models.PumpClassifier;
+import main.java.penny.models.ModelRegistry;
 import main.java.penny.models.classification.ClassificationContainer;
 import main.java.penny.models.classification.ClassificationFilter;
 import main.java.penny.models.classification.ClassificationResult;
 import main.java.penny.models.classification.ClassifiedStockTick;
+import main.java.penny.store.DayFile;
+import main.java.penny.store.DayFileReader;
+import main.java.penny.store.DayFileStream;
+import main.java.penny.store.DayFileWriter;
+import main.java.penny.store.MonthArchive;
+import main.java.penny.store.MonthArchiveReader;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
 
 /**
  * CommandUtil represents a utility class that contains functions for performing all common command-line
@@ -25,8 +48,11 @@ import java.util.Set;
  */
 public class CommandUtil {
 
+    /** Number of stock ticks below which a range of stock ticks is deserialized sequentially */
+    private static final int DESERIALIZE_SEQUENTIAL_CUTOFF = 16;
+
     /**
-     * Classifies the stock ticks provided using a PumpClassifier filtering out any stock ticks
+     * Classifies the stock ticks provided using the PumpClassifier of the ModelRegistry filtering out any stock ticks
      * that do not satisfy the classification filter.
      *
      * @return A List of ClassifiedStockTicks containing all the stock ticks and their associated classifications.
@@ -39,18 +65,23 @@ public class CommandUtil {
             ticks = filter.filter(ticks);
         }
 
-        Classifier pumpClassifier = new PumpClassifier();
+        Classifier pumpClassifier =
+                ModelRegistry.getInstance().getClassifier(ClassificationConstants.PUMP_CLASSIFIER_MODEL);
+
+        // Classify every stock tick at once so the classifier may classify them in parallel
+        List<StockTick> batch = new ArrayList<StockTick>(ticks);
+        double[] percentages = pumpClassifier.classifyBatch(batch);
 
-        for (StockTick tick : ticks) {
-            ClassificationResult classification = pumpClassifier.classify(tick);
-            classifications.addStockTick(tick, classification);
+        for (int i = 0; i < batch.size(); i++) {
+            classifications.addStockTick(batch.get(i), new ClassificationResult(percentages[i]));
         }
 
         return classifications.getClassifiedPumpStockTicks();
     }
 
     /**
-     * Serializes all the stock ticks provided to the default database file location.
+     * Serializes all the stock ticks provided to the day file of the current StockCalendar date in the default
+     * database file location.  Reports to standard output if the day file is not able to be written.
      */
     public static void serialize(Collection<StockTick> ticks) {
         List<String> uniqueTickers = new ArrayList<String>();
@@ -67,35 +98,191 @@ public class CommandUtil {
                 .withUniqueTokens(uniqueTickers)
             .build();
 
-        for (StockTick tick : ticks) {
-            SerializationUtil.serializeStockTick(tick);
-            progressBar.increment();
-            progressBar.display();
+        File dayFile = DayFile.getDayFile(StockCalendar.getInstance().getTime());
+        try (DayFileWriter writer = new DayFileWriter(dayFile)) {
+            for (StockTick tick : ticks) {
+                writer.append(tick);
+                progressBar.increment();
+                progressBar.display();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error in serializing to " + dayFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens a write-behind stream persisting stock ticks to the day file of the current StockCalendar date in the
+     * default database file location as soon as they are delivered.  Reports to standard output and returns null if
+     * the day file is not able to be opened.
+     */
+    public static DayFileStream openDayFileStream() {
+        File dayFile = DayFile.getDayFile(StockCalendar.getInstance().getTime());
+        try {
+            return new DayFileStream(dayFile, SerializationConstants.WRITE_BEHIND_QUEUE_CAPACITY,
+                    SerializationConstants.WRITE_BEHIND_BATCH_SIZE);
+        } catch (IOException e) {
+            System.out.println("Unable to serialize to " + dayFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Persists every stock tick provided not yet persisted by the write-behind stream specified (such as stock ticks
+     * whose market data failed to deliver), then closes the stream once every stock tick is durable.  Reports to
+     * standard output if the stock ticks are not able to be persisted.
+     */
+    public static void closeDayFileStream(DayFileStream stream, Collection<StockTick> ticks)
+            throws InterruptedException {
+        try {
+            stream.acceptRemaining(ticks);
+            stream.close();
+        } catch (IOException e) {
+            System.out.println("Error in serializing: " + e.getMessage());
         }
     }
 
     /**
-     * Deserializes the stock ticks specified from the files provided and copies the stock data to the
-     * StockTickResults specified.  If no tickers and provided to analyze, includes all deserialized stock ticks
-     * in the stock tick results.
+     * Deserializes the stock ticks specified that were serialized on the date provided and copies the stock data to
+     * the StockTickResults specified.  Reads the day file of the date if there is one, otherwise the (legacy) day
+     * directory of one serialized file per ticker, and otherwise the day of the month archive of the date (see
+     * MonthArchive).  If no tickers are provided to analyze, includes every stock tick of the date in the stock tick
+     * results.
+     *
+     * @param date The date the stock ticks were serialized on
+     * @param results The stock tick results to copy the deserialized stock ticks to
+     * @param analyzeTickers The tickers to deserialize, or null or empty to deserialize every ticker
+     * @param displayProgress True to display the progress of deserializing, and false otherwise
+     * @return True if any stock ticks were serialized on the date, and false if there is no data for the date
+     * @throws IOException If the day file or month archive cannot be read
+     */
+    public static boolean deserialize(Date date, StockTickResults results, Set<String> analyzeTickers,
+                                      boolean displayProgress) throws IOException {
+        File dayFile = DayFile.getDayFile(date);
+        if (dayFile.isFile()) {
+            deserialize(dayFile, results, analyzeTickers, displayProgress);
+            return true;
+        }
+
+        File dayDirectory = DayFile.getDayDirectory(date);
+        if (!dayDirectory.isDirectory()) {
+            return deserializeArchived(date, results, analyzeTickers);
+        }
+
+        File[] files;
+        if (analyzeTickers == null || analyzeTickers.isEmpty()) {
+            files = dayDirectory.listFiles();
+        } else {
+            // Only the files of the tickers to analyze are deserialized from the legacy directory
+            files = analyzeTickers.stream()
+                    .map(ticker -> new File(dayDirectory, ticker + SerializationConstants.SERIALIZATION_EXTENSION))
+                    .filter(File::isFile)
+                    .toArray(File[]::new);
+        }
+        deserialize(files, results, analyzeTickers, displayProgress);
+        return true;
+    }
+
+    /**
+     * Reads the stock ticks specified of the date provided from the month archive of the date and copies the stock
+     * data to the StockTickResults specified, in the order they were archived.
+     *
+     * @return True if the month archive has the date, and false if there is no month archive or it lacks the date
+     * @throws IOException If the month archive cannot be read
+     */
+    private static boolean deserializeArchived(Date date, StockTickResults results, Set<String> analyzeTickers)
+            throws IOException {
+        File archive = MonthArchive.getMonthArchive(date);
+        if (!archive.isFile()) {
+            return false;
+        }
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        int dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
+
+        MonthArchiveReader reader = MonthArchiveReader.open(archive);
+        if (!reader.hasDay(dayOfMonth)) {
+            return false;
+        }
+
+        List<StockTick> ticks = reader.readDay(dayOfMonth);
+        for (int i = 0; i < ticks.size(); i++) {
+            StockTick tick = ticks.get(i);
+            if (analyzeTickers == null || analyzeTickers.isEmpty() || analyzeTickers.contains(tick.getTicker())) {
+                results.copyStockTick(i, tick);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deserializes the stock ticks specified from the day file provided and copies the stock data to the
+     * StockTickResults specified.  If no tickers are provided to analyze, includes every stock tick of the day file
+     * in the stock tick results.  Otherwise, only the records of the tickers to analyze are read, and tickers absent
+     * from the day file are left out of the stock tick results.
+     *
+     * @throws IOException If the day file cannot be read
+     */
+    public static void deserialize(File dayFile, StockTickResults results, Set<String> analyzeTickers)
+            throws IOException {
+        deserialize(dayFile, results, analyzeTickers, true /* Display progress */);
+    }
+
+    /**
+     * Deserializes the stock ticks specified from the day file provided and copies the stock data to the
+     * StockTickResults specified, displaying the progress of deserializing only if specified (see deserialize).
+     *
+     * @throws IOException If the day file cannot be read
+     */
+    public static void deserialize(File dayFile, StockTickResults results, Set<String> analyzeTickers,
+                                   boolean displayProgress) throws IOException {
+        DayFileReader reader = DayFileReader.open(dayFile);
+
+        StockTick[] ticks;
+        if (analyzeTickers == null || analyzeTickers.isEmpty()) {
+            ProgressBar progressBar = displayProgress ? makeDeserializeProgressBar(reader.getTickerCount()) : null;
+            ticks = deserialize(reader.getTickerCount(), reader::readEntry, progressBar);
+        } else {
+            List<String> tickers = new ArrayList<String>(new TreeSet<String>(analyzeTickers));
+            ProgressBar progressBar = displayProgress ? makeDeserializeProgressBar(tickers.size()) : null;
+            ticks = deserialize(tickers.size(), (i) -> reader.find(tickers.get(i)), progressBar);
+        }
+
+        for (int i = 0; i < ticks.length; i++) {
+            if (ticks[i] != null) {
+                results.copyStockTick(i, ticks[i]);
+            }
+        }
+    }
+
+    /**
+     * Deserializes the stock ticks specified from the (legacy) serialized files provided and copies the stock data to
+     * the StockTickResults specified.  If no tickers and provided to analyze, includes all deserialized stock ticks
+     * in the stock tick results.  Files are deserialized in parallel, but are copied to the stock tick results in
+     * order of file name so the results are the same from one load to the next.
      */
     public static void deserialize(File[] files, StockTickResults results, Set<String> analyzeTickers) {
-        ProgressBar progressBar = new ProgressBar.ProgressBarBuilder()
-                .withTitle("Deserialize")
-                .withStartSymbol("|")
-                .withProgressToken("#")
-                .withGapToken(" ")
-                .withEndSymbol("|")
-                .withNumberOfBars(Math.min(files.length, ScannerConstants.PROGRESS_NUMBER_OF_BARS))
-                .withTotal(files.length)
-            .build();
+        deserialize(files, results, analyzeTickers, true /* Display progress */);
+    }
 
-        for (int i = 0; i < files.length; i++) {
-            File file = files[i];
-            StockTick tick = SerializationUtil.deserializeStockTick(file);
+    /**
+     * Deserializes the stock ticks specified from the (legacy) serialized files provided and copies the stock data to
+     * the StockTickResults specified, displaying the progress of deserializing only if specified (see deserialize).
+     */
+    public static void deserialize(File[] files, StockTickResults results, Set<String> analyzeTickers,
+                                   boolean displayProgress) {
+        File[] sorted = files.clone();
+        Arrays.sort(sorted, Comparator.comparing(File::getName));
+
+        ProgressBar progressBar = displayProgress ? makeDeserializeProgressBar(sorted.length) : null;
+        StockTick[] ticks = deserialize(sorted.length, (i) -> SerializationUtil.deserializeStockTick(sorted[i]),
+                progressBar);
 
-            progressBar.increment();
-            progressBar.display();
+        for (int i = 0; i < ticks.length; i++) {
+            StockTick tick = ticks[i];
+            if (tick == null) {
+                continue;
+            }
 
             if (analyzeTickers == null || analyzeTickers.isEmpty() || analyzeTickers.contains(tick.getTicker())) {
                 results.copyStockTick(i, tick);
@@ -103,6 +290,44 @@ public class CommandUtil {
         }
     }
 
+    /**
+     * Deserializes the number of stock ticks specified in parallel with at most DESERIALIZE_PARALLELISM threads
+     * (see SerializationConstants), incrementing the progress bar provided (if any) as each stock tick is
+     * deserialized.
+     *
+     * @param count The number of stock ticks to deserialize
+     * @param deserializer Deserializes the stock tick of each position, returning null if there is none
+     * @param progressBar The progress bar display to show the number of stock ticks deserialized so far, or null
+     * @return The deserialized stock tick of each position, in order of position; null where there is none
+     */
+    private static StockTick[] deserialize(int count, IntFunction<StockTick> deserializer, ProgressBar progressBar) {
+        StockTick[] ticks = new StockTick[count];
+
+        ForkJoinPool pool = new ForkJoinPool(SerializationConstants.DESERIALIZE_PARALLELISM);
+        try {
+            pool.invoke(new DeserializeTask(deserializer, 0, count, progressBar, ticks));
+        } finally {
+            pool.shutdown();
+        }
+
+        return ticks;
+    }
+
+    /**
+     * Makes the default deserialization progress bar display for the number of stock ticks provided.
+     */
+    private static ProgressBar makeDeserializeProgressBar(int total) {
+        return new ProgressBar.ProgressBarBuilder()
+                .withTitle("Deserialize")
+                .withStartSymbol("|")
+                .withProgressToken("#")
+                .withGapToken(" ")
+                .withEndSymbol("|")
+                .withNumberOfBars(Math.min(total, ScannerConstants.PROGRESS_NUMBER_OF_BARS))
+                .withTotal(total)
+            .build();
+    }
+
     /**
      * Outputs all the provided classified stock ticks to the console.  If only positive results are indicated as
      * wanted output, only prints stock ticks with positive classifications to the console.
@@ -139,16 +364,185 @@ public class CommandUtil {
      */
     public static void appendCSV(File csvAppendFile, List<ClassifiedStockTick> classifications,
                                  Set<String> tickers) throws IOException {
+        appendCSV(csvAppendFile, classifications, tickers, StockCalendar.getInstance().getTime());
+    }
+
+    /**
+     * Appends the stock tick loaded on the date provided and their classification percentages to the CSV file
+     * provided.  If the information cannot be appended to the CSV file, an IOException is thrown.  Appends only the
+     * stock tick data associated with stocks that are found in the set of tickers given.
+     */
+    public static void appendCSV(File csvAppendFile, List<ClassifiedStockTick> classifications,
+                                 Set<String> tickers, Date date) throws IOException {
         FileWriter writer = new FileWriter(csvAppendFile, true /* Append */);
         for (ClassifiedStockTick classified : classifications) {
             StockTick tick = classified.getStockTick();
 
             if (tickers.isEmpty() || tickers.contains(tick.getTicker())) {
-                writer.write(CSVUtil.classifiedStockTickToCSV(classified));
+                writer.write(CSVUtil.classifiedStockTickToCSV(classified, date));
                 writer.write(System.lineSeparator());
             }
         }
 
         writer.close();
     }
+
+    /**
+     * Processes each of the days provided concurrently, at most the parallelism specified at a time, and hands the
+     * result of each day to the consumer specified in the order of the days, displaying the progress of the days
+     * consumed so far.  Only a bounded number of processed days wait to be consumed at once, so the results of every
+     * day are never held together.
+     *
+     * @param title The title of the progress bar display, also naming the threads processing the days
+     * @param days The days to process
+     * @param dayTokens The unique progress bar token of each day, in the order of the days
+     * @param parallelism The maximum number of days processed at once
+     * @param processor Processes a single day on one of the threads processing the days
+     * @param consumer Consumes the result of each day in the order of the days on the calling thread
+     * @throws IOException If a day fails to process or its result fails to be consumed; no later day is consumed
+     */
+    public static <D, R> void processDays(String title, List<D> days, List<String> dayTokens, int parallelism,
+                                          DayProcessor<D, R> processor, DayConsumer<R> consumer)
+            throws IOException {
+        ExecutorService dayThreads = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, title + "Day");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        ProgressBar progressBar = new ProgressBar.ProgressBarBuilder()
+                .withTitle(title)
+                .withStartSymbol("|")
+                .withProgressToken("#")
+                .withGapToken(" ")
+                .withEndSymbol("|")
+                .withNumberOfBars(Math.min(days.size(), ScannerConstants.PROGRESS_NUMBER_OF_BARS))
+                .withTotal(days.size())
+                .withUniqueTokens(dayTokens)
+            .build();
+
+        Deque<CompletableFuture<R>> pending = new ArrayDeque<CompletableFuture<R>>();
+        int next = 0;
+        try {
+            while (next < days.size() || !pending.isEmpty()) {
+                // Keep every day thread busy while bounding the number of processed days waiting to be consumed
+                while (next < days.size() && pending.size() < 2 * parallelism) {
+                    D day = days.get(next++);
+                    pending.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return processor.process(day);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, dayThreads));
+                }
+
+                R result = join(pending.poll());
+                progressBar.increment();
+                progressBar.display();
+                consumer.accept(result);
+            }
+        } finally {
+            dayThreads.shutdownNow();
+        }
+        System.out.println();
+    }
+
+    /**
+     * Waits for the result of a day provided, rethrowing the cause of a failed day.
+     */
+    private static <R> R join(CompletableFuture<R> result) throws IOException {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * DayProcessor represents the processing of a single day of a command processing many days (see processDays).
+     */
+    public interface DayProcessor<D, R> {
+
+        /**
+         * Processes the day provided.
+         *
+         * @param day The day to process
+         * @return The result of the day
+         * @throws IOException If the day cannot be processed
+         */
+        R process(D day) throws IOException;
+    }
+
+    /**
+     * DayConsumer represents consuming the result of a single processed day, in order (see processDays).
+     */
+    public interface DayConsumer<R> {
+
+        /**
+         * Consumes the result of a processed day.
+         *
+         * @param result The result of the day
+         * @throws IOException If the result cannot be consumed
+         */
+        void accept(R result) throws IOException;
+    }
+
+    /**
+     * DeserializeTask represents deserializing a range of stock ticks in parallel leveraging divide-and-conquer.
+     * Splits the range in half until it is below the sequential cutoff where the stock ticks are then deserialized
+     * sequentially, each into its own position so the order of the deserialized stock ticks does not depend on
+     * the order the threads of the pool run in.
+     */
+    private static class DeserializeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Deserializes the stock tick of each position */
+        private final IntFunction<StockTick> deserializer;
+
+        /** The low position of the range of stock ticks to deserialize (inclusive) */
+        private final int low;
+
+        /** The high position of the range of stock ticks to deserialize (exclusive) */
+        private final int high;
+
+        /** The progress bar display to show the number of stock ticks deserialized so far, or null if there is none */
+        private final ProgressBar progressBar;
+
+        /** The deserialized stock tick of each position */
+        private final StockTick[] ticks;
+
+        DeserializeTask(IntFunction<StockTick> deserializer, int low, int high, ProgressBar progressBar,
+                        StockTick[] ticks) {
+            this.deserializer = deserializer;
+            this.low = low;
+            this.high = high;
+            this.progressBar = progressBar;
+            this.ticks = ticks;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.high - this.low < DESERIALIZE_SEQUENTIAL_CUTOFF) {
+                for (int i = this.low; i < this.high; i++) {
+                    this.ticks[i] = this.deserializer.apply(i);
+
+                    if (this.progressBar != null) {
+                        this.progressBar.increment();
+                        this.progressBar.display();
+                    }
+                }
+            } else {
+                int mid = this.low + (this.high - this.low) / 2;
+                invokeAll(new DeserializeTask(this.deserializer, this.low, mid, this.progressBar, this.ticks),
+                        new DeserializeTask(this.deserializer, mid, this.high, this.progressBar, this.ticks));
+            }
+        }
+    }
 }
@@ -0,0 +1,114 @@
+package main.java.penny.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * MigrationCheckpoint represents the durable record of the days a migration has completed, so an interrupted
+ * migration resumes where it left off rather than starting over.  The checkpoint is a text file of one line per
+ * completed day: the day (its month and day directory, e.g. "Jan2019/01") followed by a description of the migrated
+ * day.  Each line is forced to disk as soon as its day completes.
+ *
+ * A line cut short by a crash never matches a day, so its day is migrated again.  A MigrationCheckpoint may be shared
+ * by many threads.
+ */
+public class MigrationCheckpoint implements Closeable {
+
+    /** The channel of the checkpoint file, positioned at its end */
+    private final FileChannel channel;
+
+    /** Every day completed, including days completed by previous migrations */
+    private final Set<String> completed;
+
+    /**
+     * Opens the checkpoint file provided, creating it (and its parent directories) if it does not exist, and reads
+     * the days completed by previous migrations.
+     *
+     * @param file The checkpoint file
+     * @throws IOException If the checkpoint file cannot be read or opened for appending
+     */
+    public MigrationCheckpoint(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        this.completed = new HashSet<String>();
+        if (file.isFile()) {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                String[] split = line.trim().split("\\s+", 2);
+                if (split.length == 2) {
+                    this.completed.add(split[0]);
+                }
+            }
+        }
+
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long size = this.channel.size();
+            this.channel.position(size);
+
+            // Terminate a line cut short by a crash so the next line starts on a line of its own
+            ByteBuffer last = ByteBuffer.allocate(1);
+            if (size > 0 && this.channel.read(last, size - 1) == 1 && last.get(0) != '\n') {
+                this.write("\n");
+            }
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns true if the day provided was completed by this or a previous migration, and false otherwise.
+     *
+     * @param day The month and day directory of the day, e.g. "Jan2019/01"
+     */
+    public synchronized boolean isComplete(String day) {
+        return this.completed.contains(day);
+    }
+
+    /**
+     * Returns the number of days completed by this and every previous migration.
+     */
+    public synchronized int getCompletedCount() {
+        return this.completed.size();
+    }
+
+    /**
+     * Records the day provided as completed and forces the record to disk.
+     *
+     * @param day The month and day directory of the day, e.g. "Jan2019/01"; must not contain whitespace
+     * @param description A single-line description of the migrated day
+     * @throws IOException If the record cannot be written
+     */
+    public synchronized void complete(String day, String description) throws IOException {
+        this.write(day + " " + description.replace('\n', ' ') + "\n");
+        this.channel.force(false);
+        this.completed.add(day);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Writes the text provided at the end of the checkpoint file.
+     */
+    private void write(String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+    }
+}
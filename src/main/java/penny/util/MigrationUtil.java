@@ -0,0 +1,221 @@
+package main.java.penny.util;
+
+import main.java.penny.constants.TickTypes;
+import main.java.penny.marketdata.StockTick;
+import main.java.penny.store.DayFile;
+import main.java.penny.store.DayFileReader;
+import main.java.penny.store.DayFileWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+import static main.java.penny.constants.SerializationConstants.*;
+
+/**
+ * MigrationUtil represents a utility class for migrating (legacy) day directories of one serialized file per ticker
+ * (see SerializationUtil) into day files (see DayFile).  A day directory is streamed into its day file one serialized
+ * file at a time, so migrating a day holds a single stock tick in memory regardless of the size of the day.
+ *
+ * Every migrated day file is verified against its day directory before it is kept: the day file must hold one
+ * record per readable serialized file, and every record must match its serialized stock tick exactly.  A day file is
+ * written beside its final location and only moved into place once verified, so an interrupted or failed migration
+ * never leaves a partial day file where it would be loaded.
+ */
+public class MigrationUtil {
+
+    /** Extension of a day file being migrated */
+    private static final String PARTIAL_EXTENSION = ".partial";
+
+    /**
+     * Migrates the day directory provided into the day file specified, then verifies the day file against the day
+     * directory.  Serialized files that cannot be deserialized (or whose ticker is too long to store in a day file)
+     * are left out of the day file and counted as unreadable.
+     *
+     * @param dayDirectory The (legacy) day directory of one serialized file per ticker
+     * @param dayFile The day file to create; must not exist
+     * @return The summary of the migrated day
+     * @throws IOException If the day file exists, cannot be written, or does not match the day directory
+     */
+    public static MigrationSummary migrate(File dayDirectory, File dayFile) throws IOException {
+        if (dayFile.exists()) {
+            throw new IOException("Day file already exists: " + dayFile);
+        }
+
+        File[] files = listSerializedFiles(dayDirectory);
+        File partial = new File(dayFile.getPath() + PARTIAL_EXTENSION);
+        Files.deleteIfExists(partial.toPath());
+
+        // Remember which serialized files were appended so verification reads back exactly the same files
+        BitSet appended = new BitSet(files.length);
+        try (DayFileWriter writer = new DayFileWriter(partial)) {
+            for (int i = 0; i < files.length; i++) {
+                StockTick tick = SerializationUtil.deserializeStockTick(files[i]);
+                if (isStorable(tick)) {
+                    writer.append(tick);
+                    appended.set(i);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial.toPath());
+            throw e;
+        }
+
+        MigrationSummary summary;
+        try {
+            summary = verify(files, appended, partial);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial.toPath());
+            throw e;
+        }
+
+        Files.move(partial.toPath(), dayFile.toPath());
+        return summary;
+    }
+
+    /**
+     * Verifies an existing day file (such as one migrated before an interruption) against the day directory
+     * provided.  The day file must hold exactly one record per readable serialized file of the day directory, in
+     * order of file name, matching its serialized stock tick exactly.
+     *
+     * @param dayDirectory The (legacy) day directory of one serialized file per ticker
+     * @param dayFile The day file to verify
+     * @return The summary of the verified day
+     * @throws IOException If the day file cannot be read or does not match the day directory
+     */
+    public static MigrationSummary verify(File dayDirectory, File dayFile) throws IOException {
+        File[] files = listSerializedFiles(dayDirectory);
+
+        BitSet readable = new BitSet(files.length);
+        for (int i = 0; i < files.length; i++) {
+            if (isStorable(SerializationUtil.deserializeStockTick(files[i]))) {
+                readable.set(i);
+            }
+        }
+
+        return verify(files, readable, dayFile);
+    }
+
+    /**
+     * Verifies that the day file provided holds one record per serialized file of the files specified that was
+     * appended, in order, matching its serialized stock tick exactly.  Deserializes each serialized file again
+     * rather than holding the stock ticks of the day in memory.
+     */
+    private static MigrationSummary verify(File[] files, BitSet appended, File dayFile) throws IOException {
+        DayFileReader reader = DayFileReader.open(dayFile);
+        if (reader.getRecordCount() != appended.cardinality()) {
+            throw new IOException("Day file " + dayFile.getName() + " has " + reader.getRecordCount()
+                    + " records but " + appended.cardinality() + " stock ticks were serialized");
+        }
+
+        int record = 0;
+        for (int i = appended.nextSetBit(0); i >= 0; i = appended.nextSetBit(i + 1)) {
+            StockTick serialized = SerializationUtil.deserializeStockTick(files[i]);
+            if (serialized == null || !isIdentical(serialized, reader.readRecord(record))) {
+                throw new IOException("Record " + record + " of day file " + dayFile.getName()
+                        + " does not match " + files[i].getName());
+            }
+            record++;
+        }
+
+        return new MigrationSummary(reader.getRecordCount(), reader.getTickerCount(),
+                files.length - reader.getRecordCount());
+    }
+
+    /**
+     * Returns every serialized file of the day directory provided in order of file name.
+     *
+     * @throws IOException If the day directory cannot be listed
+     */
+    private static File[] listSerializedFiles(File dayDirectory) throws IOException {
+        File[] files = dayDirectory.listFiles(file -> file.isFile()
+                && file.getName().endsWith(SERIALIZATION_EXTENSION));
+        if (files == null) {
+            throw new IOException("Unable to list day directory: " + dayDirectory);
+        }
+
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return files;
+    }
+
+    /**
+     * Returns true if the deserialized stock tick provided can be stored in a day file, and false if it could not be
+     * deserialized or its ticker is too long to store.
+     */
+    private static boolean isStorable(StockTick tick) {
+        return tick != null && tick.getTicker().getBytes(StandardCharsets.UTF_8).length <= DayFile.MAX_TICKER_BYTES;
+    }
+
+    /**
+     * Returns true if the stock ticks provided have the same ticker and exactly the same tick data (every value
+     * bit for bit, and every size still a size), and false otherwise.
+     */
+    private static boolean isIdentical(StockTick expected, StockTick actual) {
+        if (!expected.getTicker().equals(actual.getTicker())
+                || expected.getPresentTicks() != actual.getPresentTicks()
+                || expected.getSizeTicks() != actual.getSizeTicks()) {
+            return false;
+        }
+
+        for (int tickType = 0; tickType < TickTypes.NUM_TICK_TYPES; tickType++) {
+            if (expected.hasTick(tickType) && Double.doubleToLongBits(expected.getTickValue(tickType))
+                    != Double.doubleToLongBits(actual.getTickValue(tickType))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * MigrationSummary represents the outcome of migrating or verifying a single day.
+     */
+    public static class MigrationSummary {
+
+        /** Number of records of the day file */
+        private final int recordCount;
+
+        /** Number of distinct tickers of the day file */
+        private final int tickerCount;
+
+        /** Number of serialized files of the day directory left out of the day file */
+        private final int unreadableCount;
+
+        MigrationSummary(int recordCount, int tickerCount, int unreadableCount) {
+            this.recordCount = recordCount;
+            this.tickerCount = tickerCount;
+            this.unreadableCount = unreadableCount;
+        }
+
+        /**
+         * Returns the number of records of the day file.
+         */
+        public int getRecordCount() {
+            return this.recordCount;
+        }
+
+        /**
+         * Returns the number of distinct tickers of the day file.
+         */
+        public int getTickerCount() {
+            return this.tickerCount;
+        }
+
+        /**
+         * Returns the number of serialized files of the day directory left out of the day file because they could
+         * not be deserialized or stored.
+         */
+        public int getUnreadableCount() {
+            return this.unreadableCount;
+        }
+
+        @Override
+        public String toString() {
+            return "records=" + this.recordCount + " tickers=" + this.tickerCount
+                    + " unreadable=" + this.unreadableCount;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package main.java.penny.concurrent;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TimingWheelTest {
+
+    private static final int TEST_TICK_MILLIS = 1;
+
+    private static final int TEST_NUM_BUCKETS = 64;
+
+    private TimingWheel timingWheel;
+
+    @Before
+    public void setup() {
+        timingWheel = new TimingWheel(TEST_TICK_MILLIS, TEST_NUM_BUCKETS, "TimingWheelTest");
+    }
+
+    @After
+    public void cleanup() {
+        timingWheel.stop();
+    }
+
+    @Test(timeout=2000)
+    public void testTimeoutExpiresAfterDeadline() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        TimingWheel.Timeout timeout = timingWheel.schedule(expired::countDown, 50);
+
+        expired.await();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertTrue("Expired after: " + elapsedMillis, elapsedMillis >= 50);
+        Assert.assertTrue(timeout.isExpired());
+        Assert.assertFalse(timeout.cancel());
+        Assert.assertEquals(0, timingWheel.getOutstandingTimeouts());
+    }
+
+    @Test(timeout=2000)
+    public void testTimeoutBeyondOneRotation() throws InterruptedException {
+        // Deadline spans several rotations of the wheel
+        CountDownLatch expired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        timingWheel.schedule(expired::countDown, 4 * TEST_NUM_BUCKETS * TEST_TICK_MILLIS + 10);
+
+        expired.await();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue("Expired after: " + elapsedMillis,
+                elapsedMillis >= 4 * TEST_NUM_BUCKETS * TEST_TICK_MILLIS + 10);
+    }
+
+    @Test(timeout=2000)
+    public void testCancelledTimeoutNeverExpires() throws InterruptedException {
+        AtomicInteger expiredCount = new AtomicInteger(0);
+        List<TimingWheel.Timeout> timeouts = new ArrayList<TimingWheel.Timeout>();
+
+        for (int i = 0; i < 1000; i++) {
+            timeouts.add(timingWheel.schedule(expiredCount::incrementAndGet, 20));
+        }
+        for (int i = 0; i < timeouts.size(); i += 2) {
+            Assert.assertTrue(timeouts.get(i).cancel());
+            Assert.assertFalse(timeouts.get(i).cancel());
+        }
+
+        Thread.sleep(200);
+
+        Assert.assertEquals(500, expiredCount.get());
+        for (int i = 0; i < timeouts.size(); i++) {
+            Assert.assertEquals(i % 2 == 0, timeouts.get(i).isCancelled());
+            Assert.assertEquals(i % 2 != 0, timeouts.get(i).isExpired());
+        }
+        Assert.assertEquals(0, timingWheel.getOutstandingTimeouts());
+    }
+
+    @Test(timeout=2000)
+    public void testScheduleAfterIdle() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(2);
+        timingWheel.schedule(expired::countDown, 5);
+
+        // Let the wheel park with no outstanding timeouts before scheduling again
+        Thread.sleep(100);
+        long start = System.nanoTime();
+        timingWheel.schedule(expired::countDown, 30);
+
+        expired.await();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue("Expired after: " + elapsedMillis, elapsedMillis >= 30);
+    }
+
+    @Test(timeout=2000)
+    public void testFailingTaskHoldsFailure() throws InterruptedException {
+        IllegalStateException thrown = new IllegalStateException("Failing task");
+        TimingWheel.Timeout failing = timingWheel.schedule(() -> {
+            throw thrown;
+        }, 5);
+
+        // The wheel keeps expiring timeouts after a task fails
+        CountDownLatch expired = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = timingWheel.schedule(expired::countDown, 20);
+        expired.await();
+
+        Assert.assertTrue(failing.isExpired());
+        Assert.assertSame(thrown, failing.getFailure());
+        Assert.assertNull(timeout.getFailure());
+    }
+
+    @Test(timeout=2000)
+    public void testStoppedWheelNeverExpires() throws InterruptedException {
+        AtomicInteger expiredCount = new AtomicInteger(0);
+        timingWheel.schedule(expiredCount::incrementAndGet, 20);
+        timingWheel.stop();
+
+        TimingWheel.Timeout timeout = timingWheel.schedule(expiredCount::incrementAndGet, 1);
+        Thread.sleep(100);
+
+        Assert.assertEquals(0, expiredCount.get());
+        Assert.assertFalse(timeout.isExpired());
+    }
+}
@@ -0,0 +1,69 @@
+package main.java.penny.marketdata;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class MarketDataRequestTableTest {
+
+    private static final int TEST_INITIAL_CAPACITY = 4;
+
+    @Test(timeout=1000)
+    public void testRegisterAndGet() {
+        MarketDataRequestTable table = new MarketDataRequestTable(TEST_INITIAL_CAPACITY, 0);
+        Set<Integer> tickIds = new HashSet<Integer>();
+
+        // Registering beyond the initial capacity grows the table
+        for (int i = 0; i < 4 * TEST_INITIAL_CAPACITY; i++) {
+            MarketDataRequest request = new MarketDataRequest(Integer.toString(i));
+            int tickId = table.register(request);
+
+            Assert.assertTrue(tickId > 0); // Identifier 0 is reserved for the market scanner
+            Assert.assertEquals(tickId, request.getTickId());
+            Assert.assertSame(request, table.get(tickId));
+            Assert.assertTrue(tickIds.add(tickId));
+        }
+
+        Assert.assertNull(table.get(0));
+        Assert.assertNull(table.get(-1));
+        Assert.assertNull(table.get(table.getCapacity()));
+    }
+
+    @Test(timeout=1000)
+    public void testReleasedIdsRecycled() {
+        MarketDataRequestTable table = new MarketDataRequestTable(TEST_INITIAL_CAPACITY, 0);
+
+        // Only a single request is ever dispatched at a time, so the table never grows
+        for (int i = 0; i < 10000; i++) {
+            MarketDataRequest request = new MarketDataRequest(Integer.toString(i));
+            int tickId = table.register(request);
+
+            Assert.assertTrue(table.release(request));
+            Assert.assertFalse(table.release(request));
+            Assert.assertNull(table.get(tickId));
+        }
+
+        Assert.assertEquals(TEST_INITIAL_CAPACITY, table.getCapacity());
+    }
+
+    @Test(timeout=5000)
+    public void testReleasedIdsWaitForRecycleDelay() throws InterruptedException {
+        MarketDataRequestTable table = new MarketDataRequestTable(TEST_INITIAL_CAPACITY, 100);
+
+        MarketDataRequest first = new MarketDataRequest("FIRST");
+        int firstId = table.register(first);
+        table.release(first);
+
+        // A late callback for the first request must not reach a request issued the same identifier
+        MarketDataRequest second = new MarketDataRequest("SECOND");
+        Assert.assertNotEquals(firstId, table.register(second));
+
+        Thread.sleep(150);
+
+        MarketDataRequest third = new MarketDataRequest("THIRD");
+        Assert.assertEquals(firstId, table.register(third));
+        Assert.assertSame(third, table.get(firstId));
+    }
+}
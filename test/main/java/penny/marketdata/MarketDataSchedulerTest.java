@@ -0,0 +1,82 @@
+package main.java.penny.marketdata;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MarketDataSchedulerTest {
+
+    private static final int TEST_MAX_ACTIVE_REQUESTS = 5;
+
+    @Test(timeout=1000)
+    public void testScheduleWithinWindow() {
+        List<MarketDataRequest> dispatched = new ArrayList<MarketDataRequest>();
+        MarketDataScheduler scheduler = new MarketDataScheduler(TEST_MAX_ACTIVE_REQUESTS, dispatched::add);
+
+        for (int i = 0; i < 2 * TEST_MAX_ACTIVE_REQUESTS; i++) {
+            scheduler.schedule(new MarketDataRequest(Integer.toString(i)));
+        }
+
+        Assert.assertEquals(TEST_MAX_ACTIVE_REQUESTS, dispatched.size());
+        Assert.assertEquals(TEST_MAX_ACTIVE_REQUESTS, scheduler.getPendingRequestCount());
+    }
+
+    @Test(timeout=1000)
+    public void testReleaseDispatchesNextInOrder() {
+        List<MarketDataRequest> dispatched = new ArrayList<MarketDataRequest>();
+        MarketDataScheduler scheduler = new MarketDataScheduler(TEST_MAX_ACTIVE_REQUESTS, dispatched::add);
+
+        for (int i = 0; i < 2 * TEST_MAX_ACTIVE_REQUESTS; i++) {
+            scheduler.schedule(new MarketDataRequest(Integer.toString(i)));
+        }
+
+        for (int i = 0; i < TEST_MAX_ACTIVE_REQUESTS; i++) {
+            scheduler.release();
+            Assert.assertEquals(TEST_MAX_ACTIVE_REQUESTS + i + 1, dispatched.size());
+        }
+
+        for (int i = 0; i < dispatched.size(); i++) {
+            Assert.assertEquals(Integer.toString(i), dispatched.get(i).getTicker());
+        }
+        Assert.assertEquals(0, scheduler.getPendingRequestCount());
+    }
+
+    @Test(timeout=5000)
+    public void testReleaseDuringDispatchDoesNotRecurse() {
+        AtomicInteger dispatched = new AtomicInteger(0);
+        MarketDataScheduler[] scheduler = new MarketDataScheduler[1];
+
+        // Every request settles synchronously while it is dispatched
+        scheduler[0] = new MarketDataScheduler(1, request -> {
+            dispatched.incrementAndGet();
+            scheduler[0].release();
+        });
+
+        for (int i = 0; i < 100000; i++) {
+            scheduler[0].schedule(new MarketDataRequest(Integer.toString(i)));
+        }
+
+        Assert.assertEquals(100000, dispatched.get());
+        Assert.assertEquals(0, scheduler[0].getPendingRequestCount());
+    }
+
+    @Test(timeout=1000)
+    public void testFailedDispatchReclaimsPermit() {
+        AtomicInteger dispatched = new AtomicInteger(0);
+        MarketDataScheduler scheduler = new MarketDataScheduler(1, request -> {
+            if (dispatched.getAndIncrement() == 0) {
+                throw new IllegalStateException();
+            }
+        });
+
+        MarketDataRequest failed = new MarketDataRequest("FAIL");
+        scheduler.schedule(failed);
+        scheduler.schedule(new MarketDataRequest("PASS"));
+
+        Assert.assertTrue(failed.getFuture().isCompletedExceptionally());
+        Assert.assertEquals(2, dispatched.get());
+    }
+}
@@ -0,0 +1,176 @@
+package main.java.penny.marketdata;
+
+import com.ib.client.Contract;
+import main.java.penny.Broker;
+import main.java.penny.concurrent.LockManagerUtil;
+import main.java.penny.constants.MarketDataConstants;
+import main.java.penny.constants.TickTypes;
+import main.java.penny.mock.MockBroker;
+import main.java.penny.mock.MockMarketData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class MarketDataTest {
+
+    @Before
+    public void setup() {
+        MockBroker.init(true /* Deliver in Parallel */);
+    }
+
+    @After
+    public void cleanup() {
+        ((MockMarketData) Broker.getInstance().getMarketData()).cleanup();
+        ((MockBroker) Broker.getInstance()).cleanup();
+        LockManagerUtil.cleanup();
+    }
+
+    @Test(timeout=10000)
+    public void testRequestMarketDataCompletes() throws InterruptedException, ExecutionException {
+        StockTick tick = Broker.getInstance().getMarketData().requestMarketData("BRAB").get();
+
+        Assert.assertEquals("BRAB", tick.getTicker());
+        Assert.assertTrue(tick.isComplete());
+    }
+
+    @Test(timeout=10000)
+    public void testSnapshotSettlesOnSnapshotEnd() throws InterruptedException, ExecutionException {
+        MarketData marketData = Broker.getInstance().getMarketData();
+
+        marketData.setSnapshotMode(true);
+        StockTick snapshot = marketData.requestMarketData("BRAB").get();
+
+        // Snapshots deliver the standard ticks only, but still settle normally once the snapshot ends
+        Assert.assertEquals("BRAB", snapshot.getTicker());
+        Assert.assertFalse(snapshot.isComplete());
+        Assert.assertTrue(snapshot.hasTick(TickTypes.LAST));
+        Assert.assertTrue(snapshot.hasTick(TickTypes.VOLUME));
+        Assert.assertFalse(snapshot.hasTick(TickTypes.AVERAGE_VOLUME));
+
+        // Streaming market data for the same ticker completes the same stock
+        marketData.setSnapshotMode(false);
+        StockTick tick = marketData.requestMarketData("BRAB").get();
+
+        Assert.assertTrue(tick.isComplete());
+        Assert.assertTrue(marketData.getStockTickResults().getStockTick("BRAB").isComplete());
+    }
+
+    @Test(timeout=10000)
+    public void testSettlingLeavesActiveRequestAlone() {
+        SilentMarketData marketData = new SilentMarketData();
+        try {
+            CompletableFuture<StockTick> future = marketData.requestMarketData("BRAB");
+            int tickId = marketData.requested.get(0);
+
+            // The broker signals the market data type at the start of a subscription too
+            marketData.settleMarketData(tickId);
+
+            Assert.assertTrue(marketData.cancelled.isEmpty());
+            Assert.assertNotNull(marketData.getDispatchedRequest(tickId));
+            Assert.assertFalse(future.isDone());
+
+            // Once cancelled, the request settles
+            marketData.cancelMarketData(tickId);
+            marketData.settleMarketData(tickId);
+
+            Assert.assertEquals(Arrays.asList(tickId), marketData.cancelled);
+            Assert.assertNull(marketData.getDispatchedRequest(tickId));
+            Assert.assertTrue(future.isDone());
+        } finally {
+            marketData.shutdownTimeoutProcess();
+        }
+    }
+
+    @Test(timeout=10000)
+    public void testFailedDispatchSettles() {
+        SilentMarketData marketData = new SilentMarketData();
+        try {
+            CompletableFuture<StockTick> failed = marketData.requestMarketData(SilentMarketData.UNREACHABLE);
+
+            Assert.assertTrue(failed.isCompletedExceptionally());
+            marketData.waitForActiveDataToDeliver();
+
+            // The permit of the failed request was reclaimed exactly once
+            List<CompletableFuture<StockTick>> futures = new ArrayList<CompletableFuture<StockTick>>();
+            for (int i = 0; i <= MarketDataConstants.MAX_CONCURRENT_MARKET_DATA_REQUESTS; i++) {
+                futures.add(marketData.requestMarketData(Integer.toString(i)));
+            }
+            Assert.assertEquals(MarketDataConstants.MAX_CONCURRENT_MARKET_DATA_REQUESTS, marketData.requested.size());
+        } finally {
+            marketData.shutdownTimeoutProcess();
+        }
+    }
+
+    @Test(timeout=30000)
+    public void testScanCompletesWithEveryTicker() {
+        List<String> tickers = new ArrayList<String>();
+        for (int i = 0; i < 500; i++) {
+            tickers.add(Integer.toString(i));
+        }
+
+        List<StockTick> ticks = StockScanner.scan(tickers).join();
+
+        Assert.assertEquals(tickers.size(), ticks.size());
+        for (int i = 0; i < tickers.size(); i++) {
+            Assert.assertEquals(tickers.get(i), ticks.get(i).getTicker());
+            Assert.assertTrue(ticks.get(i).isComplete());
+        }
+    }
+
+    @Test(timeout=1000)
+    public void testAllSettledIncludesFailedRequests() {
+        StockTick delivered = new StockTick("DELIVERED");
+        StockTick timedOut = new StockTick("TIMEOUT");
+        StockTick errored = new StockTick("ERROR");
+
+        CompletableFuture<StockTick> deliveredRequest = new CompletableFuture<StockTick>();
+        CompletableFuture<StockTick> timedOutRequest = new CompletableFuture<StockTick>();
+        CompletableFuture<StockTick> erroredRequest = new CompletableFuture<StockTick>();
+
+        CompletableFuture<List<StockTick>> settled =
+                MarketData.allSettled(Arrays.asList(deliveredRequest, timedOutRequest, erroredRequest));
+
+        timedOutRequest.completeExceptionally(new MarketDataTimeoutException("TIMEOUT", timedOut, 10));
+        Assert.assertFalse(settled.isDone());
+        erroredRequest.completeExceptionally(new MarketDataErrorException("ERROR", errored, 200, "No security"));
+        Assert.assertFalse(settled.isDone());
+        deliveredRequest.complete(delivered);
+
+        Assert.assertTrue(settled.isDone());
+        Assert.assertEquals(Arrays.asList(delivered, timedOut, errored), settled.join());
+    }
+
+    /**
+     * Market data that never delivers and records every market data identifier requested and cancelled with the
+     * broker.
+     */
+    private static class SilentMarketData extends MarketData {
+
+        /** Ticker whose market data requests fail to send */
+        private static final String UNREACHABLE = "UNREACHABLE";
+
+        private final List<Integer> requested = new ArrayList<Integer>();
+
+        private final List<Integer> cancelled = new ArrayList<Integer>();
+
+        @Override
+        protected void sendMarketDataRequest(int tickId, Contract contract) {
+            if (UNREACHABLE.equals(contract.symbol())) {
+                throw new IllegalStateException("Not connected");
+            }
+            this.requested.add(tickId);
+        }
+
+        @Override
+        protected void sendMarketDataCancel(int tickId) {
+            this.cancelled.add(tickId);
+        }
+    }
+}
@@ -60,4 +60,10 @@ public class ParallelDeliveryScannerTest extends ScannerTest {
     public void testScanSequentialCompleteOTCScale() {
         super.testScanSequentialCompleteOTCScale();
     }
+
+    @Override
+    @Test
+    public void testScanBoundedParallelism() {
+        super.testScanBoundedParallelism();
+    }
 }
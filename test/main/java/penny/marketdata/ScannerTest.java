@@ -97,6 +97,13 @@ public class ScannerTest {
         testSequential(completeOTCTickers);
     }
 
+    @Test
+    public void testScanBoundedParallelism() {
+        StockScanner.scan(filteredOTCTickers, null, 2 /* Parallelism */);
+        Broker.getInstance().getMarketData().waitForActiveDataToDeliver();
+        assertMarketDataComplete(filteredOTCTickers);
+    }
+
     private void testParallel(List<String> tickers) {
         StockScanner.scan(tickers);
         Broker.getInstance().getMarketData().waitForActiveDataToDeliver();
@@ -1,6 +1,7 @@
 package main.java.penny.marketdata;
 
 import com.ib.client.Contract;
+import main.java.penny.constants.TickTypes;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -185,6 +186,80 @@ public class StockTickResultsTest {
         }
     }
 
+    @Test
+    public void testGetStockTicksUniqueTickers() {
+        for (int i = 0; i < contracts.size(); i++) {
+            results.addStockTick(i, contracts.get(i));
+        }
+
+        // Re-request every ticker under a new market data identifier
+        for (int i = 0; i < contracts.size(); i++) {
+            results.addStockTick(contracts.size() + i, contracts.get(i));
+            Assert.assertSame(results.getStockTick(i), results.getStockTick(contracts.size() + i));
+        }
+
+        Assert.assertEquals(contracts.size(), results.getStockTicks().size());
+        Assert.assertEquals(contracts.size(), results.getRowCount());
+    }
+
+    @Test
+    public void testReleaseTickId() {
+        Contract contract = contracts.get(0);
+        results.addStockTick(0, contract);
+        results.addTickResult(0, 0, 1);
+
+        Assert.assertTrue(results.releaseTickId(0));
+        Assert.assertFalse(results.releaseTickId(0));
+        Assert.assertFalse(results.hasStockTick(0));
+        Assert.assertFalse(results.addTickResult(0, 1, 1));
+
+        // Stock data remains accessible by ticker after its identifier is released
+        Assert.assertTrue(results.hasTicker(contract.symbol()));
+        Assert.assertEquals(1, results.getStockTick(contract.symbol()).getTick(0));
+    }
+
+    @Test
+    public void testGetColumn() {
+        for (int i = 0; i < contracts.size(); i++) {
+            results.addStockTick(-i - 1, contracts.get(i));
+            results.addTickResult(-i - 1, 4, i * 0.5);
+        }
+
+        double[] column = results.getColumn(4);
+        Assert.assertEquals(contracts.size(), column.length);
+        for (int row = 0; row < column.length; row++) {
+            Assert.assertEquals(row * 0.5, column[row], 0);
+            Assert.assertEquals(row * 0.5, results.getRowTickValue(row, 4), 0);
+            Assert.assertEquals(contracts.get(row).symbol(), results.getRowTicker(row));
+            Assert.assertFalse(results.isRowComplete(row));
+            Assert.assertTrue(Double.isNaN(results.getRowTickValue(row, 5)));
+        }
+    }
+
+    @Test
+    public void testRequiredTicksCompleteStockTick() {
+        Contract contract = contracts.get(0);
+        results.addStockTick(0, contract);
+        StockTick tick = results.getStockTick(0);
+
+        tick.addTick(TickTypes.LAST, 1.5);
+        tick.addTick(TickTypes.VOLUME, 200);
+        Assert.assertFalse(tick.isComplete());
+
+        // A stock requested again once fewer tick types are required is complete as soon as they are delivered
+        results.setRequiredTicks(TickTypes.asMask(TickTypes.LAST, TickTypes.VOLUME));
+        results.addStockTick(1, contract);
+        Assert.assertTrue(results.getStockTick(1).isComplete());
+        Assert.assertTrue(tick.hasTicks(TickTypes.asMask(TickTypes.LAST, TickTypes.VOLUME)));
+        Assert.assertFalse(tick.hasTicks(TickTypes.asMask(TickTypes.LAST, TickTypes.OPEN)));
+
+        results.addStockTick(2, contracts.get(1));
+        Assert.assertFalse(results.getStockTick(2).isComplete());
+        results.addTickResult(2, TickTypes.LAST, 0.5);
+        results.addTickResult(2, TickTypes.VOLUME, 10);
+        Assert.assertTrue(results.getStockTick(2).isComplete());
+    }
+
     private Contract contract() {
         Contract contract = MarketData.contract(UUID.randomUUID().toString());
 
@@ -6,8 +6,40 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
 public class StockTickTest {
 
+    // FPTA StockTick serialized by the original map-based StockTick implementation
+    private static final String LEGACY_SERIALIZED_FPTA =
+            "rO0ABXNyACRtYWluLmphdmEucGVubnkubWFya2V0ZGF0YS5TdG9ja1RpY2uvDISDLu7+IQIAA0wADG1pc3NpbmdUaWNrc3QAD0xq" +
+            "YXZhL3V0aWwvU2V0O0wABnRpY2tlcnQAEkxqYXZhL2xhbmcvU3RyaW5nO0wABXRpY2tzdAAPTGphdmEvdXRpbC9NYXA7eHBzcgAR" +
+            "amF2YS51dGlsLkhhc2hTZXS6RIWVlri3NAMAAHhwdwwAAAAQP0AAAAAAAAB4dAAERlBUQXNyACZqYXZhLnV0aWwuY29uY3VycmVu" +
+            "dC5Db25jdXJyZW50SGFzaE1hcGSZ3hKdhyk9AwADSQALc2VnbWVudE1hc2tJAAxzZWdtZW50U2hpZnRbAAhzZWdtZW50c3QAMVtM" +
+            "amF2YS91dGlsL2NvbmN1cnJlbnQvQ29uY3VycmVudEhhc2hNYXAkU2VnbWVudDt4cAAAAA8AAAAcdXIAMVtMamF2YS51dGlsLmNv" +
+            "bmN1cnJlbnQuQ29uY3VycmVudEhhc2hNYXAkU2VnbWVudDtSdz9BMps5dAIAAHhwAAAAEHNyAC5qYXZhLnV0aWwuY29uY3VycmVu" +
+            "dC5Db25jdXJyZW50SGFzaE1hcCRTZWdtZW50HzZMkFiTKT0CAAFGAApsb2FkRmFjdG9yeHIAKGphdmEudXRpbC5jb25jdXJyZW50" +
+            "LmxvY2tzLlJlZW50cmFudExvY2tmVagsLMhq6wIAAUwABHN5bmN0AC9MamF2YS91dGlsL2NvbmN1cnJlbnQvbG9ja3MvUmVlbnRy" +
+            "YW50TG9jayRTeW5jO3hwc3IANGphdmEudXRpbC5jb25jdXJyZW50LmxvY2tzLlJlZW50cmFudExvY2skTm9uZmFpclN5bmNliDLn" +
+            "U3u/CwIAAHhyAC1qYXZhLnV0aWwuY29uY3VycmVudC5sb2Nrcy5SZWVudHJhbnRMb2NrJFN5bmO4HqKUqkRafAIAAHhyADVqYXZh" +
+            "LnV0aWwuY29uY3VycmVudC5sb2Nrcy5BYnN0cmFjdFF1ZXVlZFN5bmNocm9uaXplcmZVqEN1P1LjAgABSQAFc3RhdGV4cgA2amF2" +
+            "YS51dGlsLmNvbmN1cnJlbnQubG9ja3MuQWJzdHJhY3RPd25hYmxlU3luY2hyb25pemVyM9+vua1tb6kCAAB4cAAAAAA/QAAAc3EA" +
+            "fgANc3EAfgARAAAAAD9AAABzcQB+AA1zcQB+ABEAAAAAP0AAAHNxAH4ADXNxAH4AEQAAAAA/QAAAc3EAfgANc3EAfgARAAAAAD9A" +
+            "AABzcQB+AA1zcQB+ABEAAAAAP0AAAHNxAH4ADXNxAH4AEQAAAAA/QAAAc3EAfgANc3EAfgARAAAAAD9AAABzcQB+AA1zcQB+ABEA" +
+            "AAAAP0AAAHNxAH4ADXNxAH4AEQAAAAA/QAAAc3EAfgANc3EAfgARAAAAAD9AAABzcQB+AA1zcQB+ABEAAAAAP0AAAHNxAH4ADXNx" +
+            "AH4AEQAAAAA/QAAAc3EAfgANc3EAfgARAAAAAD9AAABzcQB+AA1zcQB+ABEAAAAAP0AAAHNxAH4ADXNxAH4AEQAAAAA/QAAAc3IA" +
+            "EWphdmEubGFuZy5JbnRlZ2VyEuKgpPeBhzgCAAFJAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVyhqyVHQuU4IsCAAB4cAAAABBz" +
+            "cgAQamF2YS5sYW5nLkRvdWJsZYCzwkopa/sEAgABRAAFdmFsdWV4cQB+ADVAJMzMzMzMzXNxAH4ANAAAAARzcQB+ADdABzMzMzMz" +
+            "M3NxAH4ANAAAABVzcQB+ADQAAAAfc3EAfgA0AAAABnNxAH4AN0AIKPXCj1wpc3EAfgA0AAAAB3NxAH4AN0AEAAAAAAAAc3EAfgA0" +
+            "AAAACHNxAH4ANAAADM9zcQB+ADQAAAAOc3EAfgA3QAQAAAAAAABzcQB+ADQAAAAPc3EAfgA0AAAAAXBweA==";
+
     private StockTick tick;
 
     private Contract contract;
@@ -100,4 +132,181 @@ public class StockTickTest {
         tick2 = new StockTick(MarketData.contract("NotEqual").symbol());
         Assert.assertNotEquals(tick.toString(), tick2.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddTickPreservesSizeAndPrice() {
+        tick.addTick(TickTypes.VOLUME, 3279);
+        tick.addTick(TickTypes.LAST, 2.9);
+
+        Assert.assertEquals(3279, tick.getTick(TickTypes.VOLUME));
+        Assert.assertEquals(2.9, tick.getTick(TickTypes.LAST));
+        Assert.assertEquals(3279.0, tick.getTickValue(TickTypes.VOLUME), 0.0);
+        Assert.assertEquals(2.9, tick.getTickValue(TickTypes.LAST), 0.0);
+
+        // Overwriting a size with a price changes the kind of value retrieved
+        tick.addTick(TickTypes.VOLUME, 3280.5);
+        Assert.assertEquals(3280.5, tick.getTick(TickTypes.VOLUME));
+    }
+
+    @Test
+    public void testUntrackedTickIgnored() {
+        tick.addTick(TickTypes.NUM_TICK_TYPES, 1.0);
+        tick.addTick(-1, 1);
+
+        Assert.assertFalse(tick.hasTick(TickTypes.NUM_TICK_TYPES));
+        Assert.assertFalse(tick.hasTick(-1));
+        Assert.assertNull(tick.getTick(TickTypes.NUM_TICK_TYPES));
+        Assert.assertTrue(Double.isNaN(tick.getTickValue(TickTypes.NUM_TICK_TYPES)));
+    }
+
+    @Test(timeout = 5000)
+    public void testConcurrentAddTickIsComplete() throws InterruptedException {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int requiredTick : TickTypes.requiredTicks) {
+            threads.add(new Thread(() -> tick.addTick(requiredTick, requiredTick)));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertTrue(tick.isComplete());
+        for (int requiredTick : TickTypes.requiredTicks) {
+            Assert.assertEquals(requiredTick, tick.getTick(requiredTick));
+        }
+    }
+
+    @Test
+    public void testDeserializeLegacyForm() throws Exception {
+        byte[] serialized = Base64.getDecoder().decode(LEGACY_SERIALIZED_FPTA);
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized));
+        StockTick legacy = (StockTick) in.readObject();
+        in.close();
+
+        Assert.assertEquals("FPTA", legacy.getTicker());
+        Assert.assertTrue(legacy.isComplete());
+        Assert.assertEquals(2.5, legacy.getTick(TickTypes.OPEN));
+        Assert.assertEquals(2.9, legacy.getTick(TickTypes.LAST));
+        Assert.assertEquals(3.02, legacy.getTick(TickTypes.HIGH));
+        Assert.assertEquals(2.5, legacy.getTick(TickTypes.LOW));
+        Assert.assertEquals(3279, legacy.getTick(TickTypes.VOLUME));
+        Assert.assertEquals(31, legacy.getTick(TickTypes.AVERAGE_VOLUME));
+        Assert.assertEquals(10.4, legacy.getTick(TickTypes.HIGH_13_WEEKS));
+        Assert.assertEquals(1, legacy.getTick(TickTypes.LOW_13_WEEKS));
+    }
+
+    @Test
+    public void testSerializationRoundTrip() throws Exception {
+        tick.addTick(TickTypes.OPEN, 1.26);
+        tick.addTick(TickTypes.VOLUME, 3290);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(tick);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        StockTick copy = (StockTick) in.readObject();
+        in.close();
+
+        Assert.assertEquals(tick, copy);
+        Assert.assertEquals(tick.toString(), copy.toString());
+        Assert.assertFalse(copy.isComplete());
+        Assert.assertEquals(1.26, copy.getTick(TickTypes.OPEN));
+        Assert.assertEquals(3290, copy.getTick(TickTypes.VOLUME));
+    }
+
+    @Test
+    public void testCodecRoundTripOfLegacyForm() throws Exception {
+        byte[] serialized = Base64.getDecoder().decode(LEGACY_SERIALIZED_FPTA);
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized));
+        StockTick legacy = (StockTick) in.readObject();
+        in.close();
+
+        byte[] encoded = StockTickCodec.encode(legacy);
+        StockTick decoded = StockTickCodec.decode(encoded);
+
+        // The encoding holds every tick value of the legacy form in a fraction of the bytes
+        Assert.assertEquals(StockTickCodec.encodedLength(legacy), encoded.length);
+        Assert.assertTrue(encoded.length * 5 < serialized.length);
+        Assert.assertEquals(legacy, decoded);
+        Assert.assertEquals(legacy.toString(), decoded.toString());
+        Assert.assertTrue(decoded.isComplete());
+        Assert.assertEquals(legacy.getPresentTicks(), decoded.getPresentTicks());
+        Assert.assertEquals(legacy.getSizeTicks(), decoded.getSizeTicks());
+        for (int tickType = 0; tickType < TickTypes.NUM_TICK_TYPES; tickType++) {
+            Assert.assertEquals(legacy.getTick(tickType), decoded.getTick(tickType));
+        }
+    }
+
+    @Test
+    public void testCodecRoundTripMatchesSerialization() throws Exception {
+        tick.addTick(TickTypes.OPEN, 1.26);
+        tick.addTick(TickTypes.VOLUME, 3290);
+        tick.addTick(TickTypes.LOW, Double.NaN);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(tick);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        StockTick serialized = (StockTick) in.readObject();
+        in.close();
+
+        // Several encodings back to back in one buffer decode in order
+        ByteBuffer buffer = ByteBuffer.allocate(2 * StockTickCodec.MAX_ENCODED_BYTES);
+        StockTickCodec.encode(tick, buffer);
+        StockTickCodec.encode(serialized, buffer);
+        buffer.flip();
+
+        StockTick decoded = StockTickCodec.decode(buffer);
+        Assert.assertEquals(serialized.toString(), decoded.toString());
+        Assert.assertEquals(3290, decoded.getTick(TickTypes.VOLUME));
+        Assert.assertTrue(decoded.hasTick(TickTypes.LOW));
+        Assert.assertTrue(Double.isNaN(decoded.getTickValue(TickTypes.LOW)));
+        Assert.assertEquals(serialized.toString(), StockTickCodec.decode(buffer).toString());
+        Assert.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testCodecRejectsUnsupportedVersion() {
+        byte[] encoded = StockTickCodec.encode(tick);
+        encoded[0] = StockTickCodec.VERSION + 1;
+
+        try {
+            StockTickCodec.decode(encoded);
+            Assert.fail("Decoded an unsupported version");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testPumpStockTickViewsWithoutCopying() {
+        PumpStockTick view = new PumpStockTick(tick);
+        Assert.assertSame(view, PumpStockTick.of(view));
+
+        // Tick data delivered to the original stock tick is visible through the view
+        tick.addTick(TickTypes.OPEN, 2.0);
+        tick.addTick(TickTypes.LAST, 2.5);
+        tick.addTick(TickTypes.HIGH, 3.0);
+        tick.addTick(TickTypes.LOW, 1.0);
+        tick.addTick(TickTypes.VOLUME, 40);
+        Assert.assertEquals(tick.getTicker(), view.getTicker());
+        Assert.assertEquals(2.5, view.getLastPrice(), 0.0);
+
+        Assert.assertEquals(10000.0, view.getVolumeUSD(), 0.0);
+        Assert.assertEquals(0.25, view.getPercentChange(), 0.0);
+        Assert.assertEquals(1.0, view.getDayRange(), 0.0);
+
+        // Derived values are memoized once computed
+        tick.addTick(TickTypes.LAST, 4.0);
+        Assert.assertEquals(10000.0, view.getVolumeUSD(), 0.0);
+        Assert.assertEquals(16000.0, PumpStockTick.getVolumeUSD(tick), 0.0);
+    }
+}
@@ -0,0 +1,104 @@
+package main.java.penny.models;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LogisticScorerTest {
+
+    private static final double TEST_INTERCEPT = -2.75;
+
+    private static final double[] TEST_COEFFICIENTS = {0.8, -1.3, 4.2, 0.05};
+
+    private static final double[] TEST_MEANS = {15000, 9000, 0.12, 0.0};
+
+    private static final double[] TEST_STD_DEVS = {42000, 30000, 0.4, 0.0};
+
+    /**
+     * Computes the probability of the positive class the way Weka does: standardizing each value into a data
+     * instance, then evaluating the log-posterior of each class.
+     */
+    private static double wekaProbability(double[] features) {
+        double[] data = new double[features.length + 1];
+        data[0] = 1;
+        for (int i = 0; i < features.length; i++) {
+            data[i + 1] = TEST_STD_DEVS[i] > 0 ? (features[i] - TEST_MEANS[i]) / TEST_STD_DEVS[i]
+                                               : features[i] - TEST_MEANS[i];
+        }
+
+        double[][] parameters = new double[data.length][1];
+        parameters[0][0] = TEST_INTERCEPT;
+        for (int i = 0; i < TEST_COEFFICIENTS.length; i++) {
+            parameters[i + 1][0] = TEST_COEFFICIENTS[i];
+        }
+
+        double[] v = new double[2];
+        for (int k = 0; k < data.length; k++) {
+            v[0] += parameters[k][0] * data[k];
+        }
+        v[1] = 0;
+
+        double sum = 0;
+        sum += Math.exp(v[0] - v[1]);
+        return 1 / (sum + Math.exp(-v[1]));
+    }
+
+    @Test
+    public void testScoreIdenticalToWeka() {
+        LogisticScorer scorer = new LogisticScorer(TEST_INTERCEPT, TEST_COEFFICIENTS, TEST_MEANS, TEST_STD_DEVS);
+        Random rng = new Random(7);
+
+        Assert.assertEquals(TEST_COEFFICIENTS.length, scorer.getNumFeatures());
+        for (int i = 0; i < 100000; i++) {
+            double[] features = {rng.nextInt(1000000), rng.nextInt(500000), rng.nextGaussian(), rng.nextDouble()};
+
+            Assert.assertEquals(Double.doubleToLongBits(wekaProbability(features)),
+                    Double.doubleToLongBits(scorer.score(features)));
+        }
+    }
+
+    @Test
+    public void testScoreColumnsIdenticalToScore() {
+        LogisticScorer scorer = new LogisticScorer(TEST_INTERCEPT, TEST_COEFFICIENTS, TEST_MEANS, TEST_STD_DEVS);
+        Random rng = new Random(11);
+
+        FeatureMatrix matrix = new FeatureMatrix(TEST_COEFFICIENTS.length, 5000);
+        for (int row = 0; row < matrix.getRowCount(); row++) {
+            matrix.set(row, 0, rng.nextInt(1000000));
+            matrix.set(row, 1, rng.nextInt(500000));
+            matrix.set(row, 2, rng.nextGaussian());
+            matrix.set(row, 3, rng.nextDouble());
+        }
+
+        // Score a range in the middle of the matrix; rows outside the range are untouched
+        double[] probabilities = new double[matrix.getRowCount()];
+        scorer.score(matrix.getColumns(), 100, 4900, probabilities);
+
+        double[] features = new double[TEST_COEFFICIENTS.length];
+        for (int row = 0; row < matrix.getRowCount(); row++) {
+            for (int feature = 0; feature < features.length; feature++) {
+                features[feature] = matrix.get(row, feature);
+            }
+
+            double expected = row >= 100 && row < 4900 ? scorer.score(features) : 0.0;
+            Assert.assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(probabilities[row]));
+        }
+    }
+
+    @Test
+    public void testStandardizeWithoutDeviation() {
+        LogisticScorer scorer = new LogisticScorer(TEST_INTERCEPT, TEST_COEFFICIENTS, TEST_MEANS, TEST_STD_DEVS);
+
+        // Features with no deviation in the training data are only centered
+        Assert.assertEquals(0.5, scorer.standardize(3, 0.5), 0.0);
+        Assert.assertEquals(1.0, scorer.standardize(0, 57000), 0.0);
+    }
+
+    @Test
+    public void testProbability() {
+        Assert.assertEquals(0.5, LogisticScorer.probability(0), 0.0);
+        Assert.assertTrue(LogisticScorer.probability(-10) > 0.99);
+        Assert.assertTrue(LogisticScorer.probability(10) < 0.01);
+    }
+}
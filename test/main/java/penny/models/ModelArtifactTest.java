@@ -0,0 +1,77 @@
+package main.java.penny.models;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class ModelArtifactTest {
+
+    private static final LogisticScorer TEST_SCORER = new LogisticScorer(-2.75, new double[] {0.8, -1.3, 4.2, 0.05},
+            new double[] {15000, 9000, 0.12, 0.0}, new double[] {42000, 30000, 0.4, 0.0});
+
+    /**
+     * Asserts the scorers provided produce bit-for-bit identical probabilities.
+     */
+    private static void assertScoresIdentical(LogisticScorer expected, LogisticScorer actual) {
+        Assert.assertEquals(expected.getNumFeatures(), actual.getNumFeatures());
+
+        Random rng = new Random(3);
+        for (int i = 0; i < 10000; i++) {
+            double[] features = {rng.nextInt(1000000), rng.nextInt(500000), rng.nextGaussian(), rng.nextDouble()};
+
+            Assert.assertEquals(Double.doubleToLongBits(expected.score(features)),
+                    Double.doubleToLongBits(actual.score(features)));
+        }
+    }
+
+    @Test
+    public void testReadIdenticalToWritten() throws IOException {
+        LogisticScorer read = ModelArtifact.read(ByteBuffer.wrap(ModelArtifact.toBytes(TEST_SCORER, 0)));
+
+        assertScoresIdentical(TEST_SCORER, read);
+    }
+
+    @Test
+    public void testMapIdenticalToWritten() throws IOException {
+        File artifact = File.createTempFile("model", ".pnym");
+        try {
+            ModelArtifact.write(TEST_SCORER, artifact);
+
+            assertScoresIdentical(TEST_SCORER, ModelArtifact.map(artifact));
+        } finally {
+            artifact.delete();
+        }
+    }
+
+    @Test
+    public void testMissingResource() throws IOException {
+        Assert.assertNull(ModelArtifact.readResource("/models/Missing.pnym"));
+    }
+
+    @Test(expected=IOException.class)
+    public void testCorruptArtifactRejected() throws IOException {
+        byte[] bytes = ModelArtifact.toBytes(TEST_SCORER, 0);
+        bytes[bytes.length / 2] ^= 1;
+
+        ModelArtifact.read(ByteBuffer.wrap(bytes));
+    }
+
+    @Test(expected=IOException.class)
+    public void testUnsupportedVersionRejected() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(ModelArtifact.toBytes(TEST_SCORER, 0));
+        buffer.putInt(Integer.BYTES, ModelArtifact.FORMAT_VERSION + 1);
+
+        ModelArtifact.read(buffer);
+    }
+
+    @Test(expected=IOException.class)
+    public void testTruncatedArtifactRejected() throws IOException {
+        byte[] bytes = ModelArtifact.toBytes(TEST_SCORER, 0);
+
+        ModelArtifact.read(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+    }
+}
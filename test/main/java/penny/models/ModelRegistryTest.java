@@ -0,0 +1,110 @@
+package main.java.penny.models;
+
+import main.java.penny.marketdata.StockTick;
+import main.java.penny.models.classification.ClassificationResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ModelRegistryTest {
+
+    private static final String TEST_MODEL = "TestModel";
+
+    private ModelRegistry registry;
+
+    private File modelFile;
+
+    private AtomicInteger loads;
+
+    /**
+     * Returns a Classifier classifying every StockTick with the percentage provided.
+     */
+    private static Classifier constantClassifier(double percentage) {
+        return new Classifier() {
+            @Override
+            public ClassificationResult classify(StockTick tick) {
+                return new ClassificationResult(percentage);
+            }
+        };
+    }
+
+    @Before
+    public void setup() throws IOException {
+        this.registry = new ModelRegistry(0 /* Check for changes on every access */);
+        this.modelFile = File.createTempFile("model", ".model");
+        this.loads = new AtomicInteger();
+
+        this.registry.register(TEST_MODEL, () -> constantClassifier(this.loads.incrementAndGet()), this.modelFile);
+    }
+
+    @After
+    public void cleanup() {
+        this.modelFile.delete();
+    }
+
+    @Test(timeout=5000)
+    public void testModelLoadedOnce() throws Exception {
+        this.registry.preload(TEST_MODEL);
+        ModelHandle handle = this.registry.getModel(TEST_MODEL);
+
+        for (int i = 0; i < 100; i++) {
+            Assert.assertSame(handle, this.registry.getModel(TEST_MODEL));
+        }
+
+        Assert.assertEquals(1, this.loads.get());
+        Assert.assertEquals(1, handle.getVersion());
+        Assert.assertEquals(TEST_MODEL, handle.getName());
+    }
+
+    @Test(timeout=5000)
+    public void testModelReloadedWhenChanged() throws Exception {
+        ModelHandle original = this.registry.getModel(TEST_MODEL);
+        Assert.assertTrue(this.modelFile.setLastModified(original.getSourceLastModified() + 60000));
+
+        // The reload happens in the background, so the original version keeps serving until it is swapped
+        ModelHandle reloaded = this.registry.getModel(TEST_MODEL);
+        while (reloaded == original) {
+            Thread.sleep(10);
+            reloaded = this.registry.getModel(TEST_MODEL);
+        }
+
+        Assert.assertEquals(2, reloaded.getVersion());
+        Assert.assertEquals(2, this.loads.get());
+        Assert.assertEquals(2, reloaded.getClassifier().classify(null).getPercentage(), 0);
+
+        // The original handle is immutable and still refers to the original model
+        Assert.assertEquals(1, original.getVersion());
+        Assert.assertEquals(1, original.getClassifier().classify(null).getPercentage(), 0);
+    }
+
+    @Test(timeout=5000)
+    public void testFailedLoadIsRetried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        this.registry.register(TEST_MODEL, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("Model unavailable");
+            }
+            return constantClassifier(0.5);
+        }, this.modelFile);
+
+        try {
+            this.registry.getModel(TEST_MODEL);
+            Assert.fail("Expected the first load of the model to fail");
+        } catch (IOException e) {
+            Assert.assertEquals("Model unavailable", e.getMessage());
+        }
+
+        Assert.assertEquals(1, this.registry.getModel(TEST_MODEL).getVersion());
+        Assert.assertEquals(2, attempts.get());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testUnregisteredModel() throws Exception {
+        this.registry.getModel("Unregistered");
+    }
+}
@@ -0,0 +1,83 @@
+package main.java.penny.models.classification;
+
+import main.java.penny.marketdata.StockTick;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class ClassificationContainerTest {
+
+    /**
+     * Returns the tickers of the classified stock ticks provided, in order.
+     */
+    private static List<String> tickersOf(List<ClassifiedStockTick> classifications) {
+        List<String> tickers = new ArrayList<String>();
+        classifications.forEach(classified -> tickers.add(classified.getStockTick().getTicker()));
+        return tickers;
+    }
+
+    @Test
+    public void testReclassifiedTickerReplaced() {
+        ClassificationContainer container = new ClassificationContainer();
+
+        container.addStockTick(new StockTick("BRAB"), new ClassificationResult(0.2));
+        container.addStockTick(new StockTick("JYON"), new ClassificationResult(0.5));
+        container.addStockTick(new StockTick("BRAB"), new ClassificationResult(0.9));
+
+        List<ClassifiedStockTick> results = container.getClassifiedPumpStockTicks();
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals("BRAB", results.get(0).getStockTick().getTicker());
+        Assert.assertEquals(0.9, results.get(0).getClassification().getPercentage(), 0.0);
+    }
+
+    @Test
+    public void testBoundedKeepsLeaders() {
+        ClassificationContainer container = new ClassificationContainer(3);
+
+        double[] percentages = {0.3, 0.75, 0.05, 0.6, 0.45, 0.9};
+        for (int i = 0; i < percentages.length; i++) {
+            container.addStockTick(new StockTick("T" + i), new ClassificationResult(percentages[i]));
+        }
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("T5");
+        expected.add("T1");
+        expected.add("T3");
+        Assert.assertEquals(expected, tickersOf(container.getLeaders()));
+
+        // A leader reclassified below the others is replaced rather than duplicated, then ranked out by a newcomer
+        container.addStockTick(new StockTick("T5"), new ClassificationResult(0.1));
+        Assert.assertEquals("T5", container.getLeaders().get(2).getStockTick().getTicker());
+        container.addStockTick(new StockTick("T6"), new ClassificationResult(0.2));
+
+        expected.set(0, "T1");
+        expected.set(1, "T3");
+        expected.set(2, "T6");
+        Assert.assertEquals(expected, tickersOf(container.getLeaders()));
+    }
+
+    @Test(timeout=10000)
+    public void testBoundedConcurrentLeadersMatchFullSort() {
+        ClassificationContainer bounded = new ClassificationContainer(25);
+        ClassificationContainer unbounded = new ClassificationContainer();
+
+        Random rng = new Random(5);
+        double[] percentages = new double[20000];
+        for (int i = 0; i < percentages.length; i++) {
+            percentages[i] = rng.nextDouble();
+        }
+
+        IntStream.range(0, percentages.length).parallel().forEach(i -> {
+            StockTick tick = new StockTick(Integer.toString(i));
+            bounded.addStockTick(tick, new ClassificationResult(percentages[i]));
+            unbounded.addStockTick(tick, new ClassificationResult(percentages[i]));
+        });
+
+        List<ClassifiedStockTick> sorted = unbounded.getClassifiedPumpStockTicks();
+        Assert.assertEquals(tickersOf(sorted.subList(0, 25)), tickersOf(bounded.getLeaders()));
+    }
+}
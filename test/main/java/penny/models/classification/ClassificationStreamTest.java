@@ -0,0 +1,98 @@
+package main.java.penny.models.classification;
+
+import main.java.penny.marketdata.StockTick;
+import main.java.penny.models.Classifier;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class ClassificationStreamTest {
+
+    /**
+     * Classifier classifying each StockTick by the percentage its ticker names.
+     */
+    private static class TickerClassifier implements Classifier {
+
+        @Override
+        public ClassificationResult classify(StockTick tick) {
+            return new ClassificationResult(Double.parseDouble(tick.getTicker()));
+        }
+    }
+
+    @Test(timeout=5000)
+    public void testPositiveClassificationsEmittedBeforeClose() throws InterruptedException {
+        CountDownLatch emitted = new CountDownLatch(1);
+        List<ClassifiedStockTick> positives = Collections.synchronizedList(new ArrayList<ClassifiedStockTick>());
+        ClassificationStream stream = new ClassificationStream(new TickerClassifier(), null, classified -> {
+            positives.add(classified);
+            emitted.countDown();
+        });
+
+        stream.accept(new StockTick("0.1"));
+        stream.accept(new StockTick("0.9"));
+
+        // The positive classification is emitted while the stream is still open
+        emitted.await();
+        Assert.assertEquals(1, positives.size());
+        Assert.assertEquals("0.9", positives.get(0).getStockTick().getTicker());
+
+        stream.close();
+    }
+
+    @Test(timeout=5000)
+    public void testCloseReturnsEveryClassificationSorted() throws InterruptedException {
+        List<ClassifiedStockTick> positives = Collections.synchronizedList(new ArrayList<ClassifiedStockTick>());
+        ClassificationStream stream = new ClassificationStream(new TickerClassifier(), null, positives::add);
+
+        double[] percentages = {0.3, 0.75, 0.05, 0.6, 0.45};
+        for (double percentage : percentages) {
+            stream.accept(new StockTick(Double.toString(percentage)));
+        }
+
+        List<ClassifiedStockTick> results = stream.close();
+
+        Assert.assertEquals(percentages.length, results.size());
+        for (int i = 1; i < results.size(); i++) {
+            Assert.assertTrue(results.get(i - 1).getClassification().getPercentage()
+                    >= results.get(i).getClassification().getPercentage());
+        }
+        Assert.assertEquals(2, positives.size());
+    }
+
+    @Test(timeout=5000)
+    public void testClassifierFailuresAreInvalidAndRecorded() throws InterruptedException {
+        ClassificationStream stream = new ClassificationStream(new TickerClassifier(), null, classified -> {});
+
+        // The ticker is not a percentage, so the classifier throws
+        stream.accept(new StockTick("FPTA"));
+        stream.accept(new StockTick("0.9"));
+        stream.accept(new StockTick("BRAB"));
+
+        List<ClassifiedStockTick> results = stream.close();
+
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals("0.9", results.get(0).getStockTick().getTicker());
+        Assert.assertTrue(results.get(1).getClassification().isInvalid());
+        Assert.assertTrue(results.get(2).getClassification().isInvalid());
+        Assert.assertEquals(2, stream.getFailureCount());
+        Assert.assertTrue(stream.getFailure() instanceof NumberFormatException);
+        Assert.assertEquals(1, stream.getFailure().getSuppressed().length);
+    }
+
+    @Test(timeout=5000)
+    public void testFilteredTicksNotClassified() throws InterruptedException {
+        ClassificationFilter filter = new ClassificationFilter.ClassificationFilterBuilder()
+                .withMinimumPrice(0.01)
+            .build();
+        ClassificationStream stream = new ClassificationStream(new TickerClassifier(), filter, classified -> {});
+
+        // Incomplete stock ticks never satisfy the classification filter
+        stream.accept(new StockTick("0.9"));
+
+        Assert.assertTrue(stream.close().isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package main.java.penny.store;
+
+import main.java.penny.constants.TickTypes;
+import main.java.penny.marketdata.StockTick;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class DayFileStreamTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("penny", ".day");
+        file.delete();
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test(timeout=10000)
+    public void testConcurrentlyAcceptedTicksAreDurableOnClose() throws Exception {
+        // A queue much smaller than the number of stock ticks makes delivered stock ticks overflow
+        DayFileStream stream = new DayFileStream(file, 8, 4);
+
+        List<StockTick> ticks = new ArrayList<StockTick>();
+        for (int i = 0; i < 1000; i++) {
+            ticks.add(tick("T" + i));
+        }
+
+        ExecutorService delivery = Executors.newFixedThreadPool(4);
+        for (StockTick tick : ticks) {
+            delivery.execute(() -> stream.accept(tick));
+        }
+        delivery.shutdown();
+        Assert.assertTrue(delivery.awaitTermination(5, TimeUnit.SECONDS));
+
+        stream.acceptRemaining(ticks);
+        stream.close();
+
+        DayFileReader reader = DayFileReader.open(file);
+        Assert.assertTrue(reader.isIndexed());
+        Assert.assertEquals(1000, reader.getRecordCount());
+        Assert.assertEquals(1000, reader.getTickerCount());
+        Assert.assertEquals(12.5, reader.find("T999").getTickValue(TickTypes.LAST), 0);
+    }
+
+    @Test(timeout=10000)
+    public void testAcceptRemainingSkipsAcceptedTickers() throws Exception {
+        DayFileStream stream = new DayFileStream(file, 16, 16);
+
+        StockTick delivered = tick("BRAB");
+        StockTick timedOut = new StockTick("JYON");
+        stream.accept(delivered);
+        stream.acceptRemaining(Arrays.asList(delivered, timedOut));
+        stream.close();
+        stream.close();
+
+        DayFileReader reader = DayFileReader.open(file);
+        Assert.assertEquals(2, reader.getRecordCount());
+        Assert.assertEquals(Arrays.asList("BRAB", "JYON"), reader.getTickers());
+    }
+
+    @Test(timeout=10000)
+    public void testOverflowedTicksAreAcceptedOnceRemaining() throws Exception {
+        DayFileStream stream = new DayFileStream(file, 1, 1);
+
+        // Delivering never waits on the I/O thread however full the queue is
+        List<StockTick> ticks = new ArrayList<StockTick>();
+        for (int i = 0; i < 200; i++) {
+            StockTick tick = tick("T" + i);
+            ticks.add(tick);
+            stream.accept(tick);
+        }
+
+        stream.acceptRemaining(ticks);
+        stream.close();
+
+        DayFileReader reader = DayFileReader.open(file);
+        Assert.assertEquals(200, reader.getRecordCount());
+        Assert.assertEquals(200, reader.getTickerCount());
+    }
+
+    @Test(timeout=10000)
+    public void testAcceptAfterCloseIsRejected() throws Exception {
+        DayFileStream stream = new DayFileStream(file, 16, 16);
+        stream.close();
+
+        try {
+            stream.accept(tick("BRAB"));
+            Assert.fail("Accepted a stock tick after closing");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    private static StockTick tick(String ticker) {
+        StockTick tick = new StockTick(ticker);
+        tick.addTick(TickTypes.LAST, 12.5);
+        tick.addTick(TickTypes.VOLUME, 1000);
+        return tick;
+    }
+}
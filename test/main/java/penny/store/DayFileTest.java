@@ -0,0 +1,247 @@
+package main.java.penny.store;
+
+import main.java.penny.constants.TickTypes;
+import main.java.penny.marketdata.StockTick;
+import main.java.penny.marketdata.StockTickCodec;
+import main.java.penny.marketdata.StockTickResults;
+import main.java.penny.util.CommandUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+public class DayFileTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("penny", DayFile.getDayFile(new Date()).getName());
+        file.delete();
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        try (DayFileWriter writer = new DayFileWriter(file)) {
+            writer.append(tick("FPTA", 2.5, 3300));
+            writer.append(tick("BRAB", 0.25, 100));
+            writer.append(tick("ABCD", 1.0, 7));
+        }
+
+        DayFileReader reader = DayFileReader.open(file);
+
+        Assert.assertTrue(reader.isIndexed());
+        Assert.assertEquals(3, reader.getRecordCount());
+        Assert.assertEquals(Arrays.asList("ABCD", "BRAB", "FPTA"), reader.getTickers());
+        assertTick(reader.find("FPTA"), "FPTA", 2.5, 3300);
+        assertTick(reader.find("BRAB"), "BRAB", 0.25, 100);
+
+        List<StockTick> ticks = reader.readAll();
+        Assert.assertEquals(3, ticks.size());
+        assertTick(ticks.get(0), "ABCD", 1.0, 7);
+    }
+
+    @Test
+    public void testAppendAfterReopen() throws IOException {
+        try (DayFileWriter writer = new DayFileWriter(file)) {
+            writer.append(tick("FPTA", 2.5, 3300));
+            writer.append(tick("BRAB", 0.25, 100));
+        }
+        try (DayFileWriter writer = new DayFileWriter(file)) {
+            Assert.assertEquals(2, writer.getRecordCount());
+            writer.append(tick("FPTA", 2.75, 4000));
+            writer.append(tick("ZZZZ", 9.0, 1));
+        }
+
+        DayFileReader reader = DayFileReader.open(file);
+
+        // The most recent record of a ticker supersedes its earlier records
+        Assert.assertTrue(reader.isIndexed());
+        Assert.assertEquals(4, reader.getRecordCount());
+        Assert.assertEquals(Arrays.asList("BRAB", "FPTA", "ZZZZ"), reader.getTickers());
+        assertTick(reader.find("FPTA"), "FPTA", 2.75, 4000);
+        assertTick(reader.readRecord(0), "FPTA", 2.5, 3300);
+    }
+
+    @Test
+    public void testUnindexedDayFileIsScanned() throws IOException {
+        DayFileWriter writer = new DayFileWriter(file);
+        writer.append(tick("FPTA", 2.5, 3300));
+        writer.append(tick("BRAB", 0.25, 100));
+        writer.append(tick("FPTA", 2.75, 4000));
+        writer.flush();
+
+        // Simulate a writer that never closed: records, then a partial record, but no index
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(raw.length());
+            raw.write(new byte[DayFile.MAX_RECORD_BYTES / 2]);
+        }
+
+        DayFileReader reader = DayFileReader.open(file);
+
+        Assert.assertFalse(reader.isIndexed());
+        Assert.assertEquals(3, reader.getRecordCount());
+        Assert.assertEquals(Arrays.asList("BRAB", "FPTA"), reader.getTickers());
+        assertTick(reader.find("FPTA"), "FPTA", 2.75, 4000);
+    }
+
+    @Test
+    public void testTornIndexIsTruncatedOnReopen() throws IOException {
+        try (DayFileWriter writer = new DayFileWriter(file)) {
+            for (int i = 0; i < 20; i++) {
+                writer.append(tick(String.format("T%02d", i), i, i));
+            }
+            writer.append(tick("T07", 2.75, 4000));
+        }
+
+        // Simulate a crash while closing: the index and Bloom filter were written, but the footer was cut short
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - DayFile.FOOTER_BYTES / 2);
+        }
+
+        DayFileReader reader = DayFileReader.open(file);
+
+        Assert.assertFalse(reader.isIndexed());
+        Assert.assertEquals(21, reader.getRecordCount());
+        assertTick(reader.find("T07"), "T07", 2.75, 4000);
+
+        try (DayFileWriter writer = new DayFileWriter(file)) {
+            Assert.assertEquals(21, writer.getRecordCount());
+            writer.append(tick("ZZZZ", 9.0, 1));
+        }
+
+        reader = DayFileReader.open(file);
+
+        Assert.assertTrue(reader.isIndexed());
+        Assert.assertEquals(22, reader.getRecordCount());
+        Assert.assertEquals(21, reader.getTickerCount());
+        assertTick(reader.find("T07"), "T07", 2.75, 4000);
+        assertTick(reader.find("ZZZZ"), "ZZZZ", 9.0, 1);
+    }
+
+    @Test
+    public void testFindMissingTicker() throws IOException {
+        try (DayFileWriter writer = new DayFileWriter(file)) {
+            writer.append(tick("FPTA", 2.5, 3300));
+        }
+
+        Assert.assertNull(DayFileReader.open(file).find("BRAB"));
+    }
+
+    @Test
+    public void testIndexedLookupOfManyTickers() throws IOException {
+        try (DayFileWriter writer = new DayFileWriter(file)) {
+            for (int i = 0; i < 2000; i++) {
+                writer.append(tick("T" + i, i, i));
+            }
+        }
+
+        DayFileReader reader = DayFileReader.open(file);
+
+        Assert.assertEquals(2000, reader.getTickerCount());
+        for (int i = 0; i < 2000; i += 7) {
+            Assert.assertTrue(reader.mightContain("T" + i));
+            assertTick(reader.find("T" + i), "T" + i, i, i);
+        }
+
+        // The Bloom filter rejects almost every absent ticker without searching the index
+        int falsePositives = 0;
+        for (int i = 0; i < 2000; i++) {
+            Assert.assertNull(reader.find("U" + i));
+            if (reader.mightContain("U" + i)) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue("False positives: " + falsePositives, falsePositives < 100);
+    }
+
+    @Test(timeout=10000)
+    public void testParallelDeserializeIsDeterministic() throws IOException {
+        try (DayFileWriter writer = new DayFileWriter(file)) {
+            for (int i = 999; i >= 0; i--) {
+                writer.append(tick(String.format("T%03d", i), i, i));
+            }
+        }
+
+        StockTickResults results = new StockTickResults();
+        CommandUtil.deserialize(file, results, null);
+
+        // Stock ticks are deserialized in parallel but added to the results in ticker order
+        Assert.assertEquals(1000, results.getRowCount());
+        int i = 0;
+        for (StockTick tick : results.getStockTicks()) {
+            assertTick(tick, String.format("T%03d", i), i, i);
+            Assert.assertSame(tick, results.getStockTick(i));
+            i++;
+        }
+
+        StockTickResults subset = new StockTickResults();
+        CommandUtil.deserialize(file, subset, new HashSet<String>(Arrays.asList("T500", "T007", "NONE")));
+
+        Assert.assertEquals(2, subset.getRowCount());
+        assertTick(subset.getStockTick("T007"), "T007", 7, 7);
+        assertTick(subset.getStockTick("T500"), "T500", 500, 500);
+        Assert.assertNull(subset.getStockTick("NONE"));
+    }
+
+    @Test
+    public void testSizesAndMissingTicksPreserved() throws IOException {
+        StockTick partial = new StockTick("PART");
+        partial.addTick(TickTypes.BID_SIZE, 12);
+        partial.addTick(TickTypes.BID, 12.0);
+
+        try (DayFileWriter writer = new DayFileWriter(file)) {
+            writer.append(partial);
+        }
+
+        DayFileReader reader = DayFileReader.open(file);
+        StockTick read = reader.find("PART");
+
+        // Records are only as long as the tick data they hold
+        Assert.assertEquals(DayFile.HEADER_BYTES + StockTickCodec.encodedLength(partial), reader.getRecordsEnd());
+
+        Assert.assertEquals(Integer.valueOf(12), read.getTick(TickTypes.BID_SIZE));
+        Assert.assertEquals(Double.valueOf(12.0), read.getTick(TickTypes.BID));
+        Assert.assertFalse(read.hasTick(TickTypes.LAST));
+        Assert.assertEquals(partial.getPresentTicks(), read.getPresentTicks());
+        Assert.assertEquals(partial.getSizeTicks(), read.getSizeTicks());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsNonDayFile() throws IOException {
+        Files.write(file.toPath(), new byte[DayFile.HEADER_BYTES + DayFile.MAX_RECORD_BYTES]);
+
+        DayFileReader.open(file);
+    }
+
+    private static StockTick tick(String ticker, double price, int volume) {
+        StockTick tick = new StockTick(ticker);
+        for (int tickType = 0; tickType < TickTypes.NUM_TICK_TYPES; tickType++) {
+            tick.addTick(tickType, price + tickType);
+        }
+        tick.addTick(TickTypes.LAST_SIZE, volume);
+        tick.addTick(TickTypes.VOLUME, volume);
+        return tick;
+    }
+
+    private static void assertTick(StockTick tick, String ticker, double price, int volume) {
+        Assert.assertEquals(ticker, tick.getTicker());
+        Assert.assertEquals(price + TickTypes.LAST, tick.getTickValue(TickTypes.LAST), 0);
+        Assert.assertEquals(Integer.valueOf(volume), tick.getTick(TickTypes.LAST_SIZE));
+        Assert.assertEquals(Integer.valueOf(volume), tick.getTick(TickTypes.VOLUME));
+    }
+}
@@ -0,0 +1,150 @@
+package main.java.penny.store;
+
+import main.java.penny.constants.TickTypes;
+import main.java.penny.marketdata.StockTick;
+import main.java.penny.marketdata.StockTickCodec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class MonthArchiveTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("penny", ".archive");
+        file.delete();
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        try (MonthArchiveWriter writer = new MonthArchiveWriter(file)) {
+            writer.appendDay(2, Arrays.asList(tick("FPTA", 2.5, 3300), tick("BRAB", 0.25, 100)));
+            writer.appendDay(3, Arrays.asList(tick("BRAB", 0.5, 200), tick("KLMN", 1.0, 7)));
+            writer.appendDay(17, Collections.<StockTick>emptyList());
+        }
+
+        MonthArchiveReader reader = MonthArchiveReader.open(file);
+
+        // Tickers are dictionary encoded once for the whole month
+        Assert.assertArrayEquals(new int[] {2, 3, 17}, reader.getDays());
+        Assert.assertEquals(Arrays.asList("FPTA", "BRAB", "KLMN"), reader.getTickers());
+        Assert.assertFalse(reader.hasDay(1));
+        Assert.assertEquals(0, reader.getRowCount(17));
+
+        List<StockTick> day = reader.readDay(3);
+        Assert.assertEquals(2, day.size());
+        assertTick(day.get(0), "BRAB", 0.5, 200);
+        assertTick(day.get(1), "KLMN", 1.0, 7);
+        assertTick(reader.readDay(2).get(0), "FPTA", 2.5, 3300);
+        Assert.assertTrue(reader.readDay(17).isEmpty());
+
+        // An archive read into memory reads the same as one mapped
+        MonthArchiveReader copy = MonthArchiveReader.read(file);
+        Assert.assertArrayEquals(reader.getDays(), copy.getDays());
+        assertTick(copy.readDay(3).get(1), "KLMN", 1.0, 7);
+    }
+
+    @Test
+    public void testScanSingleColumnAcrossDays() throws IOException {
+        try (MonthArchiveWriter writer = new MonthArchiveWriter(file)) {
+            for (int dayOfMonth = 1; dayOfMonth <= 20; dayOfMonth++) {
+                List<StockTick> ticks = new ArrayList<StockTick>();
+                for (int i = 0; i < 100; i++) {
+                    ticks.add(tick("T" + i, dayOfMonth + i / 100.0, i));
+                }
+                writer.appendDay(dayOfMonth, ticks);
+            }
+        }
+
+        MonthArchiveReader reader = MonthArchiveReader.open(file);
+
+        List<Integer> days = new ArrayList<Integer>();
+        reader.scanColumn(TickTypes.LAST, (dayOfMonth, tickerIds, values) -> {
+            days.add(dayOfMonth);
+            Assert.assertEquals(100, values.length);
+            for (int row = 0; row < values.length; row++) {
+                int i = Integer.parseInt(reader.getTicker(tickerIds[row]).substring(1));
+                Assert.assertEquals(dayOfMonth + i / 100.0 + TickTypes.LAST, values[row], 0);
+            }
+        });
+        Assert.assertEquals(20, days.size());
+
+        // Columns without a value in a row read as NaN
+        Assert.assertTrue(Double.isNaN(reader.readColumn(5, TickTypes.CLOSE)[0]));
+        Assert.assertEquals(42, reader.readColumn(5, TickTypes.VOLUME)[42], 0);
+    }
+
+    @Test
+    public void testColumnsCompressSmallerThanDayFiles() throws IOException {
+        List<StockTick> ticks = new ArrayList<StockTick>();
+        for (int i = 0; i < 2000; i++) {
+            ticks.add(tick(String.format("T%04d", i), 0.01 * (i % 50), 1000 * (i % 30)));
+        }
+
+        try (MonthArchiveWriter writer = new MonthArchiveWriter(file)) {
+            writer.appendDay(1, ticks);
+        }
+
+        long dayFileBytes = 0;
+        for (StockTick tick : ticks) {
+            dayFileBytes += StockTickCodec.encodedLength(tick);
+        }
+        Assert.assertTrue("Archive of " + file.length() + " bytes", file.length() < dayFileBytes / 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDaysMustAscend() throws IOException {
+        try (MonthArchiveWriter writer = new MonthArchiveWriter(file)) {
+            writer.appendDay(5, Collections.singletonList(tick("FPTA", 2.5, 3300)));
+            writer.appendDay(5, Collections.singletonList(tick("BRAB", 0.25, 100)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsIncompleteArchive() throws IOException {
+        try (MonthArchiveWriter writer = new MonthArchiveWriter(file)) {
+            writer.appendDay(1, Collections.singletonList(tick("FPTA", 2.5, 3300)));
+        }
+
+        // Simulate a writer that never closed by cutting off the footer
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 1);
+        }
+
+        MonthArchiveReader.open(file);
+    }
+
+    private static StockTick tick(String ticker, double price, int volume) {
+        StockTick tick = new StockTick(ticker);
+        for (int tickType = 0; tickType < TickTypes.CLOSE; tickType++) {
+            tick.addTick(tickType, price + tickType);
+        }
+        tick.addTick(TickTypes.LAST_SIZE, volume);
+        tick.addTick(TickTypes.VOLUME, volume);
+        return tick;
+    }
+
+    private static void assertTick(StockTick tick, String ticker, double price, int volume) {
+        Assert.assertEquals(ticker, tick.getTicker());
+        Assert.assertEquals(price + TickTypes.LAST, tick.getTickValue(TickTypes.LAST), 0);
+        Assert.assertEquals(Integer.valueOf(volume), tick.getTick(TickTypes.LAST_SIZE));
+        Assert.assertEquals(Integer.valueOf(volume), tick.getTick(TickTypes.VOLUME));
+        Assert.assertFalse(tick.hasTick(TickTypes.CLOSE));
+    }
+}
@@ -9,6 +9,8 @@ import main.java.penny.marketdata.StockScanner;
 import main.java.penny.mock.MockBroker;
 import main.java.penny.mock.MockMarketData;
 import main.java.penny.models.Classifier;
+import main.java.penny.models.CompiledPumpClassifier;
+import main.java.penny.models.ModelArtifact;
 import main.java.penny.models.PumpClassifier;
 import main.java.penny.models.classification.ClassificationFilter;
 import main.java.penny.models.classification.ClassificationResult;
@@ -18,6 +20,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.*;
 
 import static main.java.penny.constants.ClassificationConstants.MIN_PRICE_FILTER;
@@ -117,6 +120,35 @@ public class ClassificationSystemTest {
         Assert.assertTrue("Percent Classifications Invalid was: " + percentInvalid, percentInvalid <= 0.1);
     }
 
+    @Test
+    public void testCompiledAndWekaClassifiersAgreeOnNonFiniteFeatures() throws Exception {
+        PumpClassifier pumpClassifier = (PumpClassifier) classifier;
+        Assert.assertTrue(pumpClassifier.isCompiled());
+
+        File artifact = File.createTempFile("PumpClassifier", ".pnym");
+        try {
+            pumpClassifier.export(artifact);
+            CompiledPumpClassifier compiled = new CompiledPumpClassifier(ModelArtifact.map(artifact));
+
+            // No opening price makes the percent change and day range infinite, or NaN without a last price either
+            List<StockTick> ticks = Arrays.asList(FPTA(), withPrices("NOPN", 0, 2.9), withPrices("NONE", 0, 0));
+            double[] batch = pumpClassifier.classifyBatch(ticks);
+            double[] compiledBatch = compiled.classifyBatch(ticks);
+
+            for (int i = 0; i < ticks.size(); i++) {
+                ClassificationResult expected = pumpClassifier.classify(ticks.get(i));
+                ClassificationResult actual = compiled.classify(ticks.get(i));
+
+                Assert.assertEquals(expected.getPercentage(), actual.getPercentage(), 0);
+                Assert.assertEquals(expected.getPercentage(), batch[i], 0);
+                Assert.assertEquals(expected.getPercentage(), compiledBatch[i], 0);
+                Assert.assertEquals(i > 0, actual.isInvalid());
+            }
+        } finally {
+            artifact.delete();
+        }
+    }
+
     private void addSpoofContracts() {
         StockTickResults results = Broker.getInstance().getMarketData().getStockTickResults();
 
@@ -144,6 +176,21 @@ public class ClassificationSystemTest {
         tickers.remove(WHZT().getTicker());
     }
 
+    private StockTick withPrices(String ticker, double open, double last) {
+        StockTick tick = new StockTick(ticker);
+
+        tick.addTick(TickTypes.OPEN, open);
+        tick.addTick(TickTypes.LAST, last);
+        tick.addTick(TickTypes.HIGH, 3.02);
+        tick.addTick(TickTypes.LOW, 2.5);
+        tick.addTick(TickTypes.VOLUME, 3279);
+        tick.addTick(TickTypes.AVERAGE_VOLUME, 31);
+        tick.addTick(TickTypes.HIGH_13_WEEKS, 10.4);
+        tick.addTick(TickTypes.LOW_13_WEEKS, 1);
+
+        return tick;
+    }
+
     private StockTick FPTA() {
         StockTick tick = new StockTick(MarketData.contract("FPTA").symbol());
 
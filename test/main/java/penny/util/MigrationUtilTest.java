@@ -0,0 +1,135 @@
+package main.java.penny.util;
+
+import main.java.penny.constants.TickTypes;
+import main.java.penny.marketdata.StockTick;
+import main.java.penny.store.DayFileReader;
+import main.java.penny.store.DayFileWriter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class MigrationUtilTest {
+
+    private File root;
+
+    private File dayDirectory;
+
+    private File dayFile;
+
+    @Before
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("penny").toFile();
+        dayDirectory = new File(root, "01");
+        dayDirectory.mkdirs();
+        dayFile = new File(root, "01.day");
+    }
+
+    @After
+    public void cleanup() {
+        delete(root);
+    }
+
+    @Test
+    public void testMigrateStreamsDayDirectoryIntoDayFile() throws IOException {
+        serialize(tick("FPTA", 2.5, 3300));
+        serialize(tick("BRAB", 0.25, 100));
+        serialize(tick("KLMN", 1.0, 7));
+        Files.write(new File(dayDirectory, "BROKEN.ser").toPath(), new byte[] {1, 2, 3});
+
+        MigrationUtil.MigrationSummary summary = MigrationUtil.migrate(dayDirectory, dayFile);
+
+        Assert.assertEquals(3, summary.getRecordCount());
+        Assert.assertEquals(3, summary.getTickerCount());
+        Assert.assertEquals(1, summary.getUnreadableCount());
+        Assert.assertFalse(new File(dayFile.getPath() + ".partial").exists());
+
+        DayFileReader reader = DayFileReader.open(dayFile);
+        Assert.assertEquals(Arrays.asList("BRAB", "FPTA", "KLMN"), reader.getTickers());
+        Assert.assertEquals(Integer.valueOf(3300), reader.find("FPTA").getTick(TickTypes.VOLUME));
+        Assert.assertEquals(2.5 + TickTypes.LAST, reader.find("FPTA").getTickValue(TickTypes.LAST), 0);
+
+        // A day file migrated before an interruption verifies against its day directory
+        Assert.assertEquals(3, MigrationUtil.verify(dayDirectory, dayFile).getRecordCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testVerifyRejectsMismatchedValues() throws IOException {
+        serialize(tick("FPTA", 2.5, 3300));
+
+        try (DayFileWriter writer = new DayFileWriter(dayFile)) {
+            writer.append(tick("FPTA", 2.5, 3301));
+        }
+
+        MigrationUtil.verify(dayDirectory, dayFile);
+    }
+
+    @Test(expected = IOException.class)
+    public void testVerifyRejectsMissingRecords() throws IOException {
+        serialize(tick("FPTA", 2.5, 3300));
+        serialize(tick("BRAB", 0.25, 100));
+
+        try (DayFileWriter writer = new DayFileWriter(dayFile)) {
+            writer.append(tick("BRAB", 0.25, 100));
+        }
+
+        MigrationUtil.verify(dayDirectory, dayFile);
+    }
+
+    @Test
+    public void testCheckpointResumes() throws IOException {
+        File file = new File(root, "migration.checkpoint");
+        try (MigrationCheckpoint checkpoint = new MigrationCheckpoint(file)) {
+            checkpoint.complete("Jan2019/01", "records=3");
+            Assert.assertTrue(checkpoint.isComplete("Jan2019/01"));
+        }
+
+        // Simulate a line cut short by a crash
+        Files.write(file.toPath(), "Jan2019/0".getBytes(), StandardOpenOption.APPEND);
+
+        try (MigrationCheckpoint checkpoint = new MigrationCheckpoint(file)) {
+            Assert.assertTrue(checkpoint.isComplete("Jan2019/01"));
+            Assert.assertFalse(checkpoint.isComplete("Jan2019/02"));
+            checkpoint.complete("Jan2019/02", "records=5");
+        }
+
+        try (MigrationCheckpoint checkpoint = new MigrationCheckpoint(file)) {
+            Assert.assertEquals(2, checkpoint.getCompletedCount());
+            Assert.assertTrue(checkpoint.isComplete("Jan2019/02"));
+        }
+    }
+
+    private void serialize(StockTick tick) throws IOException {
+        File file = new File(dayDirectory, tick.getTicker() + ".ser");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+            out.writeObject(tick);
+        }
+    }
+
+    private static StockTick tick(String ticker, double price, int volume) {
+        StockTick tick = new StockTick(ticker);
+        for (int tickType = 0; tickType < TickTypes.NUM_TICK_TYPES; tickType++) {
+            tick.addTick(tickType, price + tickType);
+        }
+        tick.addTick(TickTypes.VOLUME, volume);
+        return tick;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,50 @@
+package main.java.penny.models;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorLinearPredictorKernel represents a LinearPredictorKernel using the SIMD instructions of the JDK Vector API
+ * (jdk.incubator.vector), processing as many rows per instruction as the preferred vector shape of the platform
+ * allows.  Only lane-wise subtraction, division, multiplication and addition are used, each of which is exactly
+ * rounded per lane, so the predictors are bit-for-bit identical to those of the scalar kernel.
+ *
+ * Requires JDK 16 or later, compiled and run with "--add-modules jdk.incubator.vector", so this kernel lives in the
+ * optional vector source root rather than with the rest of the sources and is only compiled when that root is
+ * added to the build.  LogisticScorer loads this kernel reflectively and falls back to the scalar kernel when it was
+ * not compiled or the JVM lacks the module.
+ */
+class VectorLinearPredictorKernel implements LinearPredictorKernel {
+
+    /** Preferred vector shape of doubles on this platform */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void accumulate(double[] column, int low, int high, double coefficient, double mean, double stdDev,
+                           double[] predictors) {
+        int row = low;
+        int upperBound = low + SPECIES.loopBound(high - low);
+
+        if (stdDev > 0) {
+            for (; row < upperBound; row += SPECIES.length()) {
+                DoubleVector standardized = DoubleVector.fromArray(SPECIES, column, row).sub(mean).div(stdDev);
+                DoubleVector.fromArray(SPECIES, predictors, row)
+                        .add(standardized.mul(coefficient))
+                        .intoArray(predictors, row);
+            }
+        } else {
+            for (; row < upperBound; row += SPECIES.length()) {
+                DoubleVector standardized = DoubleVector.fromArray(SPECIES, column, row).sub(mean);
+                DoubleVector.fromArray(SPECIES, predictors, row)
+                        .add(standardized.mul(coefficient))
+                        .intoArray(predictors, row);
+            }
+        }
+
+        // Remaining rows that do not fill a whole vector
+        for (; row < high; row++) {
+            double standardized = stdDev > 0 ? (column[row] - mean) / stdDev : column[row] - mean;
+            predictors[row] += coefficient * standardized;
+        }
+    }
+}